@@ -30,6 +30,7 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.perl5.lang.perl.idea.execution.PerlCommandLine;
 import com.perl5.lang.perl.idea.project.PerlProjectManager;
 import com.perl5.lang.perl.idea.sdk.host.PerlExecutionException;
@@ -38,6 +39,7 @@ import com.perl5.lang.perl.idea.sdk.host.PerlHostData;
 import com.perl5.lang.perl.idea.sdk.host.PerlHostHandler;
 import com.perl5.lang.perl.util.PerlPluginUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -50,12 +52,29 @@ import java.util.stream.Collectors;
 class PerlDockerAdapter {
   private static final Logger LOG = Logger.getInstance(PerlDockerAdapter.class);
   private static final String CONTAINER_NAME_PREFIX = "intellijPerl_";
+  /**
+   * Breadth-first listing of the directory from the first argument up to depth from the second one. Reports {@code \0}-terminated
+   * records: {@code D<tab>directory} for each listed directory and {@code F<tab>directory<tab>size<tab>suffix<tab>name} for each file
+   * in it, where suffix is the same as {@code ls -L --classify} would append to the name and size is in kilobytes
+   */
+  private static final String LIST_FILES_SCRIPT =
+    "my ($root, $depth) = @ARGV; my @queue = ([$root, 0]);" +
+    "while (my $item = shift @queue) { my ($dir, $level) = @$item; opendir(my $dh, $dir) or next; print \"D\\t$dir\\0\";" +
+    "for my $name (sort grep {$_ ne '.' && $_ ne '..'} readdir $dh) { my $path = $dir eq '/' ? \"/$name\" : \"$dir/$name\";" +
+    "my @stat = stat($path); my $suffix = !@stat ? (-l $path ? '@' : '') : -d _ ? '/' : -p _ ? '|' : -S _ ? '=' : -x _ ? '*' : '';" +
+    "print join(\"\\t\", 'F', $dir, int(($stat[12] || 0) / 2), $suffix, $name), \"\\0\";" +
+    "push @queue, [$path, $level + 1] if $suffix eq '/' && $level + 1 < $depth; } }";
+  /**
+   * Docker cli executable, may be replaced with a fake one for testing
+   */
+  private static final String DOCKER_EXECUTABLE = System.getProperty("perl.docker.executable", "docker");
   private static final String KILL = "kill";
   private static final String RUN = "run";
   private static final String EXEC = "exec";
   private static final String WITH_AUTOREMOVE = "--rm";
   private static final String AS_DAEMON = "-d";
   private static final String CONTAINER = "container";
+  private static final String INSPECT = "inspect";
   private static final String REMOVE = "rm";
   private static final String CREATE = "create";
   private static final String WITH_CONTAINER_NAME = "--name";
@@ -160,6 +179,40 @@ class PerlDockerAdapter {
     }
   }
 
+  /**
+   * Lists {@code path} and its subdirectories up to {@code depth} levels with a single perl invocation in the container.
+   *
+   * @return map of listed directories paths to their contents or null if listing failed, e.g. there is no perl in the path
+   */
+  @Nullable
+  public Map<String, List<PerlFileDescriptor>> listFilesRecursively(@NotNull String containerName, @NotNull String path, int depth) {
+    ProcessOutput output;
+    try {
+      output = runCommand(EXEC, containerName, "perl", "-e", LIST_FILES_SCRIPT, path, String.valueOf(depth));
+    }
+    catch (ExecutionException e) {
+      LOG.warn("Error listing " + path + " in " + containerName + ": " + e.getMessage());
+      return null;
+    }
+
+    Map<String, List<PerlFileDescriptor>> result = new HashMap<>();
+    for (String record : StringUtil.split(output.getStdout(), "\0")) {
+      String[] fields = record.split("\t", 5);
+      if (fields.length == 2 && fields[0].equals("D")) {
+        result.computeIfAbsent(fields[1], it -> new ArrayList<>());
+      }
+      else if (fields.length == 5 && fields[0].equals("F")) {
+        int size = StringUtil.parseInt(fields[2], 0);
+        char suffix = fields[3].isEmpty() ? 0 : fields[3].charAt(0);
+        result.computeIfAbsent(fields[1], it -> new ArrayList<>()).add(PerlFileDescriptor.create(fields[1], fields[4], suffix, size));
+      }
+      else {
+        LOG.warn("Unable to parse: " + record);
+      }
+    }
+    return result;
+  }
+
   private static String createContainerName(@NotNull String seed) {
     return CONTAINER_NAME_PREFIX + seed + "_" + System.currentTimeMillis();
   }
@@ -173,10 +226,96 @@ class PerlDockerAdapter {
    * Wrapping a {@code commandLine} to a script and runs it using {@code docker} command, returning it's process
    */
   public Process createProcess(@NotNull PerlCommandLine commandLine) throws ExecutionException {
-    PerlCommandLine dockerCommandLine = buildBaseProcessCommandLine(commandLine);
+    PerlCommandLine dockerCommandLine = buildBaseProcessCommandLine(commandLine).withParameters(buildContainerParameters(commandLine));
+    withWorkingDirectory(dockerCommandLine, commandLine);
+
+    // we sure that command script is under system dir
+    File script = createCommandScript(commandLine);
+    String dockerScriptPath = myData.getRemotePath(script.getPath());
+    return dockerCommandLine.withParameters(myData.getImageName(), "sh", dockerScriptPath).createProcess();
+  }
+
+  /**
+   * Wrapping a {@code commandLine} to a script and runs it with {@code docker exec} in the warm container for the image and project,
+   * starting it if necessary. Command lines requiring tty or ports mapping are run in the new container.
+   *
+   * @see PerlDockerWarmContainers
+   */
+  public Process createWarmProcess(@NotNull PerlCommandLine commandLine) throws ExecutionException {
+    if (commandLine.isUsePty() || !commandLine.getPortMappings().isEmpty()) {
+      return createProcess(commandLine);
+    }
+    Project project = commandLine.getEffectiveProject();
+    String containerKey = myData.getImageName() + (project == null ? "" : ":" + project.getLocationHash());
+    PerlDockerWarmContainers.Lease lease = PerlDockerWarmContainers.getInstance().acquire(
+      this, containerKey, buildContainerParameters(commandLine));
+
+    Process process;
+    try {
+      PerlCommandLine dockerCommandLine = baseCommandLine().withParameters(EXEC, INTERACTIVELY).withCharset(commandLine.getCharset());
+      withWorkingDirectory(dockerCommandLine, commandLine);
+
+      File script = createCommandScript(commandLine);
+      String dockerScriptPath = myData.getRemotePath(script.getPath());
+      process = dockerCommandLine.withParameters(lease.getContainerName(), "sh", dockerScriptPath).createProcess();
+    }
+    catch (ExecutionException | RuntimeException e) {
+      lease.release();
+      throw e;
+    }
+    AppExecutorUtil.getAppExecutorService().execute(() -> {
+      try {
+        process.waitFor();
+      }
+      catch (InterruptedException e) {
+        LOG.info("Interrupted waiting for " + process);
+      }
+      finally {
+        lease.release();
+      }
+    });
+    return process;
+  }
+
+  /**
+   * Starts a new container with the {@code parameters} doing nothing, to run commands in with {@code docker exec}
+   *
+   * @return new container name, generated from {@code containerNameSeed}
+   */
+  @NotNull
+  String createWarmContainer(@NotNull String containerNameSeed, @NotNull List<String> parameters) throws ExecutionException {
+    String containerName = createContainerName(containerNameSeed);
+    List<String> runParameters = new ArrayList<>(Arrays.asList(RUN, AS_DAEMON, WITH_AUTOREMOVE, WITH_CONTAINER_NAME, containerName));
+    runParameters.addAll(parameters);
+    runParameters.addAll(Arrays.asList(myData.getImageName(), "sh", "-c", "while true;do sleep 1000000;done"));
+    runCommand(ArrayUtil.toStringArray(runParameters));
+    return containerName;
+  }
+
+  /**
+   * @return true iff container with {@code containerName} exists and running
+   */
+  boolean isContainerRunning(@NotNull String containerName) {
+    try {
+      ProcessOutput output = runCommand(CONTAINER, INSPECT, IN_FORMAT, "{{.State.Running}}", containerName);
+      return StringUtil.equals(StringUtil.trim(output.getStdout()), "true");
+    }
+    catch (ExecutionException e) {
+      LOG.info("Error inspecting container " + containerName + ": " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * @return volumes and additional parameters for the container running the {@code commandLine}
+   */
+  @NotNull
+  private List<String> buildContainerParameters(@NotNull PerlCommandLine commandLine) {
+    List<String> parameters = new ArrayList<>();
 
     // mounting helpers
-    dockerCommandLine.withParameters(WITH_VOLUME, PerlPluginUtil.getPluginHelpersRoot() + ':' + myData.getHelpersRootPath());
+    parameters.add(WITH_VOLUME);
+    parameters.add(PerlPluginUtil.getPluginHelpersRoot() + ':' + myData.getHelpersRootPath());
 
     Project project = commandLine.getEffectiveProject();
     if (project != null) {
@@ -186,32 +325,34 @@ class PerlDockerAdapter {
         roots.addAll(Arrays.asList(ModuleRootManager.getInstance(module).getContentRoots()));
       }
       roots.addAll(PerlProjectManager.getInstance(project).getExternalLibraryRoots());
+      List<String> localPaths = new ArrayList<>();
       for (VirtualFile rootToMount : VfsUtil.getCommonAncestors(roots.toArray(VirtualFile.EMPTY_ARRAY))) {
-        String localPath = rootToMount.getPath();
-        String remotePath = myData.getRemotePath(localPath);
-        dockerCommandLine.withParameters(WITH_VOLUME, localPath + ':' + remotePath);
+        localPaths.add(rootToMount.getPath());
+      }
+      // stable order allows to compare parameters of the warm containers
+      Collections.sort(localPaths);
+      for (String localPath : localPaths) {
+        parameters.add(WITH_VOLUME);
+        parameters.add(localPath + ':' + myData.getRemotePath(localPath));
       }
 
       // adding project settings if possible
-      dockerCommandLine
-        .withParameters(StringUtil.split(PerlDockerProjectSettings.getInstance(project).getAdditionalDockerParameters(), " "));
+      parameters.addAll(StringUtil.split(PerlDockerProjectSettings.getInstance(project).getAdditionalDockerParameters(), " "));
     }
 
-    // working directory
+    // required by coverage, probably we should have a getter for this; Also contains a temp path
+    String localSystemPath = PathManager.getSystemPath();
+    parameters.add(WITH_VOLUME);
+    parameters.add(localSystemPath + ':' + myData.getRemotePath(localSystemPath));
+    return parameters;
+  }
+
+  private void withWorkingDirectory(@NotNull PerlCommandLine dockerCommandLine, @NotNull PerlCommandLine commandLine) {
     File remoteWorkingDirectory = myData.getRemotePath(commandLine.getWorkDirectory());
     if (remoteWorkingDirectory != null) {
       dockerCommandLine.withParameters(WORKING_DIRECTORY + "=" + StringUtil.escapeChar(
         FileUtil.toSystemIndependentName(remoteWorkingDirectory.toString()), ' '));
     }
-
-    // required by coverage, probably we should have a getter for this; Also contains a temp path
-    String localSystemPath = PathManager.getSystemPath();
-    dockerCommandLine.withParameters(WITH_VOLUME, localSystemPath + ':' + myData.getRemotePath(localSystemPath));
-
-    // we sure that command script is under system dir
-    File script = createCommandScript(commandLine);
-    String dockerScriptPath = myData.getRemotePath(script.getPath());
-    return dockerCommandLine.withParameters(myData.getImageName(), "sh", dockerScriptPath).createProcess();
   }
 
   /**
@@ -226,7 +367,7 @@ class PerlDockerAdapter {
   }
 
   private static PerlCommandLine baseCommandLine() {
-    return new PerlCommandLine("docker").withHostData(PerlHostHandler.getDefaultHandler().createData());
+    return new PerlCommandLine(DOCKER_EXECUTABLE).withHostData(PerlHostHandler.getDefaultHandler().createData());
   }
 
   @NotNull
@@ -124,12 +124,24 @@ class PerlDockerData extends PerlHostData<PerlDockerData, PerlDockerHandler> {
     return null;
   }
 
+  /**
+   * Console processes are run in new containers, so stopping them stops everything they've started
+   */
   @NotNull
   @Override
-  protected Process createProcess(@NotNull PerlCommandLine commandLine) throws ExecutionException {
+  protected Process createConsoleProcess(@NotNull PerlCommandLine commandLine) throws ExecutionException {
     return new PerlDockerAdapter(this).createProcess(commandLine);
   }
 
+  /**
+   * Background processes are mostly short helpers, they are run in the warm container to avoid container startup costs
+   */
+  @NotNull
+  @Override
+  protected Process createProcess(@NotNull PerlCommandLine commandLine) throws ExecutionException {
+    return new PerlDockerAdapter(this).createWarmProcess(commandLine);
+  }
+
   @Nullable
   @Override
   protected String doGetLocalPath(@NotNull String remotePath) {
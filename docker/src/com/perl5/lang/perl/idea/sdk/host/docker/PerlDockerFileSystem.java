@@ -20,7 +20,9 @@ import com.intellij.execution.ExecutionException;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.AtomicNullableLazyValue;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.perl5.lang.perl.idea.sdk.host.PerlFileDescriptor;
 import com.perl5.lang.perl.idea.sdk.host.PerlPluggableVirtualFileSystem;
@@ -28,16 +30,44 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * File system of the docker image. Directories contents are loaded with a single depth-limited recursive listing and cached until
+ * refreshed; subdirectories of the listed directory are listed in background, because they are likely to be expanded next.
+ */
 class PerlDockerFileSystem extends PerlPluggableVirtualFileSystem {
   private static final Logger LOG = Logger.getInstance(PerlDockerFileSystem.class);
+  /**
+   * Number of levels listed at once
+   */
+  private static final int LISTING_DEPTH = 2;
+  /**
+   * Maximum number of subdirectories listed in background after listing a directory
+   */
+  private static final int MAX_PREFETCHED_DIRECTORIES = 16;
 
   private final Map<String, VirtualFile> myFiles = ContainerUtil.newConcurrentMap();
 
+  /**
+   * Cached directories contents by directory path
+   */
+  private final Map<String, List<PerlFileDescriptor>> myListings = ContainerUtil.newConcurrentMap();
+
+  /**
+   * Paths of directories being listed in background
+   */
+  private final Set<String> myPrefetchingPaths = ContainerUtil.newConcurrentSet();
+
+  private final ExecutorService myPrefetchExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("PerlDockerFileSystem", 1);
+
+  /**
+   * Incremented when cached listings are dropped, listings loaded for an older generation are not cached
+   */
+  private final AtomicInteger myGeneration = new AtomicInteger();
+
   @NotNull
   private final PerlDockerAdapter myAdapter;
 
@@ -84,20 +114,137 @@ class PerlDockerFileSystem extends PerlPluggableVirtualFileSystem {
     });
   }
 
+  /**
+   * @return cached contents of directory with {@code path}, loading it if necessary
+   */
   @NotNull
   private List<PerlFileDescriptor> listFiles(@NotNull String path) {
+    String directoryPath = normalizePath(path);
+    List<PerlFileDescriptor> result = myListings.get(directoryPath);
+    if (result == null) {
+      result = loadFiles(directoryPath, myGeneration.get());
+    }
+    prefetchDirectories(result);
+    return result;
+  }
+
+  /**
+   * Loads contents of the directory with {@code directoryPath} and its subdirectories into the cache, unless cache was dropped after
+   * the {@code generation}
+   *
+   * @return contents of the directory
+   */
+  @NotNull
+  private List<PerlFileDescriptor> loadFiles(@NotNull String directoryPath, int generation) {
     String containerName = myContainerNameProvider.getValue();
-    return containerName == null ? Collections.emptyList() : myAdapter.listFiles(containerName, FileUtil.toSystemIndependentName(path));
+    if (containerName == null) {
+      return Collections.emptyList();
+    }
+    Map<String, List<PerlFileDescriptor>> listings = myAdapter.listFilesRecursively(containerName, directoryPath, LISTING_DEPTH);
+    if (listings == null) {
+      List<PerlFileDescriptor> result = myAdapter.listFiles(containerName, directoryPath);
+      storeListings(Collections.singletonMap(directoryPath, result), generation);
+      return result;
+    }
+    storeListings(listings, generation);
+    List<PerlFileDescriptor> result = listings.get(directoryPath);
+    return result == null ? Collections.emptyList() : result;
+  }
+
+  private void storeListings(@NotNull Map<String, List<PerlFileDescriptor>> listings, int generation) {
+    synchronized (myListings) {
+      if (generation == myGeneration.get()) {
+        myListings.putAll(listings);
+      }
+    }
+  }
+
+  /**
+   * Drops cached listings and makes listings being loaded obsolete
+   *
+   * @param paths directories to drop listings of; all listings are dropped if there are none
+   */
+  private void dropListings(@NotNull String... paths) {
+    synchronized (myListings) {
+      myGeneration.incrementAndGet();
+      if (paths.length == 0) {
+        myListings.clear();
+      }
+      else {
+        for (String path : paths) {
+          myListings.remove(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads in background contents of not yet listed directories from {@code descriptors}
+   */
+  private void prefetchDirectories(@NotNull List<PerlFileDescriptor> descriptors) {
+    int generation = myGeneration.get();
+    int scheduled = 0;
+    for (PerlFileDescriptor descriptor : descriptors) {
+      if (scheduled >= MAX_PREFETCHED_DIRECTORIES) {
+        return;
+      }
+      String directoryPath = descriptor.getPath();
+      if (!descriptor.isDirectory() || myListings.containsKey(directoryPath) || !myPrefetchingPaths.add(directoryPath)) {
+        continue;
+      }
+      scheduled++;
+      myPrefetchExecutor.execute(() -> {
+        try {
+          if (generation == myGeneration.get() && !myListings.containsKey(directoryPath)) {
+            loadFiles(directoryPath, generation);
+          }
+        }
+        finally {
+          myPrefetchingPaths.remove(directoryPath);
+        }
+      });
+    }
+  }
+
+  @NotNull
+  private static String normalizePath(@NotNull String path) {
+    String result = FileUtil.toSystemIndependentName(path);
+    return result.length() > 1 ? StringUtil.trimEnd(result, "/") : result;
   }
 
   @Nullable
   @Override
   public VirtualFile refreshAndFindFileByPath(@NotNull String path) {
-    return findFileByPath(path);
+    String filePath = normalizePath(path);
+    myFiles.remove(filePath);
+    String parentPath = new File(filePath).getParent();
+    if (parentPath == null) {
+      dropListings(filePath);
+    }
+    else {
+      parentPath = normalizePath(parentPath);
+      dropListings(filePath, parentPath);
+      VirtualFile parent = myFiles.get(parentPath);
+      if (parent instanceof PerlDockerVirtualFile) {
+        ((PerlDockerVirtualFile)parent).dropChildren();
+      }
+    }
+    return findFileByPath(filePath);
+  }
+
+  @Override
+  public void refresh(boolean asynchronous) {
+    dropListings();
+    for (VirtualFile file : myFiles.values()) {
+      if (file instanceof PerlDockerVirtualFile) {
+        ((PerlDockerVirtualFile)file).dropChildren();
+      }
+    }
   }
 
   @Override
   public synchronized void clean() {
+    dropListings();
     if (!myContainerCreated) {
       return;
     }
@@ -119,7 +266,7 @@ class PerlDockerFileSystem extends PerlPluggableVirtualFileSystem {
   private class PerlDockerVirtualFile extends PerlPluggableVirtualFile {
     @NotNull
     private final PerlFileDescriptor myDescriptor;
-    private VirtualFile[] myChildren;
+    private volatile VirtualFile[] myChildren;
 
     public PerlDockerVirtualFile(@NotNull PerlFileDescriptor descriptor) {
       myDescriptor = descriptor;
@@ -173,6 +320,10 @@ class PerlDockerFileSystem extends PerlPluggableVirtualFileSystem {
       return myChildren = children.toArray(VirtualFile.EMPTY_ARRAY);
     }
 
+    void dropChildren() {
+      myChildren = null;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.perl5.lang.perl.idea.sdk.host.docker;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Long-living containers for running short commands with {@code docker exec} instead of starting new container for each one. There
+ * is a container per image and project, it is re-created when mounts or additional parameters change. Each command holds a
+ * {@link Lease} on the container while running; container is killed after having no leases for {@link #IDLE_TIMEOUT_MS}.
+ * Docker commands are never invoked under the registry lock, so a slow start of one container does not block others.
+ */
+class PerlDockerWarmContainers implements Disposable {
+  private static final Logger LOG = Logger.getInstance(PerlDockerWarmContainers.class);
+  static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+  /**
+   * Container not checked for this time is checked to be still running before being reused
+   */
+  private static final long CHECK_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * Containers by image and project keys, guarded by {@code this}
+   */
+  private final Map<String, WarmContainer> myContainers = new HashMap<>();
+  @NotNull
+  private final ScheduledFuture<?> myIdleCleaner;
+
+  public PerlDockerWarmContainers() {
+    myIdleCleaner = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+      this::killIdleContainers, 1, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * Acquires a lease on the running container for {@code containerKey}, started with {@code parameters}, starting it if necessary.
+   * Container with other parameters is replaced with the new one and killed when its last lease is released.
+   *
+   * @return lease, which must be released when container is not needed anymore
+   */
+  @NotNull
+  Lease acquire(@NotNull PerlDockerAdapter adapter, @NotNull String containerKey, @NotNull List<String> parameters)
+    throws ExecutionException {
+    WarmContainer container;
+    WarmContainer obsoleteContainer = null;
+    synchronized (this) {
+      container = myContainers.get(containerKey);
+      if (container != null && !container.myParameters.equals(parameters)) {
+        myContainers.remove(containerKey);
+        container.myIsObsolete = true;
+        if (container.myLeases == 0) {
+          obsoleteContainer = container;
+        }
+        container = null;
+      }
+      if (container == null) {
+        container = new WarmContainer(adapter, parameters);
+        myContainers.put(containerKey, container);
+      }
+      container.myLeases++;
+    }
+    if (obsoleteContainer != null) {
+      LOG.info("Recycling container " + obsoleteContainer.getName());
+      killContainers(Collections.singletonList(obsoleteContainer));
+    }
+
+    Lease lease = new Lease(container);
+    try {
+      String containerName = container.ensureRunning();
+      LOG.debug("Using container " + containerName + " for " + containerKey);
+      return lease;
+    }
+    catch (ExecutionException | RuntimeException e) {
+      lease.release();
+      throw e;
+    }
+  }
+
+  private void release(@NotNull WarmContainer container) {
+    synchronized (this) {
+      container.myLeases--;
+      container.myReleasedAt = System.currentTimeMillis();
+      if (container.myLeases > 0 || !container.myIsObsolete) {
+        return;
+      }
+    }
+    killContainers(Collections.singletonList(container));
+  }
+
+  private void killIdleContainers() {
+    killIdleContainers(System.currentTimeMillis());
+  }
+
+  /**
+   * Kills containers having no leases for {@link #IDLE_TIMEOUT_MS} at the {@code now} moment
+   */
+  void killIdleContainers(long now) {
+    List<WarmContainer> idleContainers = new ArrayList<>();
+    synchronized (this) {
+      Iterator<WarmContainer> iterator = myContainers.values().iterator();
+      while (iterator.hasNext()) {
+        WarmContainer container = iterator.next();
+        if (container.myLeases == 0 && now - container.myReleasedAt > IDLE_TIMEOUT_MS) {
+          iterator.remove();
+          container.myIsObsolete = true;
+          idleContainers.add(container);
+        }
+      }
+    }
+    killContainers(idleContainers);
+  }
+
+  private static void killContainers(@NotNull Collection<WarmContainer> containers) {
+    for (WarmContainer container : containers) {
+      String containerName = container.getName();
+      if (containerName == null) {
+        continue;
+      }
+      try {
+        container.myAdapter.killContainer(containerName);
+      }
+      catch (ExecutionException e) {
+        LOG.info("Error killing container " + containerName + ": " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void dispose() {
+    myIdleCleaner.cancel(false);
+    List<WarmContainer> containers;
+    synchronized (this) {
+      containers = new ArrayList<>(myContainers.values());
+      myContainers.clear();
+    }
+    killContainers(containers);
+  }
+
+  @NotNull
+  static PerlDockerWarmContainers getInstance() {
+    return ServiceManager.getService(PerlDockerWarmContainers.class);
+  }
+
+  /**
+   * Permission to run commands in the container, keeps container from being killed as idle or obsolete until released
+   */
+  final class Lease {
+    @NotNull
+    private final WarmContainer myContainer;
+    private final AtomicBoolean myIsReleased = new AtomicBoolean();
+
+    private Lease(@NotNull WarmContainer container) {
+      myContainer = container;
+    }
+
+    @NotNull
+    String getContainerName() {
+      return Objects.requireNonNull(myContainer.getName(), "Container is not started");
+    }
+
+    void release() {
+      if (myIsReleased.compareAndSet(false, true)) {
+        PerlDockerWarmContainers.this.release(myContainer);
+      }
+    }
+  }
+
+  private static class WarmContainer {
+    @NotNull
+    private final PerlDockerAdapter myAdapter;
+    @NotNull
+    private final List<String> myParameters;
+    /**
+     * Name of the started container, guarded by {@code this}
+     */
+    @Nullable
+    private String myName;
+    /**
+     * Time of the last check that container is running, guarded by {@code this}
+     */
+    private long myCheckedAt;
+    /**
+     * Leases and state fields are guarded by the {@link PerlDockerWarmContainers} instance
+     */
+    private int myLeases;
+    private long myReleasedAt = System.currentTimeMillis();
+    private boolean myIsObsolete;
+
+    WarmContainer(@NotNull PerlDockerAdapter adapter, @NotNull List<String> parameters) {
+      myAdapter = adapter;
+      myParameters = parameters;
+    }
+
+    @Nullable
+    synchronized String getName() {
+      return myName;
+    }
+
+    /**
+     * Starts the container if it is not started yet or stopped. Blocks only users of this container
+     *
+     * @return name of the running container
+     */
+    @NotNull
+    synchronized String ensureRunning() throws ExecutionException {
+      long now = System.currentTimeMillis();
+      if (myName != null && (now - myCheckedAt < CHECK_TIMEOUT_MS || myAdapter.isContainerRunning(myName))) {
+        myCheckedAt = now;
+        return myName;
+      }
+      if (myName != null) {
+        LOG.info("Container " + myName + " is not running anymore");
+      }
+      myName = myAdapter.createWarmContainer(myAdapter.getData().getSafeImageName(), myParameters);
+      myCheckedAt = now;
+      LOG.info("Started container " + myName);
+      return myName;
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.sdk.host.docker;
+
+import base.PerlLightTestCase;
+import com.intellij.execution.ExecutionException;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.perl5.lang.perl.idea.sdk.host.PerlHostHandler;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests run against {@code testData/fakeDocker.sh}, passed with {@code perl.docker.executable} system property. Fake docker keeps
+ * running containers as files in its state directory and logs all invocations
+ */
+public class PerlDockerWarmContainersTest extends PerlLightTestCase {
+  private static final String DOCKER_EXECUTABLE_PROPERTY = "perl.docker.executable";
+  private static final String KEY = "perl:project";
+  private static final List<String> PARAMETERS = Arrays.asList("-v", "/project:/project");
+  private static final List<String> OTHER_PARAMETERS = Arrays.asList("-v", "/project:/other");
+
+  static {
+    if (System.getProperty(DOCKER_EXECUTABLE_PROPERTY) == null) {
+      System.setProperty(DOCKER_EXECUTABLE_PROPERTY, new File("testData/fakeDocker.sh").getAbsolutePath());
+    }
+  }
+
+  private final File myStateDirectory = new File(StringUtil.notNullize(System.getenv("TMPDIR"), "/tmp"), "perl-fake-docker");
+  private PerlDockerAdapter myAdapter;
+  private PerlDockerWarmContainers myWarmContainers;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    assertTrue(System.getProperty(DOCKER_EXECUTABLE_PROPERTY).endsWith("fakeDocker.sh"));
+    FileUtil.delete(myStateDirectory);
+    PerlDockerHandler handler = (PerlDockerHandler)PerlHostHandler.stream()
+      .filter(it -> it instanceof PerlDockerHandler).findFirst().orElseThrow(() -> new AssertionError("No docker handler"));
+    myAdapter = new PerlDockerAdapter(new PerlDockerData(handler).withImageName("perl:5.30"));
+    myWarmContainers = new PerlDockerWarmContainers();
+    Disposer.register(getTestRootDisposable(), myWarmContainers);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myStateDirectory);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  @Test
+  public void testLeaseReusesContainer() throws ExecutionException, IOException {
+    PerlDockerWarmContainers.Lease firstLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    PerlDockerWarmContainers.Lease secondLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    String containerName = firstLease.getContainerName();
+    assertEquals(containerName, secondLease.getContainerName());
+    assertRunning(containerName);
+    firstLease.release();
+    secondLease.release();
+
+    PerlDockerWarmContainers.Lease thirdLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    assertEquals(containerName, thirdLease.getContainerName());
+    thirdLease.release();
+    assertEquals(1, countCalls("run "));
+    assertEquals(0, countCalls("kill "));
+    assertRunning(containerName);
+  }
+
+  @Test
+  public void testRecycleOnParametersChange() throws ExecutionException, IOException {
+    PerlDockerWarmContainers.Lease oldLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    String oldContainerName = oldLease.getContainerName();
+
+    PerlDockerWarmContainers.Lease newLease = myWarmContainers.acquire(myAdapter, KEY, OTHER_PARAMETERS);
+    String newContainerName = newLease.getContainerName();
+    assertFalse(oldContainerName.equals(newContainerName));
+    assertRunning(oldContainerName);
+    assertRunning(newContainerName);
+
+    oldLease.release();
+    assertNotRunning(oldContainerName);
+    assertRunning(newContainerName);
+
+    // repeated release is ignored
+    oldLease.release();
+    newLease.release();
+    assertEquals(1, countCalls("kill "));
+    assertRunning(newContainerName);
+  }
+
+  @Test
+  public void testRecycleReleasedContainer() throws ExecutionException {
+    PerlDockerWarmContainers.Lease oldLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    String oldContainerName = oldLease.getContainerName();
+    oldLease.release();
+
+    PerlDockerWarmContainers.Lease newLease = myWarmContainers.acquire(myAdapter, KEY, OTHER_PARAMETERS);
+    assertNotRunning(oldContainerName);
+    assertRunning(newLease.getContainerName());
+    newLease.release();
+  }
+
+  @Test
+  public void testIdleKill() throws ExecutionException {
+    PerlDockerWarmContainers.Lease idleLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    String idleContainerName = idleLease.getContainerName();
+    idleLease.release();
+    PerlDockerWarmContainers.Lease busyLease = myWarmContainers.acquire(myAdapter, "perl:otherProject", PARAMETERS);
+    String busyContainerName = busyLease.getContainerName();
+
+    myWarmContainers.killIdleContainers(System.currentTimeMillis());
+    assertRunning(idleContainerName);
+
+    myWarmContainers.killIdleContainers(System.currentTimeMillis() + PerlDockerWarmContainers.IDLE_TIMEOUT_MS + 1);
+    assertNotRunning(idleContainerName);
+    assertRunning(busyContainerName);
+
+    PerlDockerWarmContainers.Lease newLease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    assertFalse(idleContainerName.equals(newLease.getContainerName()));
+    assertRunning(newLease.getContainerName());
+    newLease.release();
+    busyLease.release();
+  }
+
+  @Test
+  public void testDisposeKillsContainers() throws ExecutionException {
+    PerlDockerWarmContainers.Lease lease = myWarmContainers.acquire(myAdapter, KEY, PARAMETERS);
+    String containerName = lease.getContainerName();
+    lease.release();
+    Disposer.dispose(myWarmContainers);
+    assertNotRunning(containerName);
+  }
+
+  private void assertRunning(@NotNull String containerName) {
+    assertTrue(containerName + " should be running", myAdapter.isContainerRunning(containerName));
+  }
+
+  private void assertNotRunning(@NotNull String containerName) {
+    assertFalse(containerName + " should not be running", myAdapter.isContainerRunning(containerName));
+  }
+
+  private int countCalls(@NotNull String prefix) throws IOException {
+    File callsLog = new File(myStateDirectory, "calls.log");
+    List<String> calls = callsLog.isFile() ? FileUtil.loadLines(callsLog) : Collections.emptyList();
+    return (int)calls.stream().filter(it -> it.startsWith(prefix)).count();
+  }
+}
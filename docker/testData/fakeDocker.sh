@@ -0,0 +1,47 @@
+#!/bin/sh
+# Fake docker cli for tests. Logs invocations to calls.log and keeps running containers as files in the state directory
+STATE_DIR="${TMPDIR:-/tmp}/perl-fake-docker"
+mkdir -p "$STATE_DIR/running"
+echo "$*" >> "$STATE_DIR/calls.log"
+
+case "$1" in
+  run)
+    shift
+    while [ $# -gt 0 ]; do
+      if [ "$1" = "--name" ]; then
+        touch "$STATE_DIR/running/$2"
+        echo "$2"
+        exit 0
+      fi
+      shift
+    done
+    echo "Container name is missing" >&2
+    exit 1
+    ;;
+  container)
+    if [ "$2" = "inspect" ]; then
+      for name; do :; done
+      if [ -f "$STATE_DIR/running/$name" ]; then
+        echo "true"
+        exit 0
+      fi
+      echo "Error: No such container: $name" >&2
+      exit 1
+    fi
+    ;;
+  kill)
+    shift
+    for name; do
+      if [ ! -f "$STATE_DIR/running/$name" ]; then
+        echo "Error response from daemon: Cannot kill container: $name: No such container" >&2
+        exit 1
+      fi
+      rm "$STATE_DIR/running/$name"
+      echo "$name"
+    done
+    exit 0
+    ;;
+esac
+
+echo "Unsupported command: $*" >&2
+exit 1
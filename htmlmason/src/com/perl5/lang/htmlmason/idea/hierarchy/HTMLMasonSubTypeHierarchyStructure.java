@@ -20,14 +20,13 @@ import com.intellij.ide.hierarchy.HierarchyNodeDescriptor;
 import com.intellij.ide.util.treeView.NodeDescriptor;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import com.perl5.lang.htmlmason.parser.psi.impl.HTMLMasonFileImpl;
 import com.perl5.lang.perl.idea.hierarchy.namespace.PerlHierarchyNodeDescriptor;
 import com.perl5.lang.perl.idea.hierarchy.namespace.treestructures.PerlSubTypesHierarchyTreeStructure;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 
 public class HTMLMasonSubTypeHierarchyStructure extends PerlSubTypesHierarchyTreeStructure {
   public HTMLMasonSubTypeHierarchyStructure(@NotNull PsiElement element) {
@@ -44,8 +43,8 @@ public class HTMLMasonSubTypeHierarchyStructure extends PerlSubTypesHierarchyTre
   }
 
   @Override
-  protected Collection<PsiElement> getSubElements(PsiElement element) {
+  protected boolean processSubElements(@NotNull PsiElement element, @NotNull Processor<? super PsiElement> processor) {
     assert element instanceof HTMLMasonFileImpl;
-    return new ArrayList<>(((HTMLMasonFileImpl)element).getChildComponents());
+    return ContainerUtil.process(((HTMLMasonFileImpl)element).getChildComponents(), processor);
   }
 }
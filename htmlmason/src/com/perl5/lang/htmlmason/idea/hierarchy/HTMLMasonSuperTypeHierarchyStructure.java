@@ -17,14 +17,10 @@
 package com.perl5.lang.htmlmason.idea.hierarchy;
 
 import com.intellij.psi.PsiElement;
+import com.intellij.util.Processor;
 import com.perl5.lang.htmlmason.parser.psi.impl.HTMLMasonFileImpl;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-
 
 public class HTMLMasonSuperTypeHierarchyStructure extends HTMLMasonSubTypeHierarchyStructure {
   public HTMLMasonSuperTypeHierarchyStructure(@NotNull PsiElement element) {
@@ -32,14 +28,9 @@ public class HTMLMasonSuperTypeHierarchyStructure extends HTMLMasonSubTypeHierar
   }
 
   @Override
-  protected Collection<PsiElement> getSubElements(PsiElement element) {
+  protected boolean processSubElements(@NotNull PsiElement element, @NotNull Processor<? super PsiElement> processor) {
     assert element instanceof HTMLMasonFileImpl;
     PsiElement parent = ((HTMLMasonFileImpl)element).getParentComponent();
-    if (parent != null) {
-      List<PsiElement> result = new ArrayList<>();
-      result.add(parent);
-      return result;
-    }
-    return Collections.emptyList();
+    return parent == null || processor.process(parent);
   }
 }
@@ -23,6 +23,8 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.stubs.IStubElementType;
 import com.intellij.psi.stubs.StubIndex;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import com.perl5.lang.htmlmason.MasonCoreUtil;
 import com.perl5.lang.mason2.Mason2Util;
 import com.perl5.lang.mason2.idea.configuration.MasonSettings;
@@ -288,6 +290,11 @@ public class MasonNamespaceDefinitionImpl extends PsiPerlNamespaceDefinitionImpl
     return childNamespaces;
   }
 
+  @Override
+  public boolean processChildNamespaceDefinitions(@NotNull Processor<? super PerlNamespaceDefinitionElement> processor) {
+    return ContainerUtil.process(getChildNamespaceDefinitions(), processor);
+  }
+
   @Override
   public String getPresentableName() {
     VirtualFile componentRoot = getContainingFile().getComponentRoot();
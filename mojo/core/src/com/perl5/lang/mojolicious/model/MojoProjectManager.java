@@ -16,6 +16,7 @@
 
 package com.perl5.lang.mojolicious.model;
 
+import com.intellij.ProjectTopics;
 import com.intellij.ide.projectView.ProjectView;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ReadAction;
@@ -26,19 +27,30 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.startup.StartupActivity;
 import com.intellij.openapi.startup.StartupManager;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.Function;
+import com.intellij.util.containers.ConcurrentFactoryMap;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.ui.update.MergingUpdateQueue;
 import com.intellij.util.ui.update.Update;
 import com.perl5.lang.mojolicious.MojoUtil;
 import com.perl5.lang.mojolicious.idea.modules.MojoTemplateMarkSourceRootAction;
+import com.perl5.lang.perl.fileTypes.PurePerlFileType;
 import com.perl5.lang.perl.idea.actions.PerlMarkLibrarySourceRootAction;
 import com.perl5.lang.perl.psi.PerlNamespaceDefinitionElement;
 import com.perl5.lang.perl.util.PerlPackageUtil;
@@ -60,8 +72,24 @@ public class MojoProjectManager {
   private final MergingUpdateQueue myUpdateQueue;
   @NotNull
   private final AtomicBoolean myUpdatingModel = new AtomicBoolean(false);
+  /**
+   * Files and directories changed since last model update. Only mojo entities defined in them are re-computed on the next update
+   */
+  @NotNull
+  private final Set<VirtualFile> myDirtyFiles = ContainerUtil.newConcurrentSet();
+  /**
+   * Set when the whole project should be re-scanned on the next update, e.g. after project roots change
+   */
+  @NotNull
+  private final AtomicBoolean myFullRescanRequested = new AtomicBoolean(true);
+  /**
+   * Directory => directory containing a {@code lib} directory, containing this directory, or null. Shared by all namespaces of
+   * the directory and dropped on any directory structure or project roots change
+   */
+  @NotNull
+  private final Map<VirtualFile, VirtualFile> myLibContainers = ConcurrentFactoryMap.createMap(this::computeLibContainer);
   @NotNull
-  private volatile Model myModel = new Model(Collections.emptySet());
+  private volatile Model myModel = new Model(Collections.emptyMap(), false);
 
   public MojoProjectManager(@NotNull Project project) {
     myProject = project;
@@ -75,6 +103,25 @@ public class MojoProjectManager {
       }
     });
 
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        LOG.debug("Roots changed");
+        myLibContainers.clear();
+        myFullRescanRequested.set(true);
+        scheduleUpdate();
+      }
+    });
+
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (markDirty(events)) {
+          scheduleUpdate();
+        }
+      }
+    });
+
     connection.subscribe(MOJO_PROJECT_TOPIC, new MojoProjectListener() {
       @Override
       public void applicationCreated(@NotNull MojoApp mojoApp) {
@@ -118,6 +165,34 @@ public class MojoProjectManager {
     return Collections.unmodifiableList(new ArrayList<>(myModel.myProjectRoots.values()));
   }
 
+  /**
+   * Remembers files and directories from {@code events} which may affect the model
+   *
+   * @return true iff something was marked as dirty
+   */
+  private boolean markDirty(@NotNull List<? extends VFileEvent> events) {
+    boolean result = false;
+    for (VFileEvent event : events) {
+      VirtualFile file = event.getFile();
+      if (file == null ||
+          event instanceof VFilePropertyChangeEvent && !VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent)event).getPropertyName())) {
+        continue;
+      }
+      if (file.isDirectory()) {
+        if (event instanceof VFileContentChangeEvent) {
+          continue;
+        }
+        myLibContainers.clear();
+      }
+      else if (!(file.getFileType() instanceof PurePerlFileType)) {
+        continue;
+      }
+      myDirtyFiles.add(file);
+      result = true;
+    }
+    return result;
+  }
+
   /**
    * Queues model update
    */
@@ -166,8 +241,24 @@ public class MojoProjectManager {
    */
   private void doUpdateModel() {
     LOG.debug("Updating model");
-    Set<MojoProject> newProjects = findAllProjects();
-    Set<MojoProject> oldProjects = myModel.getProjects();
+    boolean fullRescan = myFullRescanRequested.getAndSet(false);
+    Set<VirtualFile> dirtyFiles = takeDirtyFiles();
+    Model oldModel = myModel;
+    Model newModel;
+    try {
+      newModel = computeModel(oldModel, fullRescan, dirtyFiles);
+    }
+    catch (ProcessCanceledException e) {
+      if (fullRescan) {
+        myFullRescanRequested.set(true);
+      }
+      myDirtyFiles.addAll(dirtyFiles);
+      throw e;
+    }
+
+    Set<MojoProject> newProjects = newModel.getProjects();
+    Set<MojoProject> oldProjects = oldModel.getProjects();
+    myModel = newModel;
     if (oldProjects.equals(newProjects)) {
       LOG.debug("Model was not changed");
       return;
@@ -175,7 +266,7 @@ public class MojoProjectManager {
 
     if (LOG.isDebugEnabled()) {
       LOG.debug("Current projects: " + newProjects);
-      LOG.debug("Old projects: " + newProjects);
+      LOG.debug("Old projects: " + oldProjects);
     }
     MojoProjectListener projectListener = myProject.getMessageBus().syncPublisher(MOJO_PROJECT_TOPIC);
     Collection<MojoProject> removedProjects = ContainerUtil.subtract(oldProjects, newProjects);
@@ -183,7 +274,6 @@ public class MojoProjectManager {
       LOG.debug("Projects removed: " + removedProjects);
     }
     removedProjects.forEach(projectListener::projectDeleted);
-    myModel = new Model(newProjects);
     Collection<MojoProject> createdProjects = ContainerUtil.subtract(newProjects, oldProjects);
     if (LOG.isDebugEnabled() && !createdProjects.isEmpty()) {
       LOG.debug("Projects created: " + createdProjects);
@@ -197,59 +287,108 @@ public class MojoProjectManager {
     });
   }
 
+  @NotNull
+  private Set<VirtualFile> takeDirtyFiles() {
+    Set<VirtualFile> result = new HashSet<>(myDirtyFiles);
+    myDirtyFiles.removeAll(result);
+    return result;
+  }
+
   /**
-   * @return a set of mojo entities in project
+   * @return new model, re-scanning the whole project or, if possible, just {@code dirtyFiles} and keeping the rest of {@code oldModel}
    */
   @NotNull
-  private Set<MojoProject> findAllProjects() {
+  private Model computeModel(@NotNull Model oldModel, boolean fullRescan, @NotNull Set<VirtualFile> dirtyFiles) {
     if (!MojoUtil.isMojoAvailable(myProject)) {
       LOG.debug("Mojo is not available in project");
-      return Collections.emptySet();
+      return oldModel.myFileProjects.isEmpty() && !oldModel.myMojoAvailable ? oldModel : new Model(Collections.emptyMap(), false);
     }
-    HashSet<MojoProject> result = new HashSet<>();
-    List<PerlNamespaceDefinitionElement> applicationClasses = PerlPackageUtil.getChildNamespaces(
-      myProject, MojoUtil.MOJO_PACKAGE_NAME, GlobalSearchScope.projectScope(myProject));
-    for (PerlNamespaceDefinitionElement namespace : applicationClasses) {
-      LOG.debug("Got application class: " + namespace);
-      ProgressManager.checkCanceled();
-      VirtualFile root = findLibContainer(namespace);
-      if (root != null) {
-        LOG.debug("App root: " + root);
-        result.add(new MojoApp(root));
-      }
-      else {
-        LOG.debug("No app root");
+    if (fullRescan || !oldModel.myMojoAvailable) {
+      LOG.debug("Re-scanning whole project");
+      return new Model(findFileProjects(GlobalSearchScope.projectScope(myProject)), true);
+    }
+    if (dirtyFiles.isEmpty()) {
+      LOG.debug("Nothing changed");
+      return oldModel;
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Re-scanning changed files: " + dirtyFiles);
+    }
+    Map<VirtualFile, Set<MojoProject>> fileProjects = new HashMap<>(oldModel.myFileProjects);
+    fileProjects.keySet().removeIf(it -> !it.isValid() || VfsUtilCore.isUnder(it, dirtyFiles));
+    GlobalSearchScope dirtyScope = createScope(dirtyFiles);
+    if (dirtyScope != null) {
+      fileProjects.putAll(findFileProjects(dirtyScope.intersectWith(GlobalSearchScope.projectScope(myProject))));
+    }
+    return new Model(fileProjects, true);
+  }
+
+  /**
+   * @return scope containing valid {@code dirtyFiles} and contents of valid dirty directories, or null if there is nothing valid
+   */
+  @Nullable
+  private GlobalSearchScope createScope(@NotNull Set<VirtualFile> dirtyFiles) {
+    List<VirtualFile> files = new ArrayList<>();
+    List<VirtualFile> directories = new ArrayList<>();
+    for (VirtualFile dirtyFile : dirtyFiles) {
+      if (dirtyFile.isValid()) {
+        (dirtyFile.isDirectory() ? directories : files).add(dirtyFile);
       }
     }
+    GlobalSearchScope filesScope = files.isEmpty() ? null : GlobalSearchScope.filesScope(myProject, files);
+    if (directories.isEmpty()) {
+      return filesScope;
+    }
+    GlobalSearchScope directoriesScope = GlobalSearchScopesCore.directoriesScope(
+      myProject, true, directories.toArray(VirtualFile.EMPTY_ARRAY));
+    return filesScope == null ? directoriesScope : filesScope.union(directoriesScope);
+  }
+
+  /**
+   * @return map of files from {@code scope} to mojo entities defined in them
+   */
+  @NotNull
+  private Map<VirtualFile, Set<MojoProject>> findFileProjects(@NotNull GlobalSearchScope scope) {
+    Map<VirtualFile, Set<MojoProject>> result = new HashMap<>();
+    collectFileProjects(MojoUtil.MOJO_PACKAGE_NAME, scope, MojoApp::new, result);
+    collectFileProjects(MojoUtil.MOJO_PLUGIN_PACKAGE_NAME, scope, MojoPlugin::new, result);
+    return result;
+  }
 
-    List<PerlNamespaceDefinitionElement> pluginClasses = PerlPackageUtil.getChildNamespaces(
-      myProject, MojoUtil.MOJO_PLUGIN_PACKAGE_NAME, GlobalSearchScope.projectScope(myProject));
-    for (PerlNamespaceDefinitionElement namespace : pluginClasses) {
-      LOG.debug("Got plugin class: " + namespace);
+  /**
+   * Collects entities created by {@code projectFactory} for lib containers of {@code parentNamespaceName} subclasses from {@code scope}
+   */
+  private void collectFileProjects(@NotNull String parentNamespaceName,
+                                   @NotNull GlobalSearchScope scope,
+                                   @NotNull Function<VirtualFile, MojoProject> projectFactory,
+                                   @NotNull Map<VirtualFile, Set<MojoProject>> result) {
+    for (PerlNamespaceDefinitionElement namespace : PerlPackageUtil.getChildNamespaces(myProject, parentNamespaceName, scope)) {
+      LOG.debug("Got " + parentNamespaceName + " subclass: " + namespace);
       ProgressManager.checkCanceled();
-      VirtualFile root = findLibContainer(namespace);
+      VirtualFile namespaceFile = PsiUtilCore.getVirtualFile(namespace);
+      if (namespaceFile == null) {
+        LOG.debug("Namespace without a virtual file");
+        continue;
+      }
+      VirtualFile namespaceDirectory = namespaceFile.getParent();
+      VirtualFile root = namespaceDirectory == null ? null : myLibContainers.get(namespaceDirectory);
       if (root != null) {
-        LOG.debug("Plugin root: " + root);
-        result.add(new MojoPlugin(root));
+        LOG.debug("Root: " + root);
+        result.computeIfAbsent(namespaceFile, it -> new HashSet<>()).add(projectFactory.fun(root));
       }
       else {
-        LOG.debug("No plugin root");
+        LOG.debug("No root");
       }
     }
-    return result;
   }
 
   /**
-   * @return a directory in project, containing a {@code lib} directory, containing current class or null
+   * @return a directory in project, containing a {@code lib} directory, containing {@code directory} or null
    */
   @Nullable
-  private VirtualFile findLibContainer(@NotNull PerlNamespaceDefinitionElement namespaceDefinition) {
-    VirtualFile namespaceFile = PsiUtilCore.getVirtualFile(namespaceDefinition);
-    if (namespaceFile == null) {
-      LOG.debug("Namespace without a virtual file");
-      return null;
-    }
-    VirtualFile libDirectory = VfsUtilCore.findContainingDirectory(namespaceFile, PerlPackageUtil.DEFAULT_LIB_DIR);
+  private VirtualFile computeLibContainer(@NotNull VirtualFile directory) {
+    VirtualFile libDirectory = VfsUtilCore.findContainingDirectory(directory, PerlPackageUtil.DEFAULT_LIB_DIR);
     if (libDirectory == null) {
       LOG.debug("No containing lib dir found");
       return null;
@@ -285,16 +424,25 @@ public class MojoProjectManager {
   }
 
   private static class Model {
+    /**
+     * Files with mojo entities defined in them
+     */
+    @NotNull
+    private final Map<VirtualFile, Set<MojoProject>> myFileProjects;
     @NotNull
     private final Map<VirtualFile, MojoProject> myProjectRoots;
+    private final boolean myMojoAvailable;
 
-    private Model(@NotNull Set<? extends MojoProject> mojoProjects) {
-      if (mojoProjects.isEmpty()) {
+    private Model(@NotNull Map<VirtualFile, Set<MojoProject>> fileProjects, boolean mojoAvailable) {
+      myMojoAvailable = mojoAvailable;
+      if (fileProjects.isEmpty()) {
+        myFileProjects = Collections.emptyMap();
         myProjectRoots = Collections.emptyMap();
         return;
       }
+      myFileProjects = Collections.unmodifiableMap(fileProjects);
       Map<VirtualFile, MojoProject> map = new HashMap<>();
-      mojoProjects.forEach(it -> map.put(it.getRoot(), it));
+      fileProjects.values().forEach(projects -> projects.forEach(it -> map.put(it.getRoot(), it)));
       myProjectRoots = Collections.unmodifiableMap(map);
     }
 
@@ -16,6 +16,10 @@
 
 package com.perl5.lang.perl.idea.actions;
 
+import com.intellij.diff.comparison.ComparisonManager;
+import com.intellij.diff.comparison.ComparisonPolicy;
+import com.intellij.diff.comparison.DiffTooBigException;
+import com.intellij.diff.fragments.LineFragment;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.process.BaseProcessHandler;
 import com.intellij.execution.process.ProcessOutput;
@@ -23,22 +27,29 @@ import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.actionSystem.Presentation;
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.perl5.PerlBundle;
+import com.perl5.lang.perl.fileTypes.PurePerlFileType;
 import com.perl5.lang.perl.idea.configuration.settings.PerlSharedSettings;
 import com.perl5.lang.perl.idea.execution.PerlCommandLine;
+import com.perl5.lang.perl.idea.project.PerlProjectManager;
 import com.perl5.lang.perl.idea.sdk.host.PerlHostData;
 import com.perl5.lang.perl.util.PerlActionUtil;
 import com.perl5.lang.perl.util.PerlRunUtil;
@@ -47,20 +58,29 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Reformats file from the editor or all perl files from the selected files and directories with Perl::Tidy. Files are processed
+ * by several concurrent {@code perltidy} processes and results are applied to the documents as line diffs in a single command.
+ */
 public class PerlFormatWithPerlTidyAction extends PurePerlActionBase {
   private static final Logger LOG = Logger.getInstance(PerlFormatWithPerlTidyAction.class);
   private static final String PACKAGE_NAME = "Perl::Tidy";
   private static final String SCRIPT_NAME = "perltidy";
+  private static final int MAX_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors());
+  private static final long WAIT_TIMEOUT_MS = 100;
 
   public PerlFormatWithPerlTidyAction() {
     super(PerlBundle.message("perl.action.reformat.perl.tidy"));
   }
 
   @NotNull
-  private String getGroup() {
+  private static String getGroup() {
     return PerlBundle.message("perl.action.perl.tidy.notification.group");
   }
 
@@ -68,6 +88,12 @@ public class PerlFormatWithPerlTidyAction extends PurePerlActionBase {
   protected boolean isEnabled(@NotNull AnActionEvent event) {
     Presentation presentation = event.getPresentation();
     presentation.setText(PerlBundle.message("perl.action.reformat.perl.tidy"));
+    VirtualFile[] selectedFiles = getSelectedFiles(event);
+    if (selectedFiles != null) {
+      presentation.setText(PerlBundle.message("perl.action.reformat.perl.tidy.selected"));
+      return PerlProjectManager.isPerlEnabled(event.getDataContext()) &&
+             ContainerUtil.exists(selectedFiles, it -> it.isDirectory() || isMyFile(it));
+    }
     if (!super.isEnabled(event)) {
       return false;
     }
@@ -80,6 +106,51 @@ public class PerlFormatWithPerlTidyAction extends PurePerlActionBase {
     return true;
   }
 
+  /**
+   * @return files and directories selected in the project view if there is no editor and selection is not a single file,
+   * null otherwise
+   */
+  @Nullable
+  private static VirtualFile[] getSelectedFiles(@NotNull AnActionEvent event) {
+    if (event.getData(CommonDataKeys.EDITOR) != null) {
+      return null;
+    }
+    VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+    if (selectedFiles == null || selectedFiles.length == 0 || selectedFiles.length == 1 && !selectedFiles[0].isDirectory()) {
+      return null;
+    }
+    return selectedFiles;
+  }
+
+  private static boolean isMyFile(@NotNull VirtualFile virtualFile) {
+    return !virtualFile.isDirectory() && virtualFile.isWritable() && virtualFile.getFileType() instanceof PurePerlFileType;
+  }
+
+  /**
+   * @return perl files from {@code roots}. Explicitly chosen files are always included, while files under chosen directories are
+   * taken from the project content only, skipping excluded directories and libraries
+   */
+  @NotNull
+  private static List<VirtualFile> collectFiles(@NotNull Project project, @NotNull VirtualFile[] roots) {
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+    Set<VirtualFile> result = new LinkedHashSet<>();
+    for (VirtualFile root : roots) {
+      if (!root.isDirectory()) {
+        if (isMyFile(root)) {
+          result.add(root);
+        }
+        continue;
+      }
+      fileIndex.iterateContentUnderDirectory(root, it -> {
+        if (isMyFile(it) && !fileIndex.isInLibrary(it)) {
+          result.add(it);
+        }
+        return true;
+      });
+    }
+    return new ArrayList<>(result);
+  }
+
   @Nullable
   private PerlCommandLine getPerlTidyCommandLine(@NotNull Project project) throws ExecutionException {
     PerlSharedSettings sharedSettings = PerlSharedSettings.getInstance(project);
@@ -103,89 +174,248 @@ public class PerlFormatWithPerlTidyAction extends PurePerlActionBase {
 
   @Override
   public void actionPerformed(@NotNull AnActionEvent event) {
-    if (isEnabled(event)) {
+    if (!isEnabled(event)) {
+      return;
+    }
+    final Project project = event.getProject();
+    if (project == null) {
+      return;
+    }
+    VirtualFile[] roots = getSelectedFiles(event);
+    if (roots == null) {
       final PsiFile file = PerlActionUtil.getPsiFileFromEvent(event);
-
       if (file == null) {
         return;
       }
+      final VirtualFile virtualFile = file.getVirtualFile();
+      if (virtualFile == null) {
+        return;
+      }
+      roots = new VirtualFile[]{virtualFile};
+    }
+    final VirtualFile[] finalRoots = roots;
 
-      final Project project = file.getProject();
+    new Task.Backgroundable(project, PerlBundle.message("perl.tidy.formatting"), true) {
+      @Override
+      public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setIndeterminate(true);
+        List<VirtualFile> files = ReadAction.compute(() -> collectFiles(project, finalRoots));
+        if (files.isEmpty()) {
+          return;
+        }
+        try {
+          PerlCommandLine perlTidyCommandLine = getPerlTidyCommandLine(project);
+          if (perlTidyCommandLine == null) {
+            return;
+          }
+          applyResults(project, formatFiles(perlTidyCommandLine, files, indicator));
+        }
+        catch (ExecutionException e) {
+          LOG.warn(e);
+          notifyError(PerlBundle.message("perl.action.perl.tidy.running.error.title"), e.getMessage());
+        }
+      }
+    }.queue();
+  }
 
-      final Document document = file.getViewProvider().getDocument();
-      if (document == null) {
-        return;
+  /**
+   * Runs {@code perltidy} for the {@code files} using a pool of workers
+   *
+   * @return results for successfully formatted files, in order of {@code files}
+   */
+  @NotNull
+  private static List<PerlTidyResult> formatFiles(@NotNull PerlCommandLine commandLine,
+                                                  @NotNull List<VirtualFile> files,
+                                                  @NotNull ProgressIndicator indicator) throws ExecutionException {
+    if (files.size() == 1) {
+      return ContainerUtil.createMaybeSingletonList(formatFile(new PerlCommandLine(commandLine), files.get(0), indicator));
+    }
+
+    indicator.setIndeterminate(false);
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+      PerlFormatWithPerlTidyAction.class.getSimpleName(), Math.min(files.size(), MAX_WORKERS));
+    try {
+      List<Future<PerlTidyResult>> futures = new ArrayList<>(files.size());
+      for (VirtualFile file : files) {
+        futures.add(executor.submit(() -> formatFile(new PerlCommandLine(commandLine), file, indicator)));
       }
 
-      final VirtualFile virtualFile = file.getVirtualFile();
+      List<PerlTidyResult> results = new ArrayList<>(files.size());
+      for (int i = 0; i < futures.size(); i++) {
+        indicator.setText2(files.get(i).getPresentableUrl());
+        ContainerUtil.addIfNotNull(results, waitFor(futures.get(i), indicator));
+        indicator.setFraction((double)(i + 1) / files.size());
+      }
+      return results;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
 
-      if (virtualFile == null) {
-        return;
+  @Nullable
+  private static PerlTidyResult waitFor(@NotNull Future<PerlTidyResult> future,
+                                        @NotNull ProgressIndicator indicator) throws ExecutionException {
+    while (true) {
+      indicator.checkCanceled();
+      try {
+        return future.get(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
       }
+      catch (TimeoutException ignore) {
+      }
+      catch (InterruptedException e) {
+        throw new ProcessCanceledException(e);
+      }
+      catch (java.util.concurrent.ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ExecutionException) {
+          throw (ExecutionException)cause;
+        }
+        if (cause instanceof ProcessCanceledException) {
+          throw (ProcessCanceledException)cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+  }
 
-      FileDocumentManager.getInstance().saveDocument(document);
-
-      new Task.Backgroundable(project, PerlBundle.message("perl.tidy.formatting"), false) {
-        @Override
-        public void run(@NotNull ProgressIndicator indicator) {
-          indicator.setIndeterminate(true);
-          try {
-            PerlCommandLine perlTidyCommandLine = getPerlTidyCommandLine(project);
-            if (perlTidyCommandLine == null) {
-              return;
-            }
-            BaseProcessHandler processHandler = PerlHostData.createProcessHandler(
-              perlTidyCommandLine.withCharset(virtualFile.getCharset()));
-
-            final OutputStream outputStream = Objects.requireNonNull(processHandler.getProcessInput());
-
-            try {
-              final byte[] sourceBytes = virtualFile.contentsToByteArray();
-              outputStream.write(sourceBytes);
-              outputStream.close();
-            }
-            catch (IOException e) {
-              LOG.error(e);
-              Notifications.Bus.notify(new Notification(
-                getGroup(),
-                PerlBundle.message("perl.action.perl.tidy.formatting.error.title"),
-                e.getMessage(),
-                NotificationType.ERROR
-              ));
-              return;
-            }
-
-            ProcessOutput processOutput = PerlHostData.getOutput(processHandler);
-            final List<String> stdoutLines = processOutput.getStdoutLines(false);
-            List<String> stderrLines = processOutput.getStderrLines();
-
-            if (stderrLines.isEmpty()) {
-              WriteCommandAction.runWriteCommandAction(project, () -> {
-                document.setText(StringUtil.join(stdoutLines, "\n"));
-                PsiDocumentManager.getInstance(project).commitDocument(document);
-              });
-            }
-            else {
-              LOG.warn("Non-empty stderr: " + processOutput.getStderr());
-              Notifications.Bus.notify(new Notification(
-                getGroup(),
-                PerlBundle.message("perl.action.perl.tidy.formatting.error.title"),
-                StringUtil.join(stderrLines, "<br>"),
-                NotificationType.ERROR
-              ));
-            }
-          }
-          catch (ExecutionException e) {
-            LOG.error(e);
-            Notifications.Bus.notify(new Notification(
-              getGroup(),
-              PerlBundle.message("perl.action.perl.tidy.running.error.title"),
-              e.getMessage(),
-              NotificationType.ERROR
-            ));
-          }
+  /**
+   * Runs {@code perltidy} for the current content of {@code virtualFile} document and computes changes to be applied
+   *
+   * @return result or null if file has not been formatted, all errors are reported with notifications
+   */
+  @Nullable
+  private static PerlTidyResult formatFile(@NotNull PerlCommandLine perlTidyCommandLine,
+                                           @NotNull VirtualFile virtualFile,
+                                           @NotNull ProgressIndicator indicator) throws ExecutionException {
+    indicator.checkCanceled();
+    PerlTidyResult result = ReadAction.compute(() -> {
+      Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
+      return document == null ? null : new PerlTidyResult(virtualFile, document);
+    });
+    if (result == null) {
+      return null;
+    }
+
+    BaseProcessHandler processHandler = PerlHostData.createProcessHandler(
+      perlTidyCommandLine.withCharset(virtualFile.getCharset()));
+
+    final OutputStream outputStream = Objects.requireNonNull(processHandler.getProcessInput());
+
+    try {
+      outputStream.write(result.mySourceText.getBytes(virtualFile.getCharset()));
+      outputStream.close();
+    }
+    catch (IOException e) {
+      LOG.warn(e);
+      notifyError(PerlBundle.message("perl.action.perl.tidy.formatting.error.title"), virtualFile, e.getMessage());
+      return null;
+    }
+
+    ProcessOutput processOutput = PerlHostData.getOutput(processHandler);
+    List<String> stderrLines = processOutput.getStderrLines();
+    if (!stderrLines.isEmpty()) {
+      LOG.warn("Non-empty stderr: " + processOutput.getStderr());
+      notifyError(PerlBundle.message("perl.action.perl.tidy.formatting.error.title"), virtualFile,
+                  StringUtil.join(stderrLines, "<br>"));
+      return null;
+    }
+
+    return result.computeChanges(StringUtil.convertLineSeparators(processOutput.getStdout()), indicator) ? result : null;
+  }
+
+  /**
+   * Applies formatting results in a single undoable command. Documents changed since {@code perltidy} has been started are skipped.
+   */
+  private static void applyResults(@NotNull Project project, @NotNull List<PerlTidyResult> results) {
+    if (results.isEmpty()) {
+      return;
+    }
+    WriteCommandAction.writeCommandAction(project).withName(PerlBundle.message("perl.action.reformat.perl.tidy")).run(() -> {
+      PsiDocumentManager psiDocumentManager = PsiDocumentManager.getInstance(project);
+      for (PerlTidyResult result : results) {
+        if (result.apply()) {
+          psiDocumentManager.commitDocument(result.myDocument);
         }
-      }.queue();
+      }
+    });
+  }
+
+  private static void notifyError(@NotNull String title, @NotNull VirtualFile virtualFile, @Nullable String message) {
+    notifyError(title, virtualFile.getPresentableUrl() + ": " + message);
+  }
+
+  private static void notifyError(@NotNull String title, @Nullable String message) {
+    Notifications.Bus.notify(new Notification(getGroup(), title, StringUtil.notNullize(message), NotificationType.ERROR));
+  }
+
+  /**
+   * Formatting result for the single document
+   */
+  private static class PerlTidyResult {
+    @NotNull
+    private final VirtualFile myVirtualFile;
+    @NotNull
+    private final Document myDocument;
+    private final long myModificationStamp;
+    @NotNull
+    private final String mySourceText;
+    @Nullable
+    private String myFormattedText;
+    /**
+     * Changed lines or null if diff is too big and whole text should be replaced
+     */
+    @Nullable
+    private List<LineFragment> myFragments;
+
+    PerlTidyResult(@NotNull VirtualFile virtualFile, @NotNull Document document) {
+      myVirtualFile = virtualFile;
+      myDocument = document;
+      myModificationStamp = document.getModificationStamp();
+      mySourceText = document.getText();
+    }
+
+    /**
+     * @return true if there is something to apply
+     */
+    boolean computeChanges(@NotNull String formattedText, @NotNull ProgressIndicator indicator) {
+      if (formattedText.equals(mySourceText)) {
+        return false;
+      }
+      myFormattedText = formattedText;
+      try {
+        myFragments = ComparisonManager.getInstance().compareLines(mySourceText, formattedText, ComparisonPolicy.DEFAULT, indicator);
+      }
+      catch (DiffTooBigException e) {
+        LOG.debug("Diff is too big for ", myVirtualFile);
+        myFragments = null;
+      }
+      return true;
+    }
+
+    /**
+     * Replaces changed lines from the last one to the first one, so offsets of not yet processed fragments remain valid
+     *
+     * @return true if document has been changed
+     */
+    boolean apply() {
+      if (myFormattedText == null || !myVirtualFile.isValid()) {
+        return false;
+      }
+      if (myDocument.getModificationStamp() != myModificationStamp) {
+        LOG.debug("Document has been changed during formatting: ", myVirtualFile);
+        return false;
+      }
+      if (myFragments == null) {
+        myDocument.setText(myFormattedText);
+        return true;
+      }
+      for (int i = myFragments.size() - 1; i >= 0; i--) {
+        LineFragment fragment = myFragments.get(i);
+        myDocument.replaceString(fragment.getStartOffset1(), fragment.getEndOffset1(),
+                                 myFormattedText.subSequence(fragment.getStartOffset2(), fragment.getEndOffset2()));
+      }
+      return true;
     }
   }
 }
@@ -18,6 +18,7 @@ package com.perl5.lang.perl.idea.annotators;
 
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.process.BaseProcessHandler;
+import com.intellij.execution.process.ProcessOutput;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.ExternalAnnotator;
 import com.intellij.lang.annotation.HighlightSeverity;
@@ -29,11 +30,14 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.SystemProperties;
+import com.intellij.util.containers.SLRUMap;
 import com.perl5.PerlBundle;
 import com.perl5.lang.perl.idea.configuration.settings.PerlSharedSettings;
 import com.perl5.lang.perl.idea.execution.PerlCommandLine;
@@ -43,8 +47,13 @@ import com.perl5.lang.perl.util.PerlRunUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -53,6 +62,21 @@ public class PerlCriticAnnotator extends ExternalAnnotator<PerlFile, List<PerlCr
   private static final String SCRIPT_NAME = "perlcritic";
   private static final String PACKAGE_NAME = "Perl::Critic";
   private static final Logger LOG = Logger.getInstance(PerlCriticAnnotator.class);
+  private static final String PROFILE_NAME = ".perlcriticrc";
+  private static final String PROFILE_ENVIRONMENT_VARIABLE = "PERLCRITIC";
+  private static final List<String> PROFILE_OPTIONS = Arrays.asList("--profile", "-profile", "-p");
+  private static final List<String> NO_PROFILE_OPTIONS = Arrays.asList("--noprofile", "-noprofile");
+  private static final int CACHE_SIZE = 32;
+  /**
+   * Perl::Critic exits with this code if there were some violations
+   */
+  private static final int VIOLATIONS_EXIT_CODE = 2;
+
+  /**
+   * Recent results keyed by command line, profile digest and source digest. Unchanged files and undo/redo don't need to run the
+   * perlcritic again
+   */
+  private final SLRUMap<String, List<PerlCriticErrorDescriptor>> myResultsCache = new SLRUMap<>(CACHE_SIZE, CACHE_SIZE);
 
   @Nullable
   @Override
@@ -107,9 +131,14 @@ public class PerlCriticAnnotator extends ExternalAnnotator<PerlFile, List<PerlCr
         return null;
       }
 
-      BaseProcessHandler processHandler = PerlHostData.createProcessHandler(
-        criticCommandLine.withCharset(virtualFile.getCharset())
-      );
+      criticCommandLine.withCharset(virtualFile.getCharset());
+      String cacheKey = computeCacheKey(criticCommandLine, sourceBytes);
+      List<PerlCriticErrorDescriptor> cachedErrors = getCachedResults(cacheKey);
+      if (cachedErrors != null) {
+        return cachedErrors;
+      }
+
+      BaseProcessHandler processHandler = PerlHostData.createProcessHandler(criticCommandLine);
 
       OutputStream outputStream = Objects.requireNonNull(processHandler.getProcessInput());
       outputStream.write(sourceBytes);
@@ -117,7 +146,8 @@ public class PerlCriticAnnotator extends ExternalAnnotator<PerlFile, List<PerlCr
 
       List<PerlCriticErrorDescriptor> errors = new ArrayList<>();
       PerlCriticErrorDescriptor lastDescriptor = null;
-      for (String output : PerlHostData.getOutput(processHandler).getStdoutLines()) {
+      ProcessOutput processOutput = PerlHostData.getOutput(processHandler);
+      for (String output : processOutput.getStdoutLines()) {
         PerlCriticErrorDescriptor fromString = PerlCriticErrorDescriptor.getFromString(output);
         if (fromString != null) {
           errors.add(lastDescriptor = fromString);
@@ -129,6 +159,10 @@ public class PerlCriticAnnotator extends ExternalAnnotator<PerlFile, List<PerlCr
           LOG.warn("Could not parse line: " + output);
         }
       }
+      int exitCode = processOutput.getExitCode();
+      if (exitCode == 0 || exitCode == VIOLATIONS_EXIT_CODE) {
+        cacheResults(cacheKey, errors);
+      }
       return errors;
     }
     catch (Exception e) {
@@ -145,6 +179,92 @@ public class PerlCriticAnnotator extends ExternalAnnotator<PerlFile, List<PerlCr
     return null;
   }
 
+  @Nullable
+  private List<PerlCriticErrorDescriptor> getCachedResults(@NotNull String cacheKey) {
+    synchronized (myResultsCache) {
+      return myResultsCache.get(cacheKey);
+    }
+  }
+
+  private void cacheResults(@NotNull String cacheKey, @NotNull List<PerlCriticErrorDescriptor> errors) {
+    synchronized (myResultsCache) {
+      myResultsCache.put(cacheKey, errors);
+    }
+  }
+
+  /**
+   * @return key for results of critique of {@code sourceBytes} with {@code commandLine}. Content of the profile in effect is a part of
+   * the key, see {@link #findProfile(PerlCommandLine)}
+   */
+  @NotNull
+  private static String computeCacheKey(@NotNull PerlCommandLine commandLine, @NotNull byte[] sourceBytes)
+    throws NoSuchAlgorithmException, IOException {
+    StringBuilder sb = new StringBuilder(commandLine.getCommandLineString());
+    File workDirectory = commandLine.getWorkDirectory();
+    if (workDirectory != null) {
+      sb.append('\n').append(workDirectory.getPath());
+    }
+    File profile = findProfile(commandLine);
+    sb.append('\n');
+    if (profile != null && profile.isFile()) {
+      sb.append(profile.getPath()).append(':').append(computeDigest(FileUtil.loadFileBytes(profile)));
+    }
+    sb.append('\n').append(computeDigest(sourceBytes));
+    return sb.toString();
+  }
+
+  @NotNull
+  private static String computeDigest(@NotNull byte[] bytes) throws NoSuchAlgorithmException {
+    return StringUtil.toHexString(MessageDigest.getInstance("SHA-1").digest(bytes));
+  }
+
+  /**
+   * @return profile Perl::Critic is going to use with {@code commandLine}, the same way it finds it: {@code --profile} option, path from
+   * {@code PERLCRITIC} environment variable, {@code .perlcriticrc} in the working directory or in the user home. Null if profile is
+   * disabled with {@code --noprofile} or there is no profile.
+   */
+  @Nullable
+  private static File findProfile(@NotNull PerlCommandLine commandLine) {
+    File workDirectory = commandLine.getWorkDirectory();
+    List<String> parameters = commandLine.getParametersList().getList();
+    for (int i = 0; i < parameters.size(); i++) {
+      String parameter = parameters.get(i);
+      if (NO_PROFILE_OPTIONS.contains(parameter)) {
+        return null;
+      }
+      if (PROFILE_OPTIONS.contains(parameter) && i + 1 < parameters.size()) {
+        return resolveProfilePath(workDirectory, parameters.get(i + 1));
+      }
+      for (String option : PROFILE_OPTIONS) {
+        if (parameter.startsWith(option + "=")) {
+          return resolveProfilePath(workDirectory, parameter.substring(option.length() + 1));
+        }
+      }
+    }
+
+    String environmentProfile = commandLine.getEnvironment().get(PROFILE_ENVIRONMENT_VARIABLE);
+    if (environmentProfile == null && commandLine.isPassParentEnvironment()) {
+      environmentProfile = System.getenv(PROFILE_ENVIRONMENT_VARIABLE);
+    }
+    if (StringUtil.isNotEmpty(environmentProfile)) {
+      return resolveProfilePath(workDirectory, environmentProfile);
+    }
+
+    if (workDirectory != null) {
+      File workDirectoryProfile = new File(workDirectory, PROFILE_NAME);
+      if (workDirectoryProfile.isFile()) {
+        return workDirectoryProfile;
+      }
+    }
+    return new File(SystemProperties.getUserHome(), PROFILE_NAME);
+  }
+
+  @NotNull
+  private static File resolveProfilePath(@Nullable File workDirectory, @NotNull String path) {
+    File profile = new File(FileUtil.expandUserHome(path));
+    return profile.isAbsolute() || workDirectory == null ? profile : new File(workDirectory, path);
+  }
+
   @Override
   public void apply(@NotNull PsiFile file, List<PerlCriticErrorDescriptor> annotationResult, @NotNull AnnotationHolder holder) {
     if (annotationResult == null) {
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.annotators;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.codeInsight.daemon.impl.HighlightInfoType;
+import com.intellij.codeInsight.daemon.impl.HighlightVisitor;
+import com.intellij.codeInsight.daemon.impl.analysis.HighlightInfoHolder;
+import com.intellij.lang.Language;
+import com.intellij.openapi.editor.colors.CodeInsightColors;
+import com.intellij.openapi.editor.colors.EditorColorsManager;
+import com.intellij.openapi.editor.colors.EditorColorsScheme;
+import com.intellij.openapi.editor.colors.TextAttributesKey;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.ElementManipulators;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiUtilCore;
+import com.perl5.lang.perl.PerlLanguage;
+import com.perl5.lang.perl.extensions.packageprocessor.impl.ConstantProcessor;
+import com.perl5.lang.perl.lexer.PerlElementTypes;
+import com.perl5.lang.perl.psi.*;
+import com.perl5.lang.perl.psi.impl.*;
+import com.perl5.lang.perl.psi.light.PerlDelegatingLightNamedElement;
+import com.perl5.lang.perl.psi.references.PerlSubReference;
+import com.perl5.lang.perl.util.PerlSubUtil;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+import static com.perl5.lang.perl.idea.highlighter.PerlSyntaxHighlighter.*;
+
+/**
+ * Semantic coloring of Perl elements. Works in the general highlighting pass, so each element of the dirty scope is visited once
+ * and references are resolved with the same resolve cache the inspections are using.
+ */
+public class PerlHighlightVisitor implements HighlightVisitor, PerlElementTypes {
+  private static final Map<Class<? extends PerlVariable>, TextAttributesKey> VARIABLE_KEYS_MAP = new THashMap<>();
+
+  static {
+    VARIABLE_KEYS_MAP.put(PsiPerlScalarVariableImpl.class, PERL_SCALAR_BUILTIN);
+    VARIABLE_KEYS_MAP.put(PsiPerlArrayIndexVariableImpl.class, PERL_SCALAR_BUILTIN);
+    VARIABLE_KEYS_MAP.put(PsiPerlHashVariableImpl.class, PERL_HASH_BUILTIN);
+    VARIABLE_KEYS_MAP.put(PsiPerlArrayVariableImpl.class, PERL_ARRAY_BUILTIN);
+  }
+
+  /**
+   * Enforced attributes, computed once per pass
+   */
+  private final Map<TextAttributesKey, TextAttributes> myEnforcedAttributes = new THashMap<>();
+  @Nullable
+  private EditorColorsScheme myScheme;
+  @Nullable
+  private HighlightInfoHolder myHolder;
+
+  @Override
+  public boolean suitableForFile(@NotNull PsiFile file) {
+    for (Language language : file.getViewProvider().getLanguages()) {
+      if (language.isKindOf(PerlLanguage.INSTANCE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean analyze(@NotNull PsiFile file, boolean updateWholeFile, @NotNull HighlightInfoHolder holder, @NotNull Runnable action) {
+    myHolder = holder;
+    myScheme = EditorColorsManager.getInstance().getGlobalScheme();
+    try {
+      action.run();
+    }
+    finally {
+      myHolder = null;
+      myScheme = null;
+      myEnforcedAttributes.clear();
+    }
+    return true;
+  }
+
+  @NotNull
+  @Override
+  @SuppressWarnings("MethodDoesntCallSuperMethod")
+  public HighlightVisitor clone() {
+    return new PerlHighlightVisitor();
+  }
+
+  @Override
+  public void visit(@NotNull PsiElement element) {
+    if (!element.getLanguage().isKindOf(PerlLanguage.INSTANCE)) {
+      return;
+    }
+    IElementType elementType = PsiUtilCore.getElementType(element);
+    if (elementType == NYI_STATEMENT) {
+      addInfo(element.getTextRange(), "Unimplemented statement", CodeInsightColors.TODO_DEFAULT_ATTRIBUTES);
+    }
+    else if (element instanceof PerlGlobVariable && ((PerlGlobVariable)element).isBuiltIn()) {
+      addInfo(element.getTextRange(), null, PERL_GLOB_BUILTIN);
+    }
+    else if (element instanceof PerlVariable && ((PerlVariable)element).isBuiltIn()) {
+      addInfo(element.getTextRange(), null, VARIABLE_KEYS_MAP.get(element.getClass()));
+    }
+    else if (elementType == LABEL_DECLARATION || elementType == LABEL_EXPR) {
+      addInfo(element.getFirstChild().getTextRange(), null, PERL_LABEL);
+    }
+    else if (elementType == PACKAGE) {
+      visitNamespaceElement((PerlNamespaceElement)element);
+    }
+    else if (element instanceof PerlPolyNamedElement) {
+      visitPolyNamedElement((PerlPolyNamedElement<?>)element);
+    }
+    else if (elementType == SUB_NAME) {
+      visitSubNameElement((PerlSubNameElement)element);
+    }
+  }
+
+  private void visitNamespaceElement(@NotNull PerlNamespaceElement namespaceElement) {
+    if (namespaceElement.getParent() instanceof PerlNamespaceDefinitionWithIdentifier) {
+      addEnforcedInfo(namespaceElement.getTextRange(), PERL_PACKAGE_DEFINITION);
+    }
+    else if (namespaceElement.isPragma()) {
+      addEnforcedInfo(namespaceElement.getTextRange(), PERL_PACKAGE_PRAGMA);
+    }
+    else if (namespaceElement.isBuiltin()) {
+      addEnforcedInfo(namespaceElement.getTextRange(), PERL_PACKAGE_CORE);
+    }
+  }
+
+  private void visitPolyNamedElement(@NotNull PerlPolyNamedElement<?> element) {
+    TextAttributesKey subAttribute = PERL_SUB_DEFINITION;
+    if (element instanceof PerlUseStatementElement &&
+        ((PerlUseStatementElement)element).getPackageProcessor() instanceof ConstantProcessor) {
+      subAttribute = PERL_CONSTANT;
+    }
+    for (PerlDelegatingLightNamedElement lightNamedElement : element.getLightElements()) {
+      if (lightNamedElement.isImplicit()) {
+        continue;
+      }
+      TextAttributesKey currentKey = lightNamedElement instanceof PerlSubDefinition ? subAttribute : PERL_PACKAGE_DEFINITION;
+      PsiElement navigationElement = lightNamedElement.getNavigationElement();
+      addEnforcedInfo(ElementManipulators.getValueTextRange(navigationElement).shiftRight(lightNamedElement.getTextOffset()), currentKey);
+    }
+  }
+
+  private void visitSubNameElement(@NotNull PerlSubNameElement subNameElement) {
+    PsiElement parent = subNameElement.getParent();
+    TextRange range = subNameElement.getTextRange();
+    if (parent instanceof PsiPerlSubDeclaration) {
+      addInfo(range, null, PERL_SUB_DECLARATION);
+    }
+    else if (parent instanceof PerlSubDefinitionElement) {
+      addInfo(range, null, PerlSubUtil.SUB_AUTOLOAD.equals(subNameElement.getName()) ? PERL_AUTOLOAD : PERL_SUB_DEFINITION);
+    }
+    else if (parent instanceof PerlMethodCall) {
+      // fixme don't we need to take multiple references here?
+      PsiElement grandParent = parent.getParent();
+      PerlNamespaceElement methodNamespace = ((PerlMethodCall)parent).getNamespaceElement();
+
+      if (
+        !(grandParent instanceof PsiPerlNestedCall)    /// not ...->method fixme shouldn't we use isObjectMethod here?
+        && (methodNamespace == null || methodNamespace.isCORE())    // no explicit NS or it's core
+        && subNameElement.isBuiltIn()
+        ) {
+        addInfo(range, null, PERL_SUB_BUILTIN);
+        return;
+      }
+
+      PsiReference reference = subNameElement.getReference();
+      if (!(reference instanceof PerlSubReference)) {
+        return;
+      }
+      PerlSubReference subReference = (PerlSubReference)reference;
+      subReference.multiResolve(false);
+
+      if (subReference.isConstant()) {
+        addInfo(range, "Constant", PERL_CONSTANT);
+      }
+      else if (subReference.isAutoloaded()) {
+        addInfo(range, "Auto-loaded sub", PERL_AUTOLOAD);
+      }
+      else if (subReference.isXSub()) {
+        addInfo(range, "XSub", PERL_XSUB);
+      }
+    }
+  }
+
+  private void addInfo(@NotNull TextRange range, @Nullable String description, @NotNull TextAttributesKey key) {
+    add(createBuilder(range, description).textAttributes(key));
+  }
+
+  private void addEnforcedInfo(@NotNull TextRange range, @NotNull TextAttributesKey key) {
+    add(createBuilder(range, null).textAttributes(getEnforcedAttributes(key)));
+  }
+
+  @NotNull
+  private TextAttributes getEnforcedAttributes(@NotNull TextAttributesKey key) {
+    EditorColorsScheme scheme = myScheme;
+    assert scheme != null : "Visiting outside of analyze";
+    return myEnforcedAttributes.computeIfAbsent(key, scheme::getAttributes);
+  }
+
+  private void add(@NotNull HighlightInfo.Builder builder) {
+    HighlightInfoHolder holder = myHolder;
+    assert holder != null : "Visiting outside of analyze";
+    holder.add(builder.create());
+  }
+
+  @NotNull
+  private static HighlightInfo.Builder createBuilder(@NotNull TextRange range, @Nullable String description) {
+    HighlightInfo.Builder builder = HighlightInfo.newHighlightInfo(HighlightInfoType.INFORMATION).range(range);
+    return description == null ? builder : builder.descriptionAndTooltip(description);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.codeInsight.controlFlow;
+
+import com.intellij.codeInsight.controlflow.ControlFlowUtil;
+import com.intellij.codeInsight.controlflow.Instruction;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiUtilCore;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.perl5.lang.perl.lexer.PerlElementTypesGenerated.*;
+
+/**
+ * Exit points and reachability of the {@link com.perl5.lang.perl.psi.properties.PerlReturnScope} control flow. Computed once per
+ * control flow graph and shared by exit points highlighting, unreachable code inspection and return value inference.
+ */
+public final class PerlControlFlowSummary {
+  /**
+   * Unreachable elements of these types are not reported themselves, their unreachable successors are reported instead
+   */
+  private static final TokenSet TRANSPARENT_ELEMENTS = TokenSet.create(
+    COMMA_SEQUENCE_EXPR, DO_EXPR, PARENTHESISED_EXPR, DEREF_EXPR, SUB_EXPR, SUB_DEFINITION, METHOD_DEFINITION, FUNC_DEFINITION,
+    LP_OR_XOR_EXPR, EVAL_EXPR
+  );
+
+  @NotNull
+  private final List<PsiElement> myExitElements;
+  @NotNull
+  private final List<PsiElement> myUnreachableElements;
+
+  private PerlControlFlowSummary(@NotNull List<PsiElement> exitElements, @NotNull List<PsiElement> unreachableElements) {
+    myExitElements = exitElements;
+    myUnreachableElements = unreachableElements;
+  }
+
+  /**
+   * @return elements of instructions leading to the exit of the scope: explicit and implicit return values, {@code die} calls, etc.
+   */
+  @NotNull
+  public List<PsiElement> getExitElements() {
+    return myExitElements;
+  }
+
+  /**
+   * @return elements starting unreachable parts of the scope, in order of discovery
+   */
+  @NotNull
+  public List<PsiElement> getUnreachableElements() {
+    return myUnreachableElements;
+  }
+
+  /**
+   * @return lazily computed summary for the {@code element}, invalidated with the control flow of the element
+   * @see PerlControlFlowBuilder#getFor(PsiElement)
+   */
+  @NotNull
+  public static PerlControlFlowSummary getFor(@NotNull PsiElement element) {
+    return CachedValuesManager.getCachedValue(element, () -> CachedValueProvider.Result.create(build(element), element));
+  }
+
+  @NotNull
+  private static PerlControlFlowSummary build(@NotNull PsiElement element) {
+    Instruction[] instructions = PerlControlFlowBuilder.getFor(element).getInstructions();
+    return new PerlControlFlowSummary(collectExitElements(instructions), collectUnreachableElements(instructions));
+  }
+
+  @NotNull
+  private static List<PsiElement> collectExitElements(@NotNull Instruction[] instructions) {
+    List<PsiElement> result = new ArrayList<>();
+    Instruction exitInstruction = instructions[instructions.length - 1];
+    PerlControlFlowBuilder.iteratePrev(instructions, it -> {
+      if (it == exitInstruction || it.num() == 0) {
+        return ControlFlowUtil.Operation.NEXT;
+      }
+      PsiElement element = it.getElement();
+      if (element == null) {
+        return ControlFlowUtil.Operation.NEXT;
+      }
+      result.add(element);
+      return ControlFlowUtil.Operation.CONTINUE;
+    });
+    return result.isEmpty() ? Collections.emptyList() : result;
+  }
+
+  @NotNull
+  private static List<PsiElement> collectUnreachableElements(@NotNull Instruction[] instructions) {
+    List<PsiElement> result = new ArrayList<>();
+    Set<PsiElement> processedElements = new HashSet<>();
+    PerlControlFlowBuilder.iteratePrev(instructions, it -> {
+      if (it.allPred().isEmpty() && it.num() != 0) {
+        collectUnreachableElements(it, processedElements, result);
+      }
+      return ControlFlowUtil.Operation.NEXT;
+    });
+    return result.isEmpty() ? Collections.emptyList() : result;
+  }
+
+  private static void collectUnreachableElements(@NotNull Instruction instruction,
+                                                 @NotNull Set<PsiElement> processedElements,
+                                                 @NotNull List<PsiElement> result) {
+    PsiElement element = instruction.getElement();
+    if (element == null || !processedElements.add(element)) {
+      return;
+    }
+
+    if (TRANSPARENT_ELEMENTS.contains(PsiUtilCore.getElementType(element))) {
+      instruction.allSucc().forEach(it -> {
+        // this is just a weak check for next unreachable instruction
+        if (it.allPred().size() < 2) {
+          collectUnreachableElements(it, processedElements, result);
+        }
+      });
+    }
+    else {
+      result.add(element);
+    }
+  }
+}
@@ -16,15 +16,13 @@
 
 package com.perl5.lang.perl.idea.codeInsight.highlighting;
 
-import com.intellij.codeInsight.controlflow.ControlFlowUtil;
-import com.intellij.codeInsight.controlflow.Instruction;
 import com.intellij.codeInsight.highlighting.HighlightUsagesHandlerBase;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Consumer;
-import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowBuilder;
+import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowSummary;
 import com.perl5.lang.perl.psi.properties.PerlReturnScope;
 import org.jetbrains.annotations.NotNull;
 
@@ -58,19 +56,8 @@ class PerlHighlightExitPointsHandler extends HighlightUsagesHandlerBase<PsiEleme
     if (returnScope == null) {
       return;
     }
-    Instruction[] instructions = PerlControlFlowBuilder.getFor(returnScope).getInstructions();
-    Instruction exitInstruction = instructions[instructions.length - 1];
-    PerlControlFlowBuilder.iteratePrev(instructions, it -> {
-      if (it == exitInstruction || it.num() == 0) {
-        return ControlFlowUtil.Operation.NEXT;
-      }
-      PsiElement element = it.getElement();
-      if (element == null) {
-        return ControlFlowUtil.Operation.NEXT;
-      }
+    for (PsiElement element : PerlControlFlowSummary.getFor(returnScope).getExitElements()) {
       myReadUsages.add(element.getTextRange());
-
-      return ControlFlowUtil.Operation.CONTINUE;
-    });
+    }
   }
 }
@@ -87,6 +87,12 @@ public final class PerlCallObjectValue extends PerlCallValue {
     return mySuperContext != null;
   }
 
+  @Nullable
+  @Override
+  protected Object getCallTargetsData() {
+    return mySuperContext;
+  }
+
   @NotNull
   private String getEffectiveNamespaceName(String contextNamespace) {
     return ObjectUtils.notNull(mySuperContext, contextNamespace);
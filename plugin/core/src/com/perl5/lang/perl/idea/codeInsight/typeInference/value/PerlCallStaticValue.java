@@ -17,6 +17,7 @@
 package com.perl5.lang.perl.idea.codeInsight.typeInference.value;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
@@ -81,6 +82,25 @@ public final class PerlCallStaticValue extends PerlCallValue {
     return true;
   }
 
+  @Nullable
+  @Override
+  protected Object getCallTargetsData() {
+    return myHasExplicitNamespace;
+  }
+
+  @Nullable
+  @Override
+  protected Object getCallTargetsContextData(@NotNull Project project,
+                                             @Nullable PsiElement contextElement,
+                                             @NotNull Set<String> namespaceNames) {
+    Object contextData = super.getCallTargetsContextData(project, contextElement, namespaceNames);
+    if (myHasExplicitNamespace || contextElement == null) {
+      return contextData;
+    }
+    // imports of the containing namespace are processed as well
+    return Pair.create(contextData, PerlPackageUtil.getContainingNamespace(contextElement.getOriginalElement()));
+  }
+
   protected void addFallbackTargets(@NotNull Set<String> namespaceNames,
                                     @NotNull Set<String> subNames,
                                     @NotNull List<PerlValue> resolvedArguments,
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.codeInsight.typeInference.value;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Key for the call targets memo in {@link PerlValuesCacheService}. Identifies a set of targets by call kind, resolved namespaces,
+ * resolved sub names and search scope.
+ */
+final class PerlCallTargetsKey {
+  @NotNull
+  private final Class<? extends PerlCallValue> myCallClass;
+  /**
+   * Call-specific data, affecting targets, e.g. {@code SUPER} context or explicit namespace flag
+   */
+  @Nullable
+  private final Object myCallData;
+  @NotNull
+  private final GlobalSearchScope mySearchScope;
+  @NotNull
+  private final Set<String> myNamespaceNames;
+  @NotNull
+  private final Set<String> mySubNames;
+  /**
+   * Part of the invocation context affecting targets, e.g. containing file for the simple main resolution
+   */
+  @Nullable
+  private final Object myContextData;
+  private final int myHashCode;
+
+  PerlCallTargetsKey(@NotNull Class<? extends PerlCallValue> callClass,
+                     @Nullable Object callData,
+                     @NotNull GlobalSearchScope searchScope,
+                     @NotNull Set<String> namespaceNames,
+                     @NotNull Set<String> subNames,
+                     @Nullable Object contextData) {
+    myCallClass = callClass;
+    myCallData = callData;
+    mySearchScope = searchScope;
+    myNamespaceNames = namespaceNames;
+    mySubNames = subNames;
+    myContextData = contextData;
+    myHashCode = computeHashCode();
+  }
+
+  private int computeHashCode() {
+    int result = myCallClass.hashCode();
+    result = 31 * result + Objects.hashCode(myCallData);
+    result = 31 * result + mySearchScope.hashCode();
+    result = 31 * result + myNamespaceNames.hashCode();
+    result = 31 * result + mySubNames.hashCode();
+    result = 31 * result + Objects.hashCode(myContextData);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    PerlCallTargetsKey key = (PerlCallTargetsKey)o;
+
+    return myHashCode == key.myHashCode &&
+           myCallClass.equals(key.myCallClass) &&
+           Objects.equals(myCallData, key.myCallData) &&
+           mySearchScope.equals(key.mySearchScope) &&
+           myNamespaceNames.equals(key.myNamespaceNames) &&
+           mySubNames.equals(key.mySubNames) &&
+           Objects.equals(myContextData, key.myContextData);
+  }
+
+  @Override
+  public int hashCode() {
+    return myHashCode;
+  }
+
+  @Override
+  public String toString() {
+    return myCallClass.getSimpleName() + ": " + myNamespaceNames + "; " + mySubNames + "; " + myCallData + "; " + myContextData;
+  }
+}
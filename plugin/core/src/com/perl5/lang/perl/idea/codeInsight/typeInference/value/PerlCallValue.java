@@ -87,7 +87,7 @@ public abstract class PerlCallValue extends PerlParametrizedOperationValue {
     boolean[] hasTargets = new boolean[]{false};
     RecursionManager.doPreventingRecursion(
       Pair.create(resolver.getResolveScope(), this), true, () -> {
-        processCallTargets(resolver.getProject(), resolver.getResolveScope(), resolver.getContextFile(), namespaceNames, subNames, it -> {
+        processCallTargetsCached(resolver.getProject(), resolver.getResolveScope(), resolver.getContextFile(), namespaceNames, subNames, it -> {
           hasTargets[0] = true;
             if (it instanceof PerlSubElement) {
               builder.addVariant(new PerlSubValueResolver(it, argumentsValue).resolve(((PerlSubElement)it).getReturnValue()));
@@ -166,7 +166,45 @@ public abstract class PerlCallValue extends PerlParametrizedOperationValue {
     Set<String> subNames = getSubNameValue().resolve(contextElement).getSubNames();
     Set<String> namespaceNames = computeNamespaceNames(getNamespaceNameValue().resolve(contextElement));
     return !subNames.isEmpty() && !namespaceNames.isEmpty() &&
-           processCallTargets(project, searchScope, contextElement, namespaceNames, subNames, processor);
+           processCallTargetsCached(project, searchScope, contextElement, namespaceNames, subNames, processor);
+  }
+
+  /**
+   * Processes call targets with {@code processor} using the project-wide targets memo from {@link PerlValuesCacheService}
+   */
+  private boolean processCallTargetsCached(@NotNull Project project,
+                                           @NotNull GlobalSearchScope searchScope,
+                                           @Nullable PsiElement contextElement,
+                                           @NotNull Set<String> namespaceNames,
+                                           @NotNull Set<String> subNames,
+                                           @NotNull Processor<? super PsiNamedElement> processor) {
+    PerlCallTargetsKey key = new PerlCallTargetsKey(
+      getClass(), getCallTargetsData(), searchScope, namespaceNames, subNames,
+      getCallTargetsContextData(project, contextElement, namespaceNames));
+    return PerlValuesCacheService.getInstance(project).processCallTargets(
+      key, it -> processCallTargets(project, searchScope, contextElement, namespaceNames, subNames, it), processor);
+  }
+
+  /**
+   * @return call-specific data affecting the set of call targets, besides namespaces and sub names. Used as a part of targets cache key
+   */
+  @Nullable
+  protected abstract Object getCallTargetsData();
+
+  /**
+   * @return part of the invocation context affecting the set of call targets, or null if targets don't depend on the context.
+   * Used as a part of targets cache key
+   * @see #getEffectiveScope(Project, GlobalSearchScope, String, PsiElement)
+   */
+  @Nullable
+  protected Object getCallTargetsContextData(@NotNull Project project,
+                                             @Nullable PsiElement contextElement,
+                                             @NotNull Set<String> namespaceNames) {
+    if (contextElement == null || !PerlSharedSettings.getInstance(project).SIMPLE_MAIN_RESOLUTION ||
+        !namespaceNames.contains(PerlPackageUtil.MAIN_NAMESPACE_NAME)) {
+      return null;
+    }
+    return contextElement.getContainingFile().getOriginalFile();
   }
 
   /**
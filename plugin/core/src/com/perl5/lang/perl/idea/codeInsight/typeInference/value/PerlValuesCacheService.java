@@ -20,13 +20,20 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.RecursionGuard;
 import com.intellij.openapi.util.RecursionManager;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static com.perl5.lang.perl.idea.codeInsight.typeInference.value.PerlValues.UNKNOWN_VALUE;
 
@@ -35,10 +42,27 @@ public class PerlValuesCacheService implements PsiModificationTracker.Listener {
   @NotNull
   private final Map<Pair<PerlValue, PerlValueResolver>, PerlValue> myResolveMap = ContainerUtil.createConcurrentWeakMap();
 
+  /**
+   * Memo of method and sub call targets, shared by all call sites with same namespaces, sub names and scope.
+   * Dropped on out of code block modifications.
+   */
+  @NotNull
+  private final Map<PerlCallTargetsKey, List<PsiNamedElement>> myCallTargetsMap = ContainerUtil.createConcurrentSoftValueMap();
+
   private final AtomicLong myResolveRequests = new AtomicLong();
   private final AtomicLong myResolveBuilds = new AtomicLong();
 
+  private final AtomicLong myCallTargetsRequests = new AtomicLong();
+  private final AtomicLong myCallTargetsBuilds = new AtomicLong();
+
+  @NotNull
+  private final PsiModificationTracker myModificationTracker;
+
+  private volatile long myCallTargetsModificationCount;
+
   public PerlValuesCacheService(@NotNull Project project) {
+    myModificationTracker = PsiManager.getInstance(project).getModificationTracker();
+    myCallTargetsModificationCount = myModificationTracker.getOutOfCodeBlockModificationCount();
     project.getMessageBus().connect().subscribe(PsiModificationTracker.TOPIC, this);
   }
 
@@ -62,16 +86,56 @@ public class PerlValuesCacheService implements PsiModificationTracker.Listener {
     return resolvedValue;
   }
 
+  /**
+   * Processes call targets for the {@code key} with {@code processor}, computing them with {@code targetsComputer} if they are not
+   * cached yet.
+   *
+   * @param targetsComputer computes targets without caching, passes each target to the given processor
+   */
+  boolean processCallTargets(@NotNull PerlCallTargetsKey key,
+                             @NotNull Consumer<Processor<PsiNamedElement>> targetsComputer,
+                             @NotNull Processor<? super PsiNamedElement> processor) {
+    myCallTargetsRequests.incrementAndGet();
+    List<PsiNamedElement> targets = myCallTargetsMap.get(key);
+    if (targets == null || !ContainerUtil.and(targets, PsiNamedElement::isValid)) {
+      myCallTargetsBuilds.incrementAndGet();
+      List<PsiNamedElement> computedTargets = new ArrayList<>();
+      RecursionGuard.StackStamp stamp = RecursionManager.markStack();
+      targetsComputer.accept(it -> {
+        computedTargets.add(it);
+        return true;
+      });
+      targets = computedTargets.isEmpty() ? ContainerUtil.emptyList() : computedTargets;
+      if (stamp.mayCacheNow()) {
+        myCallTargetsMap.put(key, targets);
+      }
+    }
+    return ContainerUtil.process(targets, processor);
+  }
+
   @Override
   public void modificationCountChanged() {
     myResolveMap.clear();
 
+    long outOfCodeBlockModificationCount = myModificationTracker.getOutOfCodeBlockModificationCount();
+    if (myCallTargetsModificationCount != outOfCodeBlockModificationCount) {
+      myCallTargetsModificationCount = outOfCodeBlockModificationCount;
+      myCallTargetsMap.clear();
+    }
+
     if (myResolveRequests.get() > 0) {
       LOG.debug(String.format("Value resolve effectiveness: %d, %d, %d", myResolveRequests.get(), myResolveBuilds.get(),
                               (myResolveRequests.get() - myResolveBuilds.get()) * 100 / myResolveRequests.get()));
     }
     myResolveRequests.set(0);
     myResolveBuilds.set(0);
+
+    if (myCallTargetsRequests.get() > 0) {
+      LOG.debug(String.format("Call targets effectiveness: %d, %d, %d", myCallTargetsRequests.get(), myCallTargetsBuilds.get(),
+                              (myCallTargetsRequests.get() - myCallTargetsBuilds.get()) * 100 / myCallTargetsRequests.get()));
+    }
+    myCallTargetsRequests.set(0);
+    myCallTargetsBuilds.set(0);
   }
 
   @NotNull
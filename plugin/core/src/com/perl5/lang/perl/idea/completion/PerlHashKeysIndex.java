@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.completion;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.perl5.lang.perl.fileTypes.PurePerlFileType;
+import com.perl5.lang.perl.idea.PerlElementPatterns;
+import com.perl5.lang.perl.psi.PerlRecursiveVisitor;
+import com.perl5.lang.perl.psi.PerlString;
+import com.perl5.lang.perl.psi.PerlStringContentElement;
+import com.perl5.lang.perl.psi.PsiPerlAnonHash;
+import com.perl5.lang.perl.psi.PsiPerlCommaSequenceExpr;
+import com.perl5.lang.perl.psi.impl.PerlStringContentElementImpl;
+import com.perl5.lang.perl.psi.utils.PerlPsiUtil;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+import static com.perl5.lang.perl.parser.PerlParserUtil.IDENTIFIER_PATTERN;
+
+/**
+ * Index of identifier-like hash keys used in perl files: keys of simple hash indexes, like {@code $hash{key}}, and keys of anonymous
+ * hashes. Value is a number of key usages in the file.
+ */
+public class PerlHashKeysIndex extends FileBasedIndexExtension<String, Integer> implements PsiDependentIndex, PerlElementPatterns {
+  public static final ID<String, Integer> KEY = ID.create("perl.hash.keys");
+  private static final int VERSION = 1;
+
+  @NotNull
+  @Override
+  public ID<String, Integer> getName() {
+    return KEY;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Integer, FileContent> getIndexer() {
+    return inputData -> {
+      Map<String, Integer> result = new THashMap<>();
+      inputData.getPsiFile().accept(new PerlRecursiveVisitor() {
+        @Override
+        public void visitStringContentElement(@NotNull PerlStringContentElementImpl o) {
+          if (SIMPLE_HASH_INDEX.accepts(o)) {
+            processStringElement(o);
+          }
+          super.visitStringContentElement(o);
+        }
+
+        @Override
+        public void visitCommaSequenceExpr(@NotNull PsiPerlCommaSequenceExpr o) {
+          if (o.getParent() instanceof PsiPerlAnonHash) {
+            PsiElement sequenceElement = o.getFirstChild();
+            boolean isKey = true;
+
+            while (sequenceElement != null) {
+              ProgressManager.checkCanceled();
+              IElementType elementType = sequenceElement.getNode().getElementType();
+              if (isKey && sequenceElement instanceof PerlString) {
+                for (PerlStringContentElement stringElement : PerlPsiUtil.collectStringElements(sequenceElement)) {
+                  processStringElement(stringElement);
+                }
+              }
+              else if (elementType == COMMA || elementType == FAT_COMMA) {
+                isKey = !isKey;
+              }
+
+              sequenceElement = PerlPsiUtil.getNextSignificantSibling(sequenceElement);
+            }
+          }
+          super.visitCommaSequenceExpr(o);
+        }
+
+        private void processStringElement(@NotNull PerlStringContentElement stringContentElement) {
+          String text = stringContentElement.getText();
+          if (StringUtil.isNotEmpty(text) && IDENTIFIER_PATTERN.matcher(text).matches()) {
+            result.merge(text, 1, Integer::sum);
+          }
+        }
+      });
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<Integer> getValueExternalizer() {
+    return EnumeratorIntegerDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return file -> file.getFileType() instanceof PurePerlFileType;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Processes hash keys used in the project files and in the {@code contextFile}. Keys are filtered with project files filter, so keys
+   * left only in removed or excluded files are skipped by the index storage, without checking each key separately.
+   */
+  public static boolean processAllKeys(@NotNull Project project,
+                                       @Nullable VirtualFile contextFile,
+                                       @NotNull Processor<? super String> processor) {
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+    if (contextFile != null) {
+      scope = scope.union(GlobalSearchScope.fileScope(project, contextFile));
+    }
+    return FileBasedIndex.getInstance().processAllKeys(KEY, processor, scope, IdFilter.getProjectIdFilter(project, false));
+  }
+
+  /**
+   * @return hash keys used in the {@code virtualFile} with their usages numbers
+   */
+  @NotNull
+  public static Map<String, Integer> getFileKeys(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+    return FileBasedIndex.getInstance().getFileData(KEY, virtualFile, project);
+  }
+}
@@ -25,20 +25,14 @@ import java.util.HashSet;
 import java.util.Set;
 
 public class PerlStringCompletionCache {
-  private final Set<String> myHashIndexesCache = new HashSet<>();
   private final Set<String> myHeredocOpenersCache = new HashSet<>();
 
-  public Set<String> getHashIndexesCache() {
-    return myHashIndexesCache;
-  }
-
   public Set<String> getHeredocOpenersCache() {
     return myHeredocOpenersCache;
   }
 
   @TestOnly
   public void clear() {
-    myHashIndexesCache.clear();
     myHeredocOpenersCache.clear();
   }
 
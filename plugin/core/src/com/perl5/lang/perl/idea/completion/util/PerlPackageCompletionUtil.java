@@ -171,7 +171,7 @@ public class PerlPackageCompletionUtil {
 
 
   public static void fillWithAllPackageFiles(@NotNull PsiElement element, @NotNull final CompletionResultSet result) {
-    PerlPackageUtil.processPackageFilesForPsiElement(element, (packageName, file) -> {
+    PerlPackageUtil.processPackageFilesForPsiElement(element, result.getPrefixMatcher()::prefixMatches, (packageName, file) -> {
       result.addElement(PerlPackageCompletionUtil.getPackageLookupElement(file, packageName, null));
       return true;
     });
@@ -17,33 +17,33 @@
 package com.perl5.lang.perl.idea.completion.util;
 
 import com.intellij.codeInsight.completion.CompletionResultSet;
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.codeInsight.completion.PrioritizedLookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.lang.Language;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.perl5.PerlIcons;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlPackageOptionsProvider;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlPackageParentsProvider;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlPackageProcessor;
 import com.perl5.lang.perl.idea.PerlElementPatterns;
+import com.perl5.lang.perl.idea.completion.PerlHashKeysIndex;
 import com.perl5.lang.perl.idea.completion.PerlStringCompletionCache;
 import com.perl5.lang.perl.idea.intellilang.PerlInjectionMarkersService;
 import com.perl5.lang.perl.psi.*;
-import com.perl5.lang.perl.psi.impl.PerlStringContentElementImpl;
 import com.perl5.lang.perl.psi.impl.PerlUseStatementElement;
-import com.perl5.lang.perl.psi.utils.PerlPsiUtil;
 import com.perl5.lang.perl.util.PerlPackageUtil;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
-import static com.perl5.lang.perl.parser.PerlParserUtil.IDENTIFIER_PATTERN;
-
 
 public class PerlStringCompletionUtil implements PerlElementPatterns {
   public static final String[] REF_TYPES = new String[]{
@@ -60,57 +60,29 @@ public class PerlStringCompletionUtil implements PerlElementPatterns {
     "Regexp"
   };
 
+  /**
+   * Fills result with hash keys used in the project, keys used in the current file are preferred, most used first
+   */
   public static void fillWithHashIndexes(final @NotNull PsiElement element, @NotNull final CompletionResultSet result) {
-    Set<String> hashIndexesCache = PerlStringCompletionCache.getInstance(element.getProject()).getHashIndexesCache();
-
-    for (String text : hashIndexesCache) {
-      result.addElement(LookupElementBuilder.create(text));
-    }
-
-    PsiFile file = element.getContainingFile();
-
-    file.accept(
-      new PerlRecursiveVisitor() {
-        @Override
-        public void visitStringContentElement(@NotNull PerlStringContentElementImpl o) {
-          if (o != element && SIMPLE_HASH_INDEX.accepts(o)) {
-            processStringElement(o);
-          }
-          super.visitStringContentElement(o);
-        }
-
-        @Override
-        public void visitCommaSequenceExpr(@NotNull PsiPerlCommaSequenceExpr o) {
-          if (o.getParent() instanceof PsiPerlAnonHash) {
-            PsiElement sequenceElement = o.getFirstChild();
-            boolean isKey = true;
-
-            while (sequenceElement != null) {
-              ProgressManager.checkCanceled();
-              IElementType elementType = sequenceElement.getNode().getElementType();
-              if (isKey && sequenceElement instanceof PerlString) {
-                for (PerlStringContentElement stringElement : PerlPsiUtil.collectStringElements(sequenceElement)) {
-                  processStringElement(stringElement);
-                }
-              }
-              else if (elementType == COMMA || elementType == FAT_COMMA) {
-                isKey = !isKey;
-              }
-
-              sequenceElement = PerlPsiUtil.getNextSignificantSibling(sequenceElement);
-            }
-          }
-          super.visitCommaSequenceExpr(o);
-        }
+    Project project = element.getProject();
+    VirtualFile virtualFile = element.getContainingFile().getOriginalFile().getVirtualFile();
+    Map<String, Integer> fileKeys = virtualFile == null ? Collections.emptyMap() : PerlHashKeysIndex.getFileKeys(project, virtualFile);
+    PrefixMatcher prefixMatcher = result.getPrefixMatcher();
+    String prefix = prefixMatcher.getPrefix();
+
+    fileKeys.forEach((key, usages) -> {
+      if (!key.equals(prefix) && prefixMatcher.prefixMatches(key)) {
+        result.addElement(PrioritizedLookupElement.withPriority(LookupElementBuilder.create(key), usages));
+      }
+    });
 
-        protected void processStringElement(PerlStringContentElement stringContentElement) {
-          String text = stringContentElement.getText();
-          if (StringUtil.isNotEmpty(text) && !hashIndexesCache.contains(text) && IDENTIFIER_PATTERN.matcher(text).matches()) {
-            hashIndexesCache.add(text);
-            result.addElement(LookupElementBuilder.create(stringContentElement, text));
-          }
-        }
-      });
+    PerlHashKeysIndex.processAllKeys(project, virtualFile, key -> {
+      ProgressManager.checkCanceled();
+      if (!key.equals(prefix) && !fileKeys.containsKey(key) && prefixMatcher.prefixMatches(key)) {
+        result.addElement(LookupElementBuilder.create(key));
+      }
+      return true;
+    });
   }
 
   public static void fillWithExportableEntities(@NotNull PsiElement element, @NotNull final CompletionResultSet result) {
@@ -189,7 +161,8 @@ public class PerlStringCompletionUtil implements PerlElementPatterns {
 
     if (packageProcessor instanceof PerlPackageParentsProvider &&
         ((PerlPackageParentsProvider)packageProcessor).hasPackageFilesOptions()) {
-      PerlPackageUtil.processPackageFilesForPsiElement(stringContentElement, (packageName, file) -> {
+      PrefixMatcher prefixMatcher = resultSet.getPrefixMatcher();
+      PerlPackageUtil.processPackageFilesForPsiElement(stringContentElement, prefixMatcher::prefixMatches, (packageName, file) -> {
         if (!typedStringsSet.contains(packageName)) {
           resultSet.addElement(PerlPackageCompletionUtil.getPackageLookupElement(file, packageName, null));
         }
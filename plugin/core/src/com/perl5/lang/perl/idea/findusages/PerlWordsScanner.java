@@ -16,21 +16,561 @@
 
 package com.perl5.lang.perl.idea.findusages;
 
-import com.intellij.lang.cacheBuilder.DefaultWordsScanner;
-import com.intellij.openapi.project.Project;
-import com.intellij.psi.tree.TokenSet;
-import com.perl5.lang.perl.PerlParserDefinition;
-import com.perl5.lang.perl.lexer.PerlElementTypes;
-import com.perl5.lang.perl.lexer.adapters.PerlMergingLexerAdapter;
-
-
-public class PerlWordsScanner extends DefaultWordsScanner implements PerlElementTypes {
-  public PerlWordsScanner() {
-    super(new PerlMergingLexerAdapter((Project)null),
-          PerlParserDefinition.IDENTIFIERS,
-          TokenSet.orSet(PerlParserDefinition.COMMENTS, TokenSet.create(POD)),
-          PerlParserDefinition.LITERALS
-    );
-    setMayHaveFileRefsInLiterals(true);
+import com.intellij.lang.cacheBuilder.WordOccurrence;
+import com.intellij.lang.cacheBuilder.WordsScanner;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass words scanner for the ids index. Instead of running the full lexer, it recognizes only constructs affecting the kind
+ * of words: comments, pod blocks, string and regex literals, heredocs and data sections. Everything else is considered to be a code.
+ */
+public class PerlWordsScanner implements WordsScanner {
+  private static final Set<String> QUOTE_LIKE_OPERATORS = ContainerUtil.newHashSet("q", "qq", "qw", "qx", "m", "qr", "s", "tr", "y");
+  private static final Set<String> INTERPOLATING_OPERATORS = ContainerUtil.newHashSet("qq", "qx");
+  private static final Set<String> REGEX_OPERATORS = ContainerUtil.newHashSet("m", "qr", "s", "tr", "y");
+  private static final Set<String> TWO_PARTS_OPERATORS = ContainerUtil.newHashSet("s", "tr", "y");
+  /**
+   * Barewords, after which slash starts a regex, not a division
+   */
+  private static final Set<String> OPERATOR_WORDS = ContainerUtil.newHashSet(
+    "and", "or", "not", "xor", "if", "unless", "while", "until", "return", "split", "grep", "map", "join", "push", "unshift", "when",
+    "eq", "ne", "lt", "gt", "le", "ge", "cmp", "x"
+  );
+
+  @Override
+  public void processWords(@NotNull CharSequence fileText, @NotNull Processor<? super WordOccurrence> processor) {
+    new Scanner(fileText, processor).scan();
+  }
+
+  private static final class Scanner {
+    @NotNull
+    private final CharSequence myText;
+    private final int myEnd;
+    @NotNull
+    private final Processor<? super WordOccurrence> myProcessor;
+    @NotNull
+    private final WordOccurrence myOccurrence;
+    @NotNull
+    private final List<HeredocMarker> myPendingHeredocs = new ArrayList<>();
+    private int myOffset;
+    private boolean myIsRegexAllowed = true;
+    private boolean myIsStopped;
+
+    Scanner(@NotNull CharSequence text, @NotNull Processor<? super WordOccurrence> processor) {
+      myText = text;
+      myEnd = text.length();
+      myProcessor = processor;
+      myOccurrence = new WordOccurrence(text, 0, 0, null);
+    }
+
+    void scan() {
+      while (myOffset < myEnd && !myIsStopped) {
+        char currentChar = myText.charAt(myOffset);
+        if (currentChar == '=' && isLineStart(myOffset) && myOffset + 1 < myEnd && isAsciiLetter(myText.charAt(myOffset + 1))) {
+          scanPod();
+        }
+        else if (currentChar == '\n') {
+          myOffset++;
+          if (!myPendingHeredocs.isEmpty()) {
+            scanHeredocBodies();
+          }
+        }
+        else if (Character.isWhitespace(currentChar)) {
+          myOffset++;
+        }
+        else if (currentChar == '#') {
+          int lineEnd = getLineEnd(myOffset);
+          emitWords(myOffset, lineEnd, WordOccurrence.Kind.COMMENTS, false);
+          myOffset = lineEnd;
+        }
+        else if (isIdentifierStart(currentChar)) {
+          scanBareword();
+        }
+        else if (Character.isDigit(currentChar)) {
+          int numberStart = myOffset;
+          myOffset = skipWordChars(myOffset, myEnd);
+          emitWords(numberStart, myOffset, WordOccurrence.Kind.CODE, false);
+          myIsRegexAllowed = false;
+        }
+        else if (currentChar == '$') {
+          scanScalarSigil();
+        }
+        else if (currentChar == '\'') {
+          int closeOffset = findClosingDelimiter(myOffset + 1, '\'', '\'');
+          emitWords(myOffset + 1, closeOffset, WordOccurrence.Kind.LITERALS, true);
+          myOffset = closeOffset + 1;
+          myIsRegexAllowed = false;
+        }
+        else if (currentChar == '"' || currentChar == '`') {
+          int closeOffset = findClosingDelimiter(myOffset + 1, currentChar, currentChar);
+          emitInterpolatedWords(myOffset + 1, closeOffset);
+          myOffset = closeOffset + 1;
+          myIsRegexAllowed = false;
+        }
+        else if (currentChar == '/') {
+          scanSlash();
+        }
+        else if (currentChar == '<' && myOffset + 1 < myEnd && myText.charAt(myOffset + 1) == '<' && scanHeredocOpener()) {
+          myIsRegexAllowed = false;
+        }
+        else {
+          myOffset++;
+          myIsRegexAllowed = currentChar != ')' && currentChar != ']' && currentChar != '}';
+        }
+      }
+    }
+
+    /**
+     * Scans identifier or qualified name at the current offset, including quote-like operators with their bodies
+     */
+    private void scanBareword() {
+      int wordStart = myOffset;
+      myOffset = skipQualifiedName(myOffset, myEnd);
+      int wordLength = myOffset - wordStart;
+      if (wordLength == 7 || wordLength == 8) {
+        String word = myText.subSequence(wordStart, myOffset).toString();
+        if ("__END__".equals(word) || "__DATA__".equals(word)) {
+          emitWords(wordStart, myOffset, WordOccurrence.Kind.CODE, false);
+          emitWords(myOffset, myEnd, WordOccurrence.Kind.COMMENTS, false);
+          myOffset = myEnd;
+          return;
+        }
+      }
+
+      emitWords(wordStart, myOffset, WordOccurrence.Kind.CODE, false);
+      if (!isQuoteLikeOperatorPosition(wordStart) || isHashKey(wordStart, myOffset)) {
+        // variable name, method name or hash key are operands, not operators
+        myIsRegexAllowed = false;
+        return;
+      }
+      if (wordLength <= 2) {
+        String word = myText.subSequence(wordStart, myOffset).toString();
+        if (QUOTE_LIKE_OPERATORS.contains(word)) {
+          int delimiterOffset = skipWhitespaces(myOffset);
+          if (isQuoteLikeDelimiter(delimiterOffset, delimiterOffset > myOffset)) {
+            scanQuoteLikeBody(word, delimiterOffset);
+            return;
+          }
+        }
+        myIsRegexAllowed = OPERATOR_WORDS.contains(word);
+      }
+      else {
+        myIsRegexAllowed = wordLength <= 7 && OPERATOR_WORDS.contains(myText.subSequence(wordStart, myOffset).toString());
+      }
+    }
+
+    /**
+     * @return false if bareword at {@code wordStart} is a variable name, method name, hash key or file test operator
+     */
+    private boolean isQuoteLikeOperatorPosition(int wordStart) {
+      if (wordStart == 0) {
+        return true;
+      }
+      char prevChar = myText.charAt(wordStart - 1);
+      return prevChar != '$' && prevChar != '@' && prevChar != '%' && prevChar != '&' && prevChar != '*' &&
+             prevChar != '-' && prevChar != '>' && prevChar != ':' && prevChar != '#';
+    }
+
+    /**
+     * @return true iff bareword between {@code wordStart} and {@code wordEnd} is surrounded with braces, like {@code $hash{key}}
+     */
+    private boolean isHashKey(int wordStart, int wordEnd) {
+      int prevOffset = wordStart - 1;
+      while (prevOffset >= 0 && Character.isWhitespace(myText.charAt(prevOffset))) {
+        prevOffset--;
+      }
+      if (prevOffset < 0 || myText.charAt(prevOffset) != '{') {
+        return false;
+      }
+      int nextOffset = skipWhitespaces(wordEnd);
+      return nextOffset < myEnd && myText.charAt(nextOffset) == '}';
+    }
+
+    private boolean isQuoteLikeDelimiter(int offset, boolean afterWhitespace) {
+      if (offset >= myEnd) {
+        return false;
+      }
+      char delimiter = myText.charAt(offset);
+      if (delimiter == '=') {
+        return offset + 1 < myEnd && myText.charAt(offset + 1) != '>';
+      }
+      if (delimiter == '#') {
+        return !afterWhitespace;
+      }
+      return !isWordChar(delimiter) && !Character.isWhitespace(delimiter) &&
+             delimiter != ',' && delimiter != ';' && delimiter != ')' && delimiter != ']' && delimiter != '}' && delimiter != '>';
+    }
+
+    private void scanQuoteLikeBody(@NotNull String operator, int delimiterOffset) {
+      char openDelimiter = myText.charAt(delimiterOffset);
+      char closeDelimiter = getClosingDelimiter(openDelimiter);
+      int closeOffset = findClosingDelimiter(delimiterOffset + 1, openDelimiter, closeDelimiter);
+      emitQuoteLikePart(operator, delimiterOffset + 1, closeOffset);
+      myOffset = closeOffset + 1;
+
+      if (TWO_PARTS_OPERATORS.contains(operator) && myOffset < myEnd) {
+        if (openDelimiter == closeDelimiter) {
+          closeOffset = findClosingDelimiter(myOffset, openDelimiter, closeDelimiter);
+          emitWords(myOffset, closeOffset, WordOccurrence.Kind.CODE, false);
+          myOffset = closeOffset + 1;
+        }
+        else {
+          int secondDelimiterOffset = skipWhitespaces(myOffset);
+          if (secondDelimiterOffset < myEnd) {
+            openDelimiter = myText.charAt(secondDelimiterOffset);
+            closeOffset = findClosingDelimiter(secondDelimiterOffset + 1, openDelimiter, getClosingDelimiter(openDelimiter));
+            emitWords(secondDelimiterOffset + 1, closeOffset, WordOccurrence.Kind.CODE, false);
+            myOffset = closeOffset + 1;
+          }
+        }
+      }
+
+      if (REGEX_OPERATORS.contains(operator)) {
+        skipRegexModifiers();
+      }
+      myIsRegexAllowed = false;
+    }
+
+    private void emitQuoteLikePart(@NotNull String operator, int start, int end) {
+      if (REGEX_OPERATORS.contains(operator)) {
+        emitWords(start, end, WordOccurrence.Kind.CODE, false);
+      }
+      else if (INTERPOLATING_OPERATORS.contains(operator)) {
+        emitInterpolatedWords(start, end);
+      }
+      else {
+        emitWords(start, end, WordOccurrence.Kind.LITERALS, true);
+      }
+    }
+
+    private void scanSlash() {
+      if (myIsRegexAllowed) {
+        int closeOffset = findClosingDelimiter(myOffset + 1, '/', '/');
+        emitWords(myOffset + 1, closeOffset, WordOccurrence.Kind.CODE, false);
+        myOffset = closeOffset + 1;
+        skipRegexModifiers();
+        myIsRegexAllowed = false;
+        return;
+      }
+      // division or defined-or operator
+      myOffset++;
+      if (myOffset < myEnd && myText.charAt(myOffset) == '/') {
+        myOffset++;
+      }
+      myIsRegexAllowed = true;
+    }
+
+    private void skipRegexModifiers() {
+      int modifiersStart = myOffset;
+      while (myOffset < myEnd && isAsciiLetter(myText.charAt(myOffset))) {
+        myOffset++;
+      }
+      emitWords(modifiersStart, myOffset, WordOccurrence.Kind.CODE, false);
+    }
+
+    /**
+     * Handles {@code $#array}, {@code $#{expr}} and punctuation variables, like {@code $"} or {@code $'}
+     */
+    private void scanScalarSigil() {
+      myIsRegexAllowed = false;
+      if (myOffset + 1 >= myEnd) {
+        myOffset++;
+        return;
+      }
+      char nextChar = myText.charAt(myOffset + 1);
+      if (isIdentifierStart(nextChar) || nextChar == '{' || nextChar == '$' || nextChar == ':' || nextChar == '^') {
+        myOffset++;
+      }
+      else {
+        myOffset += 2;
+      }
+    }
+
+    /**
+     * Registers heredoc opener at current offset
+     *
+     * @return true iff there was a heredoc opener
+     */
+    private boolean scanHeredocOpener() {
+      int offset = myOffset + 2;
+      boolean isIndentable = offset < myEnd && myText.charAt(offset) == '~';
+      if (isIndentable) {
+        offset++;
+      }
+      if (offset >= myEnd) {
+        return false;
+      }
+      char quote = myText.charAt(offset);
+      int markerStart;
+      int markerEnd;
+      if (quote == '"' || quote == '\'' || quote == '`') {
+        markerStart = offset + 1;
+        markerEnd = markerStart;
+        while (markerEnd < myEnd && myText.charAt(markerEnd) != quote && myText.charAt(markerEnd) != '\n') {
+          markerEnd++;
+        }
+        if (markerEnd >= myEnd || myText.charAt(markerEnd) != quote) {
+          return false;
+        }
+        myOffset = markerEnd + 1;
+      }
+      else if (isIdentifierStart(quote)) {
+        markerStart = offset;
+        markerEnd = skipWordChars(offset, myEnd);
+        myOffset = markerEnd;
+      }
+      else {
+        return false;
+      }
+      emitWords(markerStart, markerEnd, WordOccurrence.Kind.LITERALS, false);
+      myPendingHeredocs.add(new HeredocMarker(markerStart, markerEnd, quote != '\'', isIndentable));
+      return true;
+    }
+
+    /**
+     * Scans bodies of heredocs opened on the previous line. Current offset is expected to be at the line start
+     */
+    private void scanHeredocBodies() {
+      for (HeredocMarker marker : myPendingHeredocs) {
+        int bodyStart = myOffset;
+        int lineStart = myOffset;
+        int bodyEnd = myEnd;
+        int nextOffset = myEnd;
+        while (lineStart < myEnd) {
+          int lineEnd = getLineEnd(lineStart);
+          int markerStart = marker.isIndentable ? skipSpacesAndTabs(lineStart, lineEnd) : lineStart;
+          if (isHeredocTerminator(marker, markerStart, lineEnd)) {
+            bodyEnd = lineStart;
+            emitWords(markerStart, lineEnd, WordOccurrence.Kind.COMMENTS, false);
+            nextOffset = Math.min(lineEnd + 1, myEnd);
+            break;
+          }
+          lineStart = lineEnd + 1;
+        }
+        if (marker.isInterpolated) {
+          emitInterpolatedWords(bodyStart, bodyEnd);
+        }
+        else {
+          emitWords(bodyStart, bodyEnd, WordOccurrence.Kind.LITERALS, true);
+        }
+        myOffset = nextOffset;
+      }
+      myPendingHeredocs.clear();
+    }
+
+    private boolean isHeredocTerminator(@NotNull HeredocMarker marker, int start, int end) {
+      int markerLength = marker.myEnd - marker.myStart;
+      if (end - start != markerLength) {
+        return false;
+      }
+      for (int i = 0; i < markerLength; i++) {
+        if (myText.charAt(start + i) != myText.charAt(marker.myStart + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Scans pod block at the line start up to and including {@code =cut} line
+     */
+    private void scanPod() {
+      int podStart = myOffset;
+      int lineStart = myOffset;
+      int podEnd = myEnd;
+      while (lineStart < myEnd) {
+        int lineEnd = getLineEnd(lineStart);
+        if (lineEnd - lineStart >= 4 && myText.charAt(lineStart) == '=' && myText.charAt(lineStart + 1) == 'c' &&
+            myText.charAt(lineStart + 2) == 'u' && myText.charAt(lineStart + 3) == 't' &&
+            (lineEnd - lineStart == 4 || !isWordChar(myText.charAt(lineStart + 4)))) {
+          podEnd = lineEnd;
+          break;
+        }
+        lineStart = lineEnd + 1;
+      }
+      emitWords(podStart, podEnd, WordOccurrence.Kind.COMMENTS, false);
+      myOffset = podEnd;
+    }
+
+    /**
+     * Emits words of the interpolated string: variables names as code and the rest as literals
+     */
+    private void emitInterpolatedWords(int start, int end) {
+      end = Math.min(end, myEnd);
+      int textStart = start;
+      int offset = start;
+      while (offset < end) {
+        char currentChar = myText.charAt(offset);
+        if (currentChar == '\\') {
+          // escaped sigil; escape sequences are kept in text, like the lexer does
+          offset += 2;
+          continue;
+        }
+        if (currentChar == '$' || currentChar == '@') {
+          int nameStart = offset + 1;
+          while (nameStart < end && (myText.charAt(nameStart) == '$' || myText.charAt(nameStart) == '{')) {
+            nameStart++;
+          }
+          if (nameStart < end && isIdentifierStart(myText.charAt(nameStart))) {
+            emitWords(textStart, offset, WordOccurrence.Kind.LITERALS, true);
+            int nameEnd = skipQualifiedName(nameStart, end);
+            emitWords(nameStart, nameEnd, WordOccurrence.Kind.CODE, false);
+            offset = textStart = nameEnd;
+            continue;
+          }
+        }
+        offset++;
+      }
+      emitWords(textStart, end, WordOccurrence.Kind.LITERALS, true);
+    }
+
+    /**
+     * Splits range into words and feeds them to the processor
+     *
+     * @param isForeign true if words should be also reported as a foreign language, e.g. for possible file references in literals
+     */
+    private void emitWords(int start, int end, @NotNull WordOccurrence.Kind kind, boolean isForeign) {
+      end = Math.min(end, myEnd);
+      int offset = start;
+      while (offset < end && !myIsStopped) {
+        if (!isWordChar(myText.charAt(offset))) {
+          offset++;
+          continue;
+        }
+        int wordStart = offset;
+        offset = skipWordChars(offset, end);
+        myOccurrence.init(myText, wordStart, offset, kind);
+        if (!myProcessor.process(myOccurrence)) {
+          myIsStopped = true;
+          return;
+        }
+        if (isForeign) {
+          myOccurrence.init(myText, wordStart, offset, WordOccurrence.Kind.FOREIGN_LANGUAGE);
+          if (!myProcessor.process(myOccurrence)) {
+            myIsStopped = true;
+            return;
+          }
+        }
+      }
+    }
+
+    /**
+     * @return offset of the closing delimiter or the end of text. Handles escapes and nested brackets
+     */
+    private int findClosingDelimiter(int start, char openDelimiter, char closeDelimiter) {
+      int depth = 0;
+      for (int offset = start; offset < myEnd; offset++) {
+        char currentChar = myText.charAt(offset);
+        if (currentChar == '\\') {
+          offset++;
+        }
+        else if (currentChar == closeDelimiter) {
+          if (depth == 0) {
+            return offset;
+          }
+          depth--;
+        }
+        else if (currentChar == openDelimiter) {
+          depth++;
+        }
+      }
+      return myEnd;
+    }
+
+    private int skipQualifiedName(int start, int end) {
+      int offset = start;
+      while (true) {
+        offset = skipWordChars(offset, end);
+        if (offset + 1 < end && myText.charAt(offset) == ':' && myText.charAt(offset + 1) == ':') {
+          offset += 2;
+        }
+        else {
+          return offset;
+        }
+      }
+    }
+
+    private int skipWordChars(int start, int end) {
+      int offset = start;
+      while (offset < end && isWordChar(myText.charAt(offset))) {
+        offset++;
+      }
+      return offset;
+    }
+
+    private int skipWhitespaces(int start) {
+      int offset = start;
+      while (offset < myEnd && Character.isWhitespace(myText.charAt(offset))) {
+        offset++;
+      }
+      return offset;
+    }
+
+    private int skipSpacesAndTabs(int start, int end) {
+      int offset = start;
+      while (offset < end && (myText.charAt(offset) == ' ' || myText.charAt(offset) == '\t')) {
+        offset++;
+      }
+      return offset;
+    }
+
+    private int getLineEnd(int start) {
+      int offset = start;
+      while (offset < myEnd && myText.charAt(offset) != '\n') {
+        offset++;
+      }
+      return offset;
+    }
+
+    private boolean isLineStart(int offset) {
+      return offset == 0 || myText.charAt(offset - 1) == '\n';
+    }
+  }
+
+  private static final class HeredocMarker {
+    private final int myStart;
+    private final int myEnd;
+    private final boolean isInterpolated;
+    private final boolean isIndentable;
+
+    HeredocMarker(int start, int end, boolean interpolated, boolean indentable) {
+      myStart = start;
+      myEnd = end;
+      isInterpolated = interpolated;
+      isIndentable = indentable;
+    }
+  }
+
+  private static char getClosingDelimiter(char openDelimiter) {
+    switch (openDelimiter) {
+      case '(':
+        return ')';
+      case '{':
+        return '}';
+      case '[':
+        return ']';
+      case '<':
+        return '>';
+      default:
+        return openDelimiter;
+    }
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return c == '_' || Character.isLetter(c);
+  }
+
+  private static boolean isWordChar(char c) {
+    return c == '_' || Character.isLetterOrDigit(c);
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
   }
 }
@@ -19,7 +19,6 @@ package com.perl5.lang.perl.idea.formatter;
 import com.intellij.formatting.*;
 import com.intellij.lang.ASTNode;
 import com.intellij.openapi.editor.Document;
-import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -45,10 +44,10 @@ import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static com.intellij.formatting.WrapType.*;
 import static com.intellij.psi.codeStyle.CommonCodeStyleSettings.*;
@@ -119,7 +118,11 @@ public class PerlFormattingContext implements PerlFormattingTokenSets {
   private final PerlCodeStyleSettings myPerlSettings;
   @NotNull
   private final SpacingBuilder mySpacingBuilder;
-  private final List<TextRange> myHeredocRangesList = new ArrayList<>();
+  /**
+   * Heredoc ranges, from opener to the end of line, keyed by start offset. Ranges are either disjoint or share the line end, so
+   * nearest range starting before offset is the only candidate to contain it
+   */
+  private final TreeMap<Integer, Integer> myHeredocRangesMap = new TreeMap<>();
 
   /**
    * Elements that must have LF between them
@@ -178,9 +181,7 @@ public class PerlFormattingContext implements PerlFormattingTokenSets {
       }
     }
     else if (nodeType == HEREDOC_OPENER) {
-      myHeredocRangesList.add(
-        TextRange.create(node.getStartOffset() + 1, getDocument().getLineEndOffset(getNodeLine(node)))
-      );
+      myHeredocRangesMap.put(node.getStartOffset() + 1, getDocument().getLineEndOffset(getNodeLine(node)));
     }
 
     return node;
@@ -218,13 +219,8 @@ public class PerlFormattingContext implements PerlFormattingTokenSets {
    */
   public boolean isNewLineForbiddenAt(@NotNull ASTNode node) {
     int startOffset = node.getStartOffset();
-    for (TextRange range : myHeredocRangesList) {
-      if (range.contains(startOffset)) {
-        return true;
-      }
-    }
-
-    return false;
+    Map.Entry<Integer, Integer> rangeEntry = myHeredocRangesMap.floorEntry(startOffset);
+    return rangeEntry != null && startOffset < rangeEntry.getValue();
   }
 
 
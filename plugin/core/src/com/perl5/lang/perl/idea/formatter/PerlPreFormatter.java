@@ -77,6 +77,16 @@ public class PerlPreFormatter extends PerlRecursiveVisitor implements PerlCodeSt
     return TextRange.create(range.getStartOffset(), range.getEndOffset() + myDelta);
   }
 
+  /**
+   * Subtrees outside of the formatted range can't produce any operations, no need to walk them
+   */
+  @Override
+  public void visitElement(@NotNull PsiElement element) {
+    if (myRange.intersects(element.getTextRange())) {
+      super.visitElement(element);
+    }
+  }
+
   protected void removeElement(PsiElement o) {
     myFormattingOperations.add(new PerlFormattingRemove(o));
   }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.hierarchy.namespace;
+
+import com.intellij.ide.hierarchy.HierarchyNodeDescriptor;
+import com.intellij.ide.util.treeView.NodeDescriptor;
+import com.intellij.openapi.roots.ui.util.CompositeAppearance;
+import com.intellij.openapi.util.Comparing;
+import com.intellij.psi.PsiElement;
+import com.perl5.PerlBundle;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Groups a range of children of the namespace with too many sub-namespaces. Children of the page are computed on expansion
+ */
+public class PerlHierarchyPageNodeDescriptor extends HierarchyNodeDescriptor {
+  private final int myFrom;
+  private final int myTo;
+  private final int myTotal;
+
+  public PerlHierarchyPageNodeDescriptor(@NotNull NodeDescriptor parentDescriptor, @NotNull PsiElement element, int from, int to, int total) {
+    super(element.getProject(), parentDescriptor, element, false);
+    myFrom = from;
+    myTo = to;
+    myTotal = total;
+  }
+
+  /**
+   * @return index of the first child on this page
+   */
+  public int getFrom() {
+    return myFrom;
+  }
+
+  /**
+   * @return index after the last child on this page
+   */
+  public int getTo() {
+    return myTo;
+  }
+
+  /**
+   * Pages are sorted by weight first, so they keep the order of their ranges when hierarchy is sorted alphabetically
+   */
+  @Override
+  public int getWeight() {
+    return myFrom;
+  }
+
+  @Override
+  public boolean update() {
+    boolean result = super.update();
+    final CompositeAppearance oldText = myHighlightedText;
+
+    myHighlightedText = new CompositeAppearance();
+    myHighlightedText.getEnding().addText(PerlBundle.message("perl.hierarchy.page", myFrom + 1, myTo, myTotal),
+                                          HierarchyNodeDescriptor.getPackageNameAttributes());
+    myName = myHighlightedText.getText();
+
+    if (!Comparing.equal(myHighlightedText, oldText)) {
+      result = true;
+    }
+    return result;
+  }
+}
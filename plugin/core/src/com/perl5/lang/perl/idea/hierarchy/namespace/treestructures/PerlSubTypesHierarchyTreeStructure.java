@@ -19,18 +19,33 @@ package com.perl5.lang.perl.idea.hierarchy.namespace.treestructures;
 import com.intellij.ide.hierarchy.HierarchyNodeDescriptor;
 import com.intellij.ide.hierarchy.HierarchyTreeStructure;
 import com.intellij.ide.util.treeView.NodeDescriptor;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import com.perl5.lang.perl.idea.hierarchy.namespace.PerlHierarchyNodeDescriptor;
+import com.perl5.lang.perl.idea.hierarchy.namespace.PerlHierarchyPageNodeDescriptor;
 import com.perl5.lang.perl.psi.PerlNamespaceDefinitionElement;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public class PerlSubTypesHierarchyTreeStructure extends HierarchyTreeStructure {
+  /**
+   * Maximum number of children shown directly under the node. Bigger sets of children are split into pages, computed on expansion
+   */
+  static final int PAGE_SIZE = 200;
+
+  /**
+   * Children counts per element, computed once per hierarchy
+   */
+  private final Map<PsiElement, Integer> myChildrenCounts = ContainerUtil.createConcurrentWeakMap();
+
   public PerlSubTypesHierarchyTreeStructure(@NotNull PsiElement element) {
     this(element.getProject(), new PerlHierarchyNodeDescriptor(null, element, true));
   }
@@ -42,21 +57,75 @@ public class PerlSubTypesHierarchyTreeStructure extends HierarchyTreeStructure {
   @NotNull
   @Override
   protected Object[] buildChildren(@NotNull HierarchyNodeDescriptor descriptor) {
-    List<PerlHierarchyNodeDescriptor> result = new ArrayList<>();
+    if (descriptor instanceof PerlHierarchyPageNodeDescriptor) {
+      PerlHierarchyPageNodeDescriptor pageDescriptor = (PerlHierarchyPageNodeDescriptor)descriptor;
+      PsiElement element = pageDescriptor.getPsiElement();
+      return element == null ? ArrayUtil.EMPTY_OBJECT_ARRAY :
+             buildChildren(pageDescriptor, element, pageDescriptor.getFrom(), pageDescriptor.getTo());
+    }
 
-    if (descriptor instanceof PerlHierarchyNodeDescriptor) {
-      PsiElement element = ((PerlHierarchyNodeDescriptor)descriptor).getPerlElement();
-      for (PsiElement childElement : getSubElements(element)) {
-        result.add(createDescriptor(descriptor, childElement, false));
-      }
+    if (!(descriptor instanceof PerlHierarchyNodeDescriptor)) {
+      return ArrayUtil.EMPTY_OBJECT_ARRAY;
+    }
+
+    PsiElement element = ((PerlHierarchyNodeDescriptor)descriptor).getPerlElement();
+    if (element == null) {
+      return ArrayUtil.EMPTY_OBJECT_ARRAY;
+    }
+
+    int childrenCount = getChildrenCount(element);
+    if (childrenCount <= PAGE_SIZE) {
+      return buildChildren(descriptor, element, 0, childrenCount);
+    }
+
+    List<PerlHierarchyPageNodeDescriptor> result = new ArrayList<>();
+    for (int from = 0; from < childrenCount; from += PAGE_SIZE) {
+      result.add(new PerlHierarchyPageNodeDescriptor(descriptor, element, from, Math.min(from + PAGE_SIZE, childrenCount), childrenCount));
     }
+    return result.toArray();
+  }
 
+  /**
+   * @return descriptors for children of {@code element} from {@code from} inclusive to {@code to} exclusive
+   */
+  @NotNull
+  private Object[] buildChildren(@NotNull NodeDescriptor parentDescriptor, @NotNull PsiElement element, int from, int to) {
+    if (from >= to) {
+      return ArrayUtil.EMPTY_OBJECT_ARRAY;
+    }
+    List<PerlHierarchyNodeDescriptor> result = new ArrayList<>();
+    int[] index = new int[]{0};
+    processSubElements(element, it -> {
+      ProgressManager.checkCanceled();
+      if (index[0]++ >= from) {
+        result.add(createDescriptor(parentDescriptor, it, false));
+      }
+      return index[0] < to;
+    });
     return result.toArray();
   }
 
-  protected Collection<PsiElement> getSubElements(PsiElement element) {
+  private int getChildrenCount(@NotNull PsiElement element) {
+    Integer cachedCount = myChildrenCounts.get(element);
+    if (cachedCount != null) {
+      return cachedCount;
+    }
+    int[] counter = new int[]{0};
+    processSubElements(element, it -> {
+      ProgressManager.checkCanceled();
+      counter[0]++;
+      return true;
+    });
+    myChildrenCounts.put(element, counter[0]);
+    return counter[0];
+  }
+
+  /**
+   * Processes children elements of the {@code element} in a stable order
+   */
+  protected boolean processSubElements(@NotNull PsiElement element, @NotNull Processor<? super PsiElement> processor) {
     assert element instanceof PerlNamespaceDefinitionElement;
-    return new ArrayList<>(((PerlNamespaceDefinitionElement)element).getChildNamespaceDefinitions());
+    return ((PerlNamespaceDefinitionElement)element).processChildNamespaceDefinitions(processor);
   }
 
   protected PerlHierarchyNodeDescriptor createDescriptor(NodeDescriptor parentDescriptor, PsiElement element, boolean isBase) {
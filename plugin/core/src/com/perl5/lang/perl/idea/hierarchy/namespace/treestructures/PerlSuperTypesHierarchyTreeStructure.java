@@ -17,12 +17,11 @@
 package com.perl5.lang.perl.idea.hierarchy.namespace.treestructures;
 
 import com.intellij.psi.PsiElement;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import com.perl5.lang.perl.psi.PerlNamespaceDefinitionElement;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 
 public class PerlSuperTypesHierarchyTreeStructure extends PerlSubTypesHierarchyTreeStructure {
   public PerlSuperTypesHierarchyTreeStructure(@NotNull PsiElement element) {
@@ -30,8 +29,8 @@ public class PerlSuperTypesHierarchyTreeStructure extends PerlSubTypesHierarchyT
   }
 
   @Override
-  protected Collection<PsiElement> getSubElements(PsiElement element) {
+  protected boolean processSubElements(@NotNull PsiElement element, @NotNull Processor<? super PsiElement> processor) {
     assert element instanceof PerlNamespaceDefinitionElement;
-    return new ArrayList<>(((PerlNamespaceDefinitionElement)element).getParentNamespaceDefinitions());
+    return ContainerUtil.process(((PerlNamespaceDefinitionElement)element).getParentNamespaceDefinitions(), processor);
   }
 }
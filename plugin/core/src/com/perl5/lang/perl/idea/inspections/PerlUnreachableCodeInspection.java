@@ -16,15 +16,11 @@
 
 package com.perl5.lang.perl.idea.inspections;
 
-import com.intellij.codeInsight.controlflow.ControlFlowUtil;
-import com.intellij.codeInsight.controlflow.Instruction;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.tree.TokenSet;
-import com.intellij.psi.util.PsiUtilCore;
 import com.perl5.PerlBundle;
-import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowBuilder;
+import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowSummary;
 import com.perl5.lang.perl.psi.PerlSubDefinitionElement;
 import com.perl5.lang.perl.psi.PerlVisitor;
 import org.jetbrains.annotations.NotNull;
@@ -32,14 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import java.util.HashSet;
 import java.util.Set;
 
-import static com.perl5.lang.perl.lexer.PerlElementTypesGenerated.*;
-
 public class PerlUnreachableCodeInspection extends PerlInspection {
-  private TokenSet TRANSPARENT_ELEMENTS = TokenSet.create(
-    COMMA_SEQUENCE_EXPR, DO_EXPR, PARENTHESISED_EXPR, DEREF_EXPR, SUB_EXPR, SUB_DEFINITION, METHOD_DEFINITION, FUNC_DEFINITION,
-    LP_OR_XOR_EXPR, EVAL_EXPR
-  );
-
   @NotNull
   @Override
   public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
@@ -47,30 +36,10 @@ public class PerlUnreachableCodeInspection extends PerlInspection {
     return new PerlVisitor() {
       @Override
       public void visitPerlSubDefinitionElement(@NotNull PerlSubDefinitionElement o) {
-        PerlControlFlowBuilder.iteratePrev(o, instruction -> {
-          if (instruction.allPred().isEmpty() && instruction.num() != 0) {
-            processInstruction(instruction);
+        for (PsiElement element : PerlControlFlowSummary.getFor(o).getUnreachableElements()) {
+          if (notifiedElements.add(element)) {
+            registerProblem(holder, element, PerlBundle.message("perl.inspection.unreachable.code"));
           }
-          return ControlFlowUtil.Operation.NEXT;
-        });
-      }
-
-      private void processInstruction(@NotNull Instruction instruction) {
-        PsiElement element = instruction.getElement();
-        if (element == null || !notifiedElements.add(element)) {
-          return;
-        }
-
-        if (TRANSPARENT_ELEMENTS.contains(PsiUtilCore.getElementType(element))) {
-          instruction.allSucc().forEach(it -> {
-            // this is just a weak check for next unreachable instruction
-            if (it.allPred().size() < 2) {
-              processInstruction(it);
-            }
-          });
-        }
-        else {
-          registerProblem(holder, element, PerlBundle.message("perl.inspection.unreachable.code"));
         }
       }
     };
@@ -41,6 +41,8 @@ import com.intellij.openapi.roots.SyntheticLibrary;
 import com.intellij.openapi.roots.ex.ProjectRootManagerEx;
 import com.intellij.openapi.util.AtomicNotNullLazyValue;
 import com.intellij.openapi.util.AtomicNullableLazyValue;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.*;
@@ -76,6 +78,7 @@ public class PerlProjectManager {
   private volatile AtomicNotNullLazyValue<List<VirtualFile>> mySdkLibraryRootsProvider;
   private volatile AtomicNotNullLazyValue<List<VirtualFile>> myLibraryRootsProvider;
   private volatile AtomicNotNullLazyValue<List<SyntheticLibrary>> myLibrariesProvider;
+  private final SimpleModificationTracker myModificationTracker = new SimpleModificationTracker();
 
   public PerlProjectManager(@NotNull Project project) {
     myProject = project;
@@ -128,6 +131,7 @@ public class PerlProjectManager {
   }
 
   private void resetProjectCaches() {
+    myModificationTracker.incModificationCount();
     myModulesRootsProvider.clear();
     myAllModulesMapProvider = AtomicNotNullLazyValue.createValue(() -> {
       ImmutableMapBuilder<VirtualFile, PerlSourceRootType> builder = ContainerUtil.immutableMapBuilder();
@@ -189,6 +193,14 @@ public class PerlProjectManager {
     });
   }
 
+  /**
+   * @return tracker incremented on every reset of the project roots, sdk and libraries caches
+   */
+  @NotNull
+  public ModificationTracker getModificationTracker() {
+    return myModificationTracker;
+  }
+
   public Map<VirtualFile, PerlSourceRootType> getAllModulesRoots() {
     return myAllModulesMapProvider.getValue();
   }
@@ -23,6 +23,7 @@ import com.intellij.execution.process.ProcessEvent;
 import com.intellij.execution.process.ProcessHandler;
 import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.projectRoots.Sdk;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.perl5.lang.perl.idea.execution.PerlCommandLine;
@@ -65,6 +66,8 @@ public class PerlDebugProfileState extends PerlDebugProfileStateBase {
 
   @Nullable
   private PerlHostData myHostData;
+  @NotNull
+  private String myHostIdentity = "local";
 
   public PerlDebugProfileState(ExecutionEnvironment environment) {
     super(environment);
@@ -81,7 +84,9 @@ public class PerlDebugProfileState extends PerlDebugProfileStateBase {
     ProcessHandler processHandler = super.startProcess();
     RunProfile runProfile = getEnvironment().getRunProfile();
     if (runProfile instanceof GenericPerlRunConfiguration) {
-      myHostData = PerlHostData.notNullFrom(((GenericPerlRunConfiguration)runProfile).getEffectiveSdk());
+      Sdk effectiveSdk = ((GenericPerlRunConfiguration)runProfile).getEffectiveSdk();
+      myHostData = PerlHostData.notNullFrom(effectiveSdk);
+      myHostIdentity = effectiveSdk.getName() + ":" + effectiveSdk.getHomePath();
     }
     else {
       myHostData = PerlHostHandler.getDefaultHandler().createData();
@@ -90,6 +95,12 @@ public class PerlDebugProfileState extends PerlDebugProfileStateBase {
     return processHandler;
   }
 
+  @NotNull
+  @Override
+  public String getHostIdentity() {
+    return myHostIdentity;
+  }
+
   @NotNull
   @Override
   public List<String> getAdditionalPerlParameters(@NotNull GenericPerlRunConfiguration perlRunConfiguration) {
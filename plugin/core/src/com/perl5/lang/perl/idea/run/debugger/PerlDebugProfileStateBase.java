@@ -49,6 +49,16 @@ public abstract class PerlDebugProfileStateBase extends PerlRunProfileState {
     return (PerlDebugOptions)getEnvironment().getRunProfile();
   }
 
+  /**
+   * @return identity of the debugged host and interpreter, sources fetched from the debugger are shared between sessions with the
+   * same identity
+   */
+  @NotNull
+  public String getHostIdentity() {
+    PerlDebugOptions debugOptions = getDebugOptions();
+    return debugOptions.getHostToConnect() + ":" + debugOptions.getRemoteProjectRoot();
+  }
+
   @Override
   public boolean isParallelRunAllowed() {
     return false;
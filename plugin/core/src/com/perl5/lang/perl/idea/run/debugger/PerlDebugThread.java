@@ -19,6 +19,7 @@ package com.perl5.lang.perl.idea.run.debugger;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
@@ -33,10 +34,11 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.concurrency.Semaphore;
+import com.intellij.util.ObjectUtils;
 import com.intellij.xdebugger.XDebugSession;
 import com.perl5.PerlBundle;
 import com.perl5.lang.perl.idea.project.PerlProjectManager;
+import com.perl5.lang.perl.idea.run.debugger.breakpoints.PerlBreakpointsSynchronizer;
 import com.perl5.lang.perl.idea.run.debugger.breakpoints.PerlLineBreakPointDescriptor;
 import com.perl5.lang.perl.idea.run.debugger.protocol.*;
 import com.perl5.lang.perl.idea.run.debugger.ui.PerlScriptsPanel;
@@ -56,13 +58,8 @@ import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.perl5.PerlBundle.PATH_TO_BUNDLE;
@@ -73,6 +70,8 @@ import static com.perl5.lang.perl.idea.run.debugger.protocol.PerlDebuggingEventR
 public class PerlDebugThread extends Thread {
   static final boolean DEV_MODE = false;
   private static final Logger LOG = Logger.getInstance(PerlDebugThread.class);
+  private static final String SOURCE_NOT_LOADED = "# Source could not be loaded...";
+  private static final long SOURCE_REQUEST_TIMEOUT_MS = 2000;
   private static Executor ourExecutor = Executors.newSingleThreadExecutor();
   private final ExecutionResult myExecutionResult;
   private final Gson myGson;
@@ -85,13 +84,14 @@ public class PerlDebugThread extends Thread {
   private OutputStream myOutputStream;
   private InputStream myInputStream;
   private volatile boolean myStop = false;
-  private List<PerlLineBreakPointDescriptor> breakpointsDescriptorsQueue = new CopyOnWriteArrayList<>();
-  private boolean isReady = false;
+  private final PerlBreakpointsSynchronizer myBreakpointsSynchronizer = new PerlBreakpointsSynchronizer(this);
   private int transactionId = 0;
   private ConcurrentHashMap<Integer, PerlDebuggingTransactionHandler> transactionsMap =
     new ConcurrentHashMap<>();
   private ReentrantLock lock = new ReentrantLock();
   private PerlRemoteFileSystem myPerlRemoteFileSystem = PerlRemoteFileSystem.getInstance();
+  private final PerlRemoteSourcesCache mySourcesCache = PerlRemoteSourcesCache.getInstance();
+  private final Map<String, CompletableFuture<VirtualFile>> myRemoteSourcesRequests = new ConcurrentHashMap<>();
   private PerlDebugOptions myPerlDebugOptions;
 
   public PerlDebugThread(XDebugSession session, PerlDebugProfileStateBase state, ExecutionResult executionResult) {
@@ -107,23 +107,21 @@ public class PerlDebugThread extends Thread {
 
   public void queueLineBreakpointDescriptor(PerlLineBreakPointDescriptor descriptor) {
     if (descriptor != null) {
-      // fixme potentially risk of race condition between clear and add
-      breakpointsDescriptorsQueue.add(descriptor);
-      if (isReady) {
-        sendQueuedBreakpoints();
-      }
+      myBreakpointsSynchronizer.queue(descriptor);
     }
   }
 
-  protected void sendQueuedBreakpoints() {
-    sendCommand("b", breakpointsDescriptorsQueue);
-    breakpointsDescriptorsQueue.clear();
+  @NotNull
+  public PerlBreakpointsSynchronizer getBreakpointsSynchronizer() {
+    return myBreakpointsSynchronizer;
   }
 
   protected void setUpDebugger() {
-    PerlSetUpDescriptor perlSetUpDescriptor = new PerlSetUpDescriptor(breakpointsDescriptorsQueue, myDebugProfileState.getDebugOptions());
-    sendString(myGson.toJson(perlSetUpDescriptor));
-    breakpointsDescriptorsQueue.clear();
+    synchronized (myBreakpointsSynchronizer) {
+      PerlSetUpDescriptor perlSetUpDescriptor =
+        new PerlSetUpDescriptor(myBreakpointsSynchronizer.connected(), myDebugProfileState.getDebugOptions());
+      sendString(myGson.toJson(perlSetUpDescriptor));
+    }
   }
 
   private void print(@NotNull @PropertyKey(resourceBundle = PATH_TO_BUNDLE) String key, @NotNull Object... params) {
@@ -134,6 +132,8 @@ public class PerlDebugThread extends Thread {
   private void prepareAndConnect() throws ExecutionException, IOException, InterruptedException {
     myScriptListPanel.clear();
     myEvalsListPanel.clear();
+    myRemoteSourcesRequests.clear();
+    myBreakpointsSynchronizer.disconnected();
     WriteAction.runAndWait(() -> myPerlRemoteFileSystem.dropFiles());
 
     int debugPort = myDebugProfileState.getDebugPort();
@@ -244,7 +244,6 @@ public class PerlDebugThread extends Thread {
     if (newEvent != null) {
       if (newEvent instanceof PerlDebuggingEventReady) {
         if (((PerlDebuggingEventReady)newEvent).isValid()) {
-          isReady = true;
           setUpDebugger();
         }
         else {
@@ -404,31 +403,97 @@ public class PerlDebugThread extends Thread {
     return myEvalsListPanel;
   }
 
+  /**
+   * Requests sources for all {@code remotePaths} we don't have yet at once, without waiting for responses one by one
+   */
+  public void prefetchRemoteSources(@NotNull Collection<String> remotePaths) {
+    if (mySocket == null) {
+      return;
+    }
+    for (String remotePath : remotePaths) {
+      if (myPerlRemoteFileSystem.findFileByPath(remotePath) == null) {
+        myRemoteSourcesRequests.computeIfAbsent(remotePath, this::requestRemoteSource);
+      }
+    }
+  }
+
   @Nullable
   public VirtualFile loadRemoteSource(String filePath) {
     if (DEV_MODE) {
       LOG.debug("Loading file " + filePath);
     }
-    final Semaphore responseSemaphore = new Semaphore();
-    responseSemaphore.down();
-
-    final String[] response = new String[]{"# Source could not be loaded..."};
 
-    PerlDebuggingTransactionHandler perlDebuggingTransactionHandler = new PerlDebuggingTransactionHandler() {
+    CompletableFuture<VirtualFile> request = myRemoteSourcesRequests.computeIfAbsent(filePath, this::requestRemoteSource);
+    try {
+      return request.get(SOURCE_REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException | java.util.concurrent.ExecutionException | TimeoutException e) {
+      LOG.warn("Unable to load source for " + filePath + ": " + e);
+      myRemoteSourcesRequests.remove(filePath, request);
+      return myPerlRemoteFileSystem.registerRemoteFile(filePath, SOURCE_NOT_LOADED);
+    }
+  }
 
+  /**
+   * Requests the digest of the {@code filePath} source first and uses the source stored by previous sessions if digests match,
+   * otherwise requests the source itself and stores it. Debuggers not supporting digest requests respond with the source at once.
+   */
+  @NotNull
+  private CompletableFuture<VirtualFile> requestRemoteSource(@NotNull String filePath) {
+    CompletableFuture<VirtualFile> result = new CompletableFuture<>();
+    if (mySocket == null) {
+      result.complete(myPerlRemoteFileSystem.registerRemoteFile(filePath, SOURCE_NOT_LOADED));
+      return result;
+    }
+    if (!PerlRemoteSourcesCache.isCacheable(filePath)) {
+      requestRemoteSourceData(filePath, result);
+      return result;
+    }
+    String hostIdentity = myDebugProfileState.getHostIdentity();
+    sendCommandAndGetResponse("get_source", new PerlSourceRequestDescriptor(filePath, true), new PerlDebuggingTransactionHandler() {
       @Override
       public void run(JsonObject eventObject, JsonDeserializationContext jsonDeserializationContext) {
-        response[0] = eventObject.getAsJsonPrimitive("data").getAsString();
-        responseSemaphore.up();
+        String source = getSourceData(eventObject);
+        if (source != null) {
+          mySourcesCache.storeSource(hostIdentity, filePath, source);
+          result.complete(myPerlRemoteFileSystem.registerRemoteFile(filePath, source));
+          return;
+        }
+        JsonElement digest = eventObject.get("digest");
+        String cachedSource = digest == null || digest.isJsonNull() ? null :
+                              mySourcesCache.getSource(hostIdentity, filePath, digest.getAsString());
+        if (cachedSource != null) {
+          result.complete(myPerlRemoteFileSystem.registerRemoteFile(filePath, cachedSource));
+        }
+        else {
+          requestRemoteSourceData(filePath, result);
+        }
       }
-    };
+    });
+    return result;
+  }
 
-    if (mySocket != null) {
-      sendCommandAndGetResponse("get_source", new PerlSourceRequestDescriptor(filePath), perlDebuggingTransactionHandler);
-      responseSemaphore.waitFor(2000);
-    }
+  /**
+   * Requests the source of the {@code filePath}, stores it and completes the {@code result} with it
+   */
+  private void requestRemoteSourceData(@NotNull String filePath, @NotNull CompletableFuture<VirtualFile> result) {
+    String hostIdentity = myDebugProfileState.getHostIdentity();
+    sendCommandAndGetResponse("get_source", new PerlSourceRequestDescriptor(filePath, false), new PerlDebuggingTransactionHandler() {
+      @Override
+      public void run(JsonObject eventObject, JsonDeserializationContext jsonDeserializationContext) {
+        String source = getSourceData(eventObject);
+        if (source != null) {
+          mySourcesCache.storeSource(hostIdentity, filePath, source);
+        }
+        result.complete(myPerlRemoteFileSystem.registerRemoteFile(filePath, ObjectUtils.notNull(source, SOURCE_NOT_LOADED)));
+      }
+    });
+  }
 
-    return myPerlRemoteFileSystem.registerRemoteFile(filePath, response[0]);
+  @Nullable
+  private static String getSourceData(@NotNull JsonObject eventObject) {
+    JsonElement data = eventObject.get("data");
+    return data == null || data.isJsonNull() ? null : data.getAsString();
   }
 
   public PerlDebugProfileStateBase getDebugProfileState() {
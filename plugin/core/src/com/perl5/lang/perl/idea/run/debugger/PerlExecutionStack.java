@@ -22,8 +22,11 @@ import com.intellij.xdebugger.frame.XStackFrame;
 import com.perl5.lang.perl.idea.run.debugger.protocol.PerlStackFrameDescriptor;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 
 public class PerlExecutionStack extends XExecutionStack {
@@ -33,9 +36,16 @@ public class PerlExecutionStack extends XExecutionStack {
   public PerlExecutionStack(PerlStackFrameDescriptor[] frames, PerlSuspendContext suspendContext) {
     super("");
     mySuspendContext = suspendContext;
+    PerlDebugThread debugThread = suspendContext.getDebugThread();
+    Set<String> remotePaths = new LinkedHashSet<>();
     for (PerlStackFrameDescriptor stackFrameDescriptor : frames) {
       myPerlStackFrames.add(new PerlStackFrame(stackFrameDescriptor, this));
+      String remotePath = stackFrameDescriptor.getFileDescriptor().getPath();
+      if (!new File(debugThread.getDebugProfileState().mapPathToLocal(remotePath)).isFile()) {
+        remotePaths.add(remotePath);
+      }
     }
+    debugThread.prefetchRemoteSources(remotePaths);
   }
 
   @Nullable
@@ -23,12 +23,12 @@ import com.intellij.openapi.vfs.VirtualFileSystem;
 import com.intellij.testFramework.LightVirtualFile;
 import com.perl5.lang.perl.fileTypes.PerlFileTypeScript;
 import com.perl5.lang.perl.idea.run.debugger.protocol.PerlStackFrameDescriptor;
-import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Clone of mock file system
@@ -36,7 +36,7 @@ import java.util.Map;
 public class PerlRemoteFileSystem extends DeprecatedVirtualFileSystem {
   public static final String PROTOCOL = "perl5_remote";
   public static final String PROTOCOL_PREFIX = "perl5_remote://";
-  private Map<String, VirtualFile> virtualFilesMap = new THashMap<>();
+  private final Map<String, VirtualFile> virtualFilesMap = new ConcurrentHashMap<>();
 
   @Override
   @Nullable
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.debugger;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.perl5.lang.perl.idea.run.debugger.protocol.PerlStackFrameDescriptor;
+import com.perl5.lang.perl.util.PerlPluginUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Persistent content-addressed storage of sources fetched from the debugged processes, shared between debugging sessions. Sources
+ * are stored by identity of the debugged host and interpreter, remote path and SHA-1 digest of the content, so stored source is
+ * reused only when the debugger reports the same digest for the same path on the same host. Only the latest source is kept for
+ * each path. Evals are not cached, their names are not stable between runs.
+ */
+public final class PerlRemoteSourcesCache {
+  private static final Logger LOG = Logger.getInstance(PerlRemoteSourcesCache.class);
+  private static final String SOURCES_DIR = "debugger_sources";
+  private static final PerlRemoteSourcesCache INSTANCE = new PerlRemoteSourcesCache();
+
+  private PerlRemoteSourcesCache() {
+  }
+
+  /**
+   * @return stored source of {@code remotePath} from the {@code hostIdentity} with {@code digest} or null if there is no such source
+   */
+  @Nullable
+  public String getSource(@NotNull String hostIdentity, @NotNull String remotePath, @Nullable String digest) {
+    if (StringUtil.isEmpty(digest) || !isCacheable(remotePath)) {
+      return null;
+    }
+    File sourceFile = new File(getPathDirectory(hostIdentity, remotePath), digest);
+    if (!sourceFile.isFile()) {
+      return null;
+    }
+    try {
+      String source = FileUtil.loadFile(sourceFile, StandardCharsets.UTF_8);
+      return digest.equals(computeDigest(source)) ? source : null;
+    }
+    catch (IOException e) {
+      LOG.warn("Error reading cached source of " + remotePath, e);
+      return null;
+    }
+  }
+
+  /**
+   * Stores {@code source} of {@code remotePath} from {@code hostIdentity}, replacing previously stored one
+   */
+  public void storeSource(@NotNull String hostIdentity, @NotNull String remotePath, @NotNull String source) {
+    if (!isCacheable(remotePath)) {
+      return;
+    }
+    String digest = computeDigest(source);
+    if (digest.isEmpty()) {
+      return;
+    }
+    File pathDirectory = getPathDirectory(hostIdentity, remotePath);
+    File sourceFile = new File(pathDirectory, digest);
+    if (sourceFile.isFile()) {
+      return;
+    }
+    FileUtil.delete(pathDirectory);
+    try {
+      FileUtil.writeToFile(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+    }
+    catch (IOException e) {
+      LOG.warn("Error caching source of " + remotePath, e);
+      FileUtil.delete(sourceFile);
+    }
+  }
+
+  @NotNull
+  private static File getPathDirectory(@NotNull String hostIdentity, @NotNull String remotePath) {
+    return new File(FileUtil.join(PerlPluginUtil.getPerlSystemPath(), SOURCES_DIR, computeDigest(hostIdentity)), computeDigest(remotePath));
+  }
+
+  /**
+   * @return hex SHA-1 of the {@code text} or empty string if SHA-1 is not available
+   */
+  @NotNull
+  static String computeDigest(@NotNull String text) {
+    try {
+      return StringUtil.toHexString(MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+    catch (NoSuchAlgorithmException e) {
+      LOG.error(e);
+      return "";
+    }
+  }
+
+  static boolean isCacheable(@NotNull String remotePath) {
+    return !remotePath.startsWith(PerlStackFrameDescriptor.EVAL_PREFIX);
+  }
+
+  @NotNull
+  public static PerlRemoteSourcesCache getInstance() {
+    return INSTANCE;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.debugger.breakpoints;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.perl5.lang.perl.idea.run.debugger.PerlDebugThread;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps line breakpoints of the debugger in sync with the Perl side. Changes are coalesced per breakpoint location and sent in
+ * batches, containing only breakpoints that differ from the ones already sent. On (re)connection all desired breakpoints are sent
+ * with set up data.
+ * <p>
+ * Sent breakpoint is considered to be set, without waiting for {@code BREAKPOINT_SET} event: Perl side acknowledges breakpoints in
+ * files that are not loaded yet only when they are loaded, which may never happen, and breakpoints are processed by it in order of
+ * sending. Only {@code BREAKPOINT_DENIED} event rolls back the sent state of the location, see {@link #denied(String, int)}
+ */
+public class PerlBreakpointsSynchronizer {
+  /**
+   * Delay to collect a burst of breakpoints changes, e.g. muting or removing all breakpoints from the file
+   */
+  private static final long FLUSH_DELAY_MS = 50;
+
+  @NotNull
+  private final Consumer<? super List<PerlLineBreakPointDescriptor>> mySender;
+  @NotNull
+  private final Consumer<Runnable> myFlushScheduler;
+  /**
+   * Breakpoints that should be set on the Perl side
+   */
+  private final Map<String, PerlLineBreakPointDescriptor> myDesiredBreakpoints = new LinkedHashMap<>();
+  /**
+   * Breakpoints sent to the Perl side in current connection and not denied by it
+   */
+  private final Map<String, PerlLineBreakPointDescriptor> mySentBreakpoints = new LinkedHashMap<>();
+  /**
+   * Latest not yet sent change for each location
+   */
+  private final Map<String, PerlLineBreakPointDescriptor> myChanges = new LinkedHashMap<>();
+  private boolean myConnected = false;
+  private boolean myFlushScheduled = false;
+
+  public PerlBreakpointsSynchronizer(@NotNull PerlDebugThread debugThread) {
+    this(delta -> debugThread.sendCommand("b", delta),
+         flush -> AppExecutorUtil.getAppScheduledExecutorService().schedule(flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * @param sender         sends a batch of changed breakpoints to the Perl side
+   * @param flushScheduler runs the flush later, after collecting a burst of changes
+   */
+  PerlBreakpointsSynchronizer(@NotNull Consumer<? super List<PerlLineBreakPointDescriptor>> sender,
+                              @NotNull Consumer<Runnable> flushScheduler) {
+    mySender = sender;
+    myFlushScheduler = flushScheduler;
+  }
+
+  public synchronized void queue(@NotNull PerlLineBreakPointDescriptor descriptor) {
+    String key = computeKey(descriptor.getPath(), descriptor.getLine());
+    if (descriptor.isRemove()) {
+      myDesiredBreakpoints.remove(key);
+    }
+    else {
+      myDesiredBreakpoints.put(key, descriptor);
+    }
+    myChanges.remove(key);
+    myChanges.put(key, descriptor);
+
+    if (myConnected && !myFlushScheduled) {
+      myFlushScheduled = true;
+      myFlushScheduler.accept(this::flush);
+    }
+  }
+
+  /**
+   * Marks Perl side as ready to accept breakpoints
+   *
+   * @return all breakpoints to be set on the fresh Perl side
+   */
+  @NotNull
+  public synchronized List<PerlLineBreakPointDescriptor> connected() {
+    myConnected = true;
+    myChanges.clear();
+    mySentBreakpoints.clear();
+    mySentBreakpoints.putAll(myDesiredBreakpoints);
+    return new ArrayList<>(myDesiredBreakpoints.values());
+  }
+
+  public synchronized void disconnected() {
+    myConnected = false;
+    mySentBreakpoints.clear();
+  }
+
+  /**
+   * Perl side refused to set a breakpoint at the location, so there is nothing to remove or update there. Next change of the
+   * location is sent even if it is the same as the denied one
+   */
+  public synchronized void denied(@NotNull String path, int line) {
+    mySentBreakpoints.remove(computeKey(path, line));
+  }
+
+  private synchronized void flush() {
+    myFlushScheduled = false;
+    if (!myConnected || myChanges.isEmpty()) {
+      return;
+    }
+    List<PerlLineBreakPointDescriptor> delta = new ArrayList<>();
+    for (Map.Entry<String, PerlLineBreakPointDescriptor> entry : myChanges.entrySet()) {
+      String key = entry.getKey();
+      PerlLineBreakPointDescriptor descriptor = entry.getValue();
+      PerlLineBreakPointDescriptor sentDescriptor = mySentBreakpoints.get(key);
+      if (descriptor.isRemove()) {
+        if (sentDescriptor != null) {
+          delta.add(descriptor);
+          mySentBreakpoints.remove(key);
+        }
+      }
+      else if (!descriptor.equals(sentDescriptor)) {
+        delta.add(descriptor);
+        mySentBreakpoints.put(key, descriptor);
+      }
+    }
+    myChanges.clear();
+
+    if (!delta.isEmpty()) {
+      mySender.accept(delta);
+    }
+  }
+
+  @NotNull
+  private static String computeKey(@NotNull String path, int line) {
+    return path + ':' + line;
+  }
+}
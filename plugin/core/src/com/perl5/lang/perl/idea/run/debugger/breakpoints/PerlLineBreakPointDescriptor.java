@@ -23,7 +23,11 @@ import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.breakpoints.SuspendPolicy;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
 import com.perl5.lang.perl.idea.run.debugger.PerlDebugThread;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+import java.util.Objects;
 
 
 public class PerlLineBreakPointDescriptor {
@@ -51,6 +55,48 @@ public class PerlLineBreakPointDescriptor {
     return condition;
   }
 
+  public boolean isRemove() {
+    return remove;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    PerlLineBreakPointDescriptor that = (PerlLineBreakPointDescriptor)o;
+
+    return line == that.line &&
+           enabled == that.enabled &&
+           remove == that.remove &&
+           suspend == that.suspend &&
+           Objects.equals(path, that.path) &&
+           Objects.equals(condition, that.condition) &&
+           Objects.equals(action, that.action);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, line, enabled, condition, remove, action, suspend);
+  }
+
+  @TestOnly
+  @NotNull
+  static PerlLineBreakPointDescriptor create(@NotNull String path, int line, boolean enabled, @NotNull String condition, boolean remove) {
+    PerlLineBreakPointDescriptor descriptor = new PerlLineBreakPointDescriptor();
+    descriptor.path = path;
+    descriptor.line = line;
+    descriptor.enabled = enabled;
+    descriptor.condition = condition;
+    descriptor.remove = remove;
+    descriptor.suspend = true;
+    return descriptor;
+  }
+
   @Nullable
   public static PerlLineBreakPointDescriptor createFromBreakpoint(XLineBreakpoint<PerlLineBreakpointProperties> breakpoint,
                                                                   PerlDebugThread debugThread) {
@@ -24,6 +24,12 @@ import org.jetbrains.annotations.NotNull;
 
 
 public class PerlDebuggingEventBreakpointDenied extends PerlDebuggingEventBreakpointBase {
+  @Override
+  public void run() {
+    getDebugThread().getBreakpointsSynchronizer().denied(getPath(), getLine());
+    super.run();
+  }
+
   @Override
   protected void processBreakPoint(@NotNull XLineBreakpoint breakpoint, XDebugSession session) {
     XDebuggerManager.getInstance(session.getProject()).getBreakpointManager().updateBreakpointPresentation(
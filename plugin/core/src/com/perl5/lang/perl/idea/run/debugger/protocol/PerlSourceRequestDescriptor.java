@@ -16,11 +16,18 @@
 
 package com.perl5.lang.perl.idea.run.debugger.protocol;
 
+import org.jetbrains.annotations.NotNull;
 
 public class PerlSourceRequestDescriptor {
   private final String path;
+  /**
+   * If true, debugger should respond with SHA-1 of the source in the {@code digest} field instead of the source itself. Debuggers not
+   * supporting this respond with the source in the {@code data} field.
+   */
+  private final boolean digestOnly;
 
-  public PerlSourceRequestDescriptor(String path) {
+  public PerlSourceRequestDescriptor(@NotNull String path, boolean digestOnly) {
     this.path = path;
+    this.digestOnly = digestOnly;
   }
 }
@@ -23,36 +23,62 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.ui.CollectionListModel;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.FileColorManager;
 import com.intellij.ui.ListCellRendererWrapper;
-import com.intellij.ui.SortedListModel;
+import com.intellij.ui.SearchTextField;
 import com.intellij.ui.components.JBList;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.ui.UIUtil;
 import com.perl5.lang.perl.fileTypes.PerlFileTypeScript;
 import com.perl5.lang.perl.idea.run.debugger.PerlDebugThread;
 import com.perl5.lang.perl.idea.run.debugger.PerlRemoteFileSystem;
 import com.perl5.lang.perl.idea.run.debugger.protocol.PerlLoadedFileDescriptor;
+import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-
+/**
+ * Filterable list of loaded files or evals. Changes may come from any thread, they are accumulated and applied to the list in
+ * batches on EDT.
+ */
 public class PerlScriptsPanel extends JPanel {
   private static final Comparator<PerlLoadedFileDescriptor> compareEntries =
     (o1, o2) -> StringUtil.compare(o1.getPresentableName(), o2.getPresentableName(), false);
   @NotNull
   private final Project myProject;
   private final PerlDebugThread myDebugThread;
-  private final SortedListModel<PerlLoadedFileDescriptor> myModel = SortedListModel.create(compareEntries);
+  private final CollectionListModel<PerlLoadedFileDescriptor> myModel = new CollectionListModel<>();
+  private final SearchTextField myFilterField = new SearchTextField(false);
+  /**
+   * All descriptors sorted with {@link #compareEntries}. EDT only.
+   */
+  @NotNull
+  private List<PerlLoadedFileDescriptor> myItems = new ArrayList<>();
+  /**
+   * Paths of {@link #myItems}. EDT only.
+   */
+  private final Set<String> myPaths = new THashSet<>();
+  /**
+   * Not yet applied changes: path to descriptor to add or to {@code null} for removal, latest change wins. Guarded by itself.
+   */
+  private final Map<String, PerlLoadedFileDescriptor> myPendingChanges = new LinkedHashMap<>();
+  /**
+   * True if list should be cleared before applying {@link #myPendingChanges}. Guarded by {@link #myPendingChanges}
+   */
+  private boolean myPendingClear = false;
+  private final AtomicBoolean myFlushScheduled = new AtomicBoolean();
 
   public PerlScriptsPanel(@NotNull Project project, PerlDebugThread debugThread) {
     super(new BorderLayout());
@@ -63,8 +89,8 @@ public class PerlScriptsPanel extends JPanel {
 
 
   @Nullable
-  private VirtualFile getVirtualFileByName(String virtualFileName) {
-    VirtualFile result = VfsUtil.findFileByIoFile(new File(virtualFileName), true);
+  private VirtualFile getVirtualFileByName(String virtualFileName, boolean refreshIfNeeded) {
+    VirtualFile result = VfsUtil.findFileByIoFile(new File(virtualFileName), refreshIfNeeded);
 
     if (result != null) {
       return result;
@@ -74,13 +100,13 @@ public class PerlScriptsPanel extends JPanel {
   }
 
   private void init() {
-    final JBList jbList = new JBList(myModel);
+    final JBList<PerlLoadedFileDescriptor> jbList = new JBList<>(myModel);
     jbList.setCellRenderer(new ListCellRendererWrapper<PerlLoadedFileDescriptor>() {
       @Override
       public void customize(JList list, PerlLoadedFileDescriptor fileDescriptor, int index, boolean selected, boolean hasFocus) {
         String remotePath = fileDescriptor.getPath();
         String localPath = myDebugThread.getDebugProfileState().mapPathToLocal(remotePath);
-        VirtualFile virtualFile = getVirtualFileByName(localPath);
+        VirtualFile virtualFile = getVirtualFileByName(localPath, false);
 
         setIcon(PerlFileTypeScript.INSTANCE.getIcon());
         setText(fileDescriptor.getPresentableName());
@@ -92,14 +118,23 @@ public class PerlScriptsPanel extends JPanel {
         }
       }
     });
+    // list measures every element unless cell height is fixed
+    JLabel sampleLabel = new JLabel("W", PerlFileTypeScript.INSTANCE.getIcon(), SwingConstants.LEFT);
+    sampleLabel.setFont(jbList.getFont());
+    Insets cellPadding = UIUtil.getListCellPadding();
+    jbList.setFixedCellHeight(sampleLabel.getPreferredSize().height + cellPadding.top + cellPadding.bottom);
+
     jbList.addMouseListener(new MouseAdapter() {
       @Override
       public void mouseClicked(MouseEvent e) {
         if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1) {
-          PerlLoadedFileDescriptor fileDescriptor = (PerlLoadedFileDescriptor)jbList.getSelectedValue();
+          PerlLoadedFileDescriptor fileDescriptor = jbList.getSelectedValue();
+          if (fileDescriptor == null) {
+            return;
+          }
           String remotePath = fileDescriptor.getPath();
           String localPath = myDebugThread.getDebugProfileState().mapPathToLocal(remotePath);
-          VirtualFile selectedVirtualFile = getVirtualFileByName(localPath);
+          VirtualFile selectedVirtualFile = getVirtualFileByName(localPath, true);
           if (selectedVirtualFile == null) {
             selectedVirtualFile = myDebugThread.loadRemoteSource(remotePath);
           }
@@ -111,70 +146,143 @@ public class PerlScriptsPanel extends JPanel {
       }
     });
 
+    myFilterField.addDocumentListener(new DocumentAdapter() {
+      @Override
+      protected void textChanged(@NotNull DocumentEvent e) {
+        updateModel();
+      }
+    });
+
+    add(myFilterField, BorderLayout.NORTH);
     add(new JBScrollPane(jbList), BorderLayout.CENTER);
   }
 
   public void clear() {
-    myModel.clear();
+    synchronized (myPendingChanges) {
+      myPendingChanges.clear();
+      myPendingClear = true;
+    }
+    scheduleFlush();
   }
 
   public void add(final PerlLoadedFileDescriptor value) {
-    ApplicationManager.getApplication().invokeLater(() -> {
-      if (myModel.indexOf(value) == -1) {
-        myModel.add(value);
-      }
-    });
+    bulkChange(Collections.singletonList(value), Collections.emptyList());
   }
 
   public void remove(final PerlLoadedFileDescriptor value) {
-    ApplicationManager.getApplication().invokeLater(() -> {
-      if (myModel.indexOf(value) != -1) {
-        myModel.remove(value);
-      }
-    });
+    bulkChange(Collections.emptyList(), Collections.singletonList(value));
   }
 
+  /**
+   * Queues removal of {@code toRemove} and then addition of {@code toAdd}. Adding a descriptor for a path we already have replaces it.
+   */
   public void bulkChange(final List<PerlLoadedFileDescriptor> toAdd, final List<PerlLoadedFileDescriptor> toRemove) {
-    // based on synthetic benchmarks, at 5000 items the performance of bulkChangeNow is definitely
-    // better than the naive method; the axact number might still need some tweaking
-    if (toAdd.size() + toRemove.size() < 5000) {
+    synchronized (myPendingChanges) {
       for (PerlLoadedFileDescriptor value : toRemove) {
-        remove(value);
+        putPendingChange(value.getPath(), null);
       }
       for (PerlLoadedFileDescriptor value : toAdd) {
-        add(value);
+        putPendingChange(value.getPath(), value);
       }
     }
-    else {
-      ApplicationManager.getApplication().invokeLater(() -> bulkChangeNow(toAdd, toRemove));
+    scheduleFlush();
+  }
+
+  private void putPendingChange(@NotNull String path, @Nullable PerlLoadedFileDescriptor value) {
+    // keeping order of changes for the same path
+    myPendingChanges.remove(path);
+    myPendingChanges.put(path, value);
+  }
+
+  private void scheduleFlush() {
+    if (myFlushScheduled.compareAndSet(false, true)) {
+      ApplicationManager.getApplication().invokeLater(this::flushPendingChanges);
     }
   }
 
-  // so the naive version is good for "small" added/removed; where the exact value needs to be determined with benchamrks;
-  // there is a slightly more detailed analysis in the commit message
-  private void bulkChangeNow(final List<PerlLoadedFileDescriptor> toAdd,
-                             final List<PerlLoadedFileDescriptor> toRemove) {
-    List<PerlLoadedFileDescriptor> currentEntries = myModel.getItems();
-    if (toRemove.size() > 0) {
-      // first find all indices to be removed, then remove them in reverse order by overwriting with
-      // the last element and then removing the last element
-      int removeSize = toRemove.size();
-      int[] indices = new int[removeSize];
-      for (int i = 0; i < removeSize; ++i) {
-        indices[i] = Collections.binarySearch(currentEntries, toRemove.get(i), compareEntries);
+  /**
+   * Applies all pending changes with a single pass over the list and a merge with sorted added descriptors
+   */
+  private void flushPendingChanges() {
+    myFlushScheduled.set(false);
+    Map<String, PerlLoadedFileDescriptor> changes;
+    boolean clear;
+    synchronized (myPendingChanges) {
+      changes = new LinkedHashMap<>(myPendingChanges);
+      myPendingChanges.clear();
+      clear = myPendingClear;
+      myPendingClear = false;
+    }
+
+    if (clear) {
+      myItems = new ArrayList<>();
+      myPaths.clear();
+    }
+
+    Set<String> removedPaths = new THashSet<>();
+    List<PerlLoadedFileDescriptor> addedItems = new ArrayList<>();
+    for (Map.Entry<String, PerlLoadedFileDescriptor> entry : changes.entrySet()) {
+      String path = entry.getKey();
+      if (myPaths.remove(path)) {
+        removedPaths.add(path);
       }
-      Arrays.sort(indices);
-      int lastIndex = currentEntries.size() - 1;
-      for (int i = removeSize - 1; i >= 0; --i) {
-        int index = indices[i];
-        if (index >= 0) {
-          currentEntries.set(index, currentEntries.get(lastIndex));
-          currentEntries.remove(lastIndex);
-          --lastIndex;
-        }
+      PerlLoadedFileDescriptor descriptor = entry.getValue();
+      if (descriptor != null) {
+        myPaths.add(path);
+        addedItems.add(descriptor);
+      }
+    }
+
+    if (!removedPaths.isEmpty()) {
+      myItems.removeIf(it -> removedPaths.contains(it.getPath()));
+    }
+    if (!addedItems.isEmpty()) {
+      addedItems.sort(compareEntries);
+      myItems = merge(myItems, addedItems);
+    }
+
+    if (clear || !removedPaths.isEmpty() || !addedItems.isEmpty()) {
+      updateModel();
+    }
+  }
+
+  /**
+   * Shows items matching the filter
+   */
+  private void updateModel() {
+    String filter = myFilterField.getText().trim();
+    if (filter.isEmpty()) {
+      myModel.replaceAll(myItems);
+      return;
+    }
+    List<PerlLoadedFileDescriptor> filteredItems = new ArrayList<>();
+    for (PerlLoadedFileDescriptor item : myItems) {
+      if (StringUtil.containsIgnoreCase(item.getPresentableName(), filter)) {
+        filteredItems.add(item);
+      }
+    }
+    myModel.replaceAll(filteredItems);
+  }
+
+  /**
+   * @return new list with elements of sorted {@code first} and {@code second} lists, sorted with {@link #compareEntries}
+   */
+  @NotNull
+  private static List<PerlLoadedFileDescriptor> merge(@NotNull List<PerlLoadedFileDescriptor> first,
+                                                      @NotNull List<PerlLoadedFileDescriptor> second) {
+    List<PerlLoadedFileDescriptor> result = new ArrayList<>(first.size() + second.size());
+    int firstIndex = 0;
+    int secondIndex = 0;
+    while (firstIndex < first.size() && secondIndex < second.size()) {
+      if (compareEntries.compare(first.get(firstIndex), second.get(secondIndex)) <= 0) {
+        result.add(first.get(firstIndex++));
+      }
+      else {
+        result.add(second.get(secondIndex++));
       }
     }
-    currentEntries.addAll(toAdd);
-    myModel.setAll(currentEntries);
+    result.addAll(first.subList(firstIndex, first.size()));
+    result.addAll(second.subList(secondIndex, second.size()));
+    return result;
   }
-}
\ No newline at end of file
+}
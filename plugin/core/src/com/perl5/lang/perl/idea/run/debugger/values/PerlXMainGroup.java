@@ -19,26 +19,26 @@ package com.perl5.lang.perl.idea.run.debugger.values;
 import com.intellij.xdebugger.frame.XCompositeNode;
 import com.perl5.PerlIcons;
 import com.perl5.lang.perl.idea.run.debugger.PerlStackFrame;
-import com.perl5.lang.perl.util.PerlDebugUtil;
 import org.jetbrains.annotations.NotNull;
 
 
 public class PerlXMainGroup extends PerlXValueGroup {
   private final int mySize;
-  private int[] offset = new int[]{0};
+  private final PerlXValueChildrenPager myChildrenPager;
 
   public PerlXMainGroup(PerlStackFrame stackFrame, int size) {
     super("%main::", "Symbol Table", PerlIcons.MAIN_GUTTER_ICON, null, stackFrame, false);
     mySize = size;
+    myChildrenPager = new PerlXValueChildrenPager(stackFrame, "*main::{HASH}", size);
   }
 
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
-    PerlDebugUtil.requestAndComputeChildren(node, getStackFrame(), offset, getSize(), "*main::{HASH}");
+    myChildrenPager.computeChildren(node);
   }
 
   public int getOffset() {
-    return offset[0];
+    return myChildrenPager.getOffset();
   }
 
   @Override
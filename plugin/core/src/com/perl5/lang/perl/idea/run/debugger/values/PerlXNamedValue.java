@@ -40,7 +40,6 @@ import com.perl5.lang.perl.psi.impl.PerlFileImpl;
 import com.perl5.lang.perl.psi.references.scopes.PerlVariableDeclarationSearcher;
 import com.perl5.lang.perl.psi.utils.PerlResolveUtil;
 import com.perl5.lang.perl.psi.utils.PerlVariableType;
-import com.perl5.lang.perl.util.PerlDebugUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -64,7 +63,7 @@ public class PerlXNamedValue extends XNamedValue {
 
   private final PerlStackFrame myStackFrame;
   private final PerlValueDescriptor myPerlValueDescriptor;
-  private int[] offset = new int[]{0};
+  private PerlXValueChildrenPager myChildrenPager;
 
   public PerlXNamedValue(@NotNull PerlValueDescriptor descriptor, PerlStackFrame stackFrame) {
     super(descriptor.getName());
@@ -93,7 +92,10 @@ public class PerlXNamedValue extends XNamedValue {
     node.addChildren(childrenList, !isExpandable);
 
     if (isExpandable) {
-      PerlDebugUtil.requestAndComputeChildren(node, myStackFrame, offset, myPerlValueDescriptor.getSize(), myPerlValueDescriptor.getKey());
+      if (myChildrenPager == null) {
+        myChildrenPager = new PerlXValueChildrenPager(myStackFrame, myPerlValueDescriptor.getKey(), myPerlValueDescriptor.getSize());
+      }
+      myChildrenPager.computeChildren(node);
     }
   }
 
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.debugger.values;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonObject;
+import com.intellij.xdebugger.frame.XCompositeNode;
+import com.intellij.xdebugger.frame.XValueChildrenList;
+import com.perl5.lang.perl.idea.run.debugger.PerlDebugThread;
+import com.perl5.lang.perl.idea.run.debugger.PerlStackFrame;
+import com.perl5.lang.perl.idea.run.debugger.protocol.PerlDebuggingTransactionHandler;
+import com.perl5.lang.perl.idea.run.debugger.protocol.PerlValueDescriptor;
+import com.perl5.lang.perl.idea.run.debugger.protocol.PerlValueRequestDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Consumer;
+
+/**
+ * Loads children of the container value page by page. First page is small to show something quickly, each next page requested by user
+ * is twice as big, up to {@link #MAX_PAGE_SIZE}. Next page is requested right after the current one is shown, so it is usually ready
+ * when user asks for more. Responses for obsolete nodes are dropped without deserialization.
+ */
+public class PerlXValueChildrenPager {
+  private static final int INITIAL_PAGE_SIZE = XCompositeNode.MAX_CHILDREN_TO_SHOW;
+  private static final int MAX_PAGE_SIZE = 16 * XCompositeNode.MAX_CHILDREN_TO_SHOW;
+
+  @NotNull
+  private final PerlStackFrame myStackFrame;
+  @Nullable
+  private final String myKey;
+  private final int mySize;
+
+  /**
+   * Number of children shown
+   */
+  private int myOffset = 0;
+  private int myPageSize = INITIAL_PAGE_SIZE;
+  /**
+   * Requested next page, if any
+   */
+  @Nullable
+  private Page myPrefetchedPage;
+
+  public PerlXValueChildrenPager(@NotNull PerlStackFrame stackFrame, @Nullable String key, int size) {
+    myStackFrame = stackFrame;
+    myKey = key;
+    mySize = size;
+  }
+
+  public synchronized int getOffset() {
+    return myOffset;
+  }
+
+  /**
+   * Shows next page of children in the {@code node}
+   */
+  public synchronized void computeChildren(@NotNull XCompositeNode node) {
+    Page page = myPrefetchedPage;
+    myPrefetchedPage = null;
+    if (page == null || page.myOffset != myOffset) {
+      page = requestPage(node, myOffset, myPageSize);
+    }
+    page.setConsumer(descriptors -> showPage(node, descriptors));
+  }
+
+  private synchronized void showPage(@NotNull XCompositeNode node, @NotNull PerlValueDescriptor[] descriptors) {
+    XValueChildrenList list = new XValueChildrenList();
+    for (PerlValueDescriptor descriptor : descriptors) {
+      list.add(new PerlXNamedValue(descriptor, myStackFrame));
+    }
+    myOffset += descriptors.length;
+
+    boolean isLast = myOffset >= mySize || descriptors.length == 0;
+    node.addChildren(list, isLast);
+    if (!isLast) {
+      node.tooManyChildren(mySize - myOffset);
+      myPageSize = Math.min(myPageSize * 2, MAX_PAGE_SIZE);
+      myPrefetchedPage = requestPage(node, myOffset, myPageSize);
+    }
+  }
+
+  @NotNull
+  private Page requestPage(@NotNull XCompositeNode node, int offset, int limit) {
+    Page page = new Page(node, offset);
+    PerlDebugThread thread = myStackFrame.getPerlExecutionStack().getSuspendContext().getDebugThread();
+    thread.sendCommandAndGetResponse("getchildren", new PerlValueRequestDescriptor(offset, limit, myKey), page);
+    return page;
+  }
+
+  /**
+   * Response handler for a single page. Response may come before or after the node is ready to consume it.
+   */
+  private static class Page extends PerlDebuggingTransactionHandler {
+    @NotNull
+    private final XCompositeNode myNode;
+    private final int myOffset;
+    @Nullable
+    private Consumer<PerlValueDescriptor[]> myConsumer;
+    @Nullable
+    private PerlValueDescriptor[] myDescriptors;
+
+    Page(@NotNull XCompositeNode node, int offset) {
+      myNode = node;
+      myOffset = offset;
+    }
+
+    @Override
+    public void run(JsonObject jsonObject, JsonDeserializationContext jsonDeserializationContext) {
+      Consumer<PerlValueDescriptor[]> consumer;
+      PerlValueDescriptor[] descriptors;
+      if (myNode.isObsolete()) {
+        return;
+      }
+      synchronized (this) {
+        myDescriptors = jsonDeserializationContext.deserialize(jsonObject.getAsJsonArray("data"), PerlValueDescriptor[].class);
+        consumer = myConsumer;
+        descriptors = myDescriptors;
+      }
+      if (consumer != null && descriptors != null) {
+        consumer.accept(descriptors);
+      }
+    }
+
+    void setConsumer(@NotNull Consumer<PerlValueDescriptor[]> consumer) {
+      PerlValueDescriptor[] descriptors;
+      synchronized (this) {
+        myConsumer = consumer;
+        descriptors = myDescriptors;
+      }
+      if (descriptors != null) {
+        consumer.accept(descriptors);
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Calls between two subs: number of calls and inclusive time of the callee, in seconds
+ */
+public class PerlProfilerCallData {
+  @NotNull
+  private final String mySubName;
+  private long myCalls;
+  private double myTime;
+
+  PerlProfilerCallData(@NotNull String subName) {
+    mySubName = subName;
+  }
+
+  void merge(long calls, double time) {
+    myCalls += calls;
+    myTime += time;
+  }
+
+  /**
+   * @return name of the caller or callee, depending on the direction
+   */
+  @NotNull
+  public String getSubName() {
+    return mySubName;
+  }
+
+  public long getCalls() {
+    return myCalls;
+  }
+
+  public double getTime() {
+    return myTime;
+  }
+}
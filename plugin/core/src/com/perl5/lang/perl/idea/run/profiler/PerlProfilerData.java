@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.perl5.lang.perl.idea.sdk.host.PerlHostData;
+import gnu.trove.THashMap;
+import gnu.trove.TIntObjectHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profiling results, merged from all data files of a session. Filled from records produced by {@code nytprof_camelcade.pl}
+ */
+public class PerlProfilerData {
+  private static final Logger LOG = Logger.getInstance(PerlProfilerData.class);
+  private static final String SUB_RECORD = "S";
+  private static final String CALL_RECORD = "C";
+  private static final String LINE_RECORD = "L";
+
+  @NotNull
+  private final PerlHostData<?, ?> myHostData;
+  private final Map<String, PerlProfilerSubData> mySubs = new THashMap<>();
+  /**
+   * Local path => 1-based line => line data
+   */
+  private final Map<String, TIntObjectHashMap<PerlProfilerLineData>> myLines = new THashMap<>();
+
+  PerlProfilerData(@NotNull PerlHostData<?, ?> hostData) {
+    myHostData = hostData;
+  }
+
+  /**
+   * Parses and merges a single record
+   */
+  void processRecord(@NotNull String record) {
+    List<String> fields = StringUtil.split(record, "\t", true, false);
+    try {
+      String recordType = fields.get(0);
+      if (SUB_RECORD.equals(recordType) && fields.size() == 7) {
+        int line = Integer.parseInt(fields.get(3));
+        long calls = Long.parseLong(fields.get(4));
+        double inclusiveTime = Double.parseDouble(fields.get(5));
+        double exclusiveTime = Double.parseDouble(fields.get(6));
+        getOrCreateSubData(fields.get(1)).merge(computeLocalPath(fields.get(2)), line, calls, inclusiveTime, exclusiveTime);
+      }
+      else if (CALL_RECORD.equals(recordType) && fields.size() == 5) {
+        String callerName = fields.get(1);
+        String calleeName = fields.get(2);
+        long calls = Long.parseLong(fields.get(3));
+        double time = Double.parseDouble(fields.get(4));
+        getOrCreateSubData(callerName).addCallee(calleeName, calls, time);
+        getOrCreateSubData(calleeName).addCaller(callerName, calls, time);
+      }
+      else if (LINE_RECORD.equals(recordType) && fields.size() == 5) {
+        String localPath = computeLocalPath(fields.get(1));
+        if (localPath != null) {
+          int line = Integer.parseInt(fields.get(2));
+          TIntObjectHashMap<PerlProfilerLineData> fileLines = myLines.computeIfAbsent(localPath, it -> new TIntObjectHashMap<>());
+          PerlProfilerLineData lineData = fileLines.get(line);
+          if (lineData == null) {
+            fileLines.put(line, lineData = new PerlProfilerLineData());
+          }
+          lineData.merge(Double.parseDouble(fields.get(3)), Long.parseLong(fields.get(4)));
+        }
+      }
+      else {
+        LOG.warn("Unexpected record: " + record);
+      }
+    }
+    catch (NumberFormatException e) {
+      LOG.warn("Error parsing record: " + record, e);
+    }
+  }
+
+  @NotNull
+  private PerlProfilerSubData getOrCreateSubData(@NotNull String subName) {
+    return mySubs.computeIfAbsent(subName, PerlProfilerSubData::new);
+  }
+
+  @Nullable
+  private String computeLocalPath(@NotNull String remotePath) {
+    if (StringUtil.isEmpty(remotePath)) {
+      return null;
+    }
+    String localPath = myHostData.getLocalPath(remotePath);
+    return localPath == null ? null : FileUtil.toSystemIndependentName(localPath);
+  }
+
+  /**
+   * @return data of all subs mentioned in the results, including callers profiler has no own data for, e.g. {@code main::RUNTIME}
+   */
+  @NotNull
+  public Collection<PerlProfilerSubData> getSubs() {
+    return mySubs.values();
+  }
+
+  @Nullable
+  public PerlProfilerSubData getSubData(@NotNull String subName) {
+    return mySubs.get(subName);
+  }
+
+  /**
+   * @param localPath system-independent local path of the file
+   * @param line      1-based line number
+   */
+  @Nullable
+  public PerlProfilerLineData getLineData(@NotNull String localPath, int line) {
+    TIntObjectHashMap<PerlProfilerLineData> fileLines = myLines.get(localPath);
+    return fileLines == null ? null : fileLines.get(line);
+  }
+
+  public boolean isEmpty() {
+    return mySubs.isEmpty() && myLines.isEmpty();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.execution.Executor;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.util.IconLoader;
+import com.intellij.openapi.wm.ToolWindowId;
+import com.perl5.PerlBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * Runs perl configurations with {@code Devel::NYTProf}
+ */
+public class PerlProfilerExecutor extends Executor {
+  public static final String EXECUTOR_ID = "PerlNYTProfProfiler";
+  private static final String CONTEXT_ACTION_ID = "PerlProfileWithNYTProf";
+
+  @NotNull
+  @Override
+  public String getToolWindowId() {
+    return ToolWindowId.RUN;
+  }
+
+  @NotNull
+  @Override
+  public Icon getToolWindowIcon() {
+    return AllIcons.Toolwindows.ToolWindowRun;
+  }
+
+  @NotNull
+  @Override
+  public Icon getIcon() {
+    return AllIcons.Actions.Profile;
+  }
+
+  @Override
+  public Icon getDisabledIcon() {
+    return IconLoader.getDisabledIcon(getIcon());
+  }
+
+  @Override
+  public String getDescription() {
+    return PerlBundle.message("perl.profiler.executor.description");
+  }
+
+  @NotNull
+  @Override
+  public String getActionName() {
+    return PerlBundle.message("perl.profiler.executor.action.name");
+  }
+
+  @NotNull
+  @Override
+  public String getId() {
+    return EXECUTOR_ID;
+  }
+
+  @NotNull
+  @Override
+  public String getStartActionText() {
+    return PerlBundle.message("perl.profiler.executor.start.action.text");
+  }
+
+  @Override
+  public String getContextActionId() {
+    return CONTEXT_ACTION_ID;
+  }
+
+  @Nullable
+  @Override
+  public String getHelpId() {
+    return null;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+/**
+ * Time spent in statements on a single line, in seconds, and number of executed statements
+ */
+public class PerlProfilerLineData {
+  private double myTime;
+  private long myStatements;
+
+  void merge(double time, long statements) {
+    myTime += time;
+    myStatements += statements;
+  }
+
+  public double getTime() {
+    return myTime;
+  }
+
+  public long getStatements() {
+    return myStatements;
+  }
+}
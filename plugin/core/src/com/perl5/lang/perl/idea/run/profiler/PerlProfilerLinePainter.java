@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.openapi.editor.EditorLinePainter;
+import com.intellij.openapi.editor.LineExtensionInfo;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.JBColor;
+import com.perl5.PerlBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Shows time spent on each line in the most recent profiling session after the line end
+ */
+public class PerlProfilerLinePainter extends EditorLinePainter {
+  private static final TextAttributes TIME_ATTRIBUTES = new TextAttributes(JBColor.GRAY, null, null, null, Font.ITALIC);
+
+  @Nullable
+  @Override
+  public Collection<LineExtensionInfo> getLineExtensions(@NotNull Project project, @NotNull VirtualFile file, int lineNumber) {
+    PerlProfilerData profilerData = PerlProfilerResultsService.getInstance(project).getData();
+    if (profilerData == null || !file.isInLocalFileSystem()) {
+      return null;
+    }
+    PerlProfilerLineData lineData = profilerData.getLineData(file.getPath(), lineNumber + 1);
+    if (lineData == null) {
+      return null;
+    }
+    return Collections.singletonList(new LineExtensionInfo(
+      "    " + PerlBundle.message("perl.profiler.line.time", PerlProfilerResultsPanel.formatTime(lineData.getTime()),
+                                  lineData.getStatements()),
+      TIME_ATTRIBUTES));
+  }
+}
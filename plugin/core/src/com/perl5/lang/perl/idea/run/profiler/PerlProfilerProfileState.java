@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.perl5.PerlBundle;
+import com.perl5.lang.perl.idea.run.GenericPerlRunConfiguration;
+import com.perl5.lang.perl.idea.run.PerlRunProfileState;
+import com.perl5.lang.perl.idea.sdk.host.PerlHostData;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs configuration with {@code Devel::NYTProf}, writing a data file per process into the results directory
+ */
+public class PerlProfilerProfileState extends PerlRunProfileState {
+  static final String DATA_FILE_NAME = "nytprof.out";
+  private static final String NYTPROF_ENVIRONMENT_VARIABLE = "NYTPROF";
+  private static final String NYTPROF_PERL_PARAMETER = "-d:NYTProf";
+
+  @NotNull
+  private final File myResultsDirectory;
+
+  public PerlProfilerProfileState(@NotNull ExecutionEnvironment environment, @NotNull File resultsDirectory) {
+    super(environment);
+    myResultsDirectory = resultsDirectory;
+  }
+
+  @NotNull
+  @Override
+  public List<String> getAdditionalPerlParameters(@NotNull GenericPerlRunConfiguration perlRunConfiguration) throws ExecutionException {
+    return Collections.singletonList(NYTPROF_PERL_PARAMETER);
+  }
+
+  @Override
+  public Map<String, String> getAdditionalEnvironmentVariables() throws ExecutionException {
+    GenericPerlRunConfiguration runConfiguration = (GenericPerlRunConfiguration)getEnvironment().getRunProfile();
+    PerlHostData<?, ?> hostData = PerlHostData.notNullFrom(runConfiguration.getEffectiveSdk());
+    String remoteDataFilePath = hostData.getRemotePath(new File(myResultsDirectory, DATA_FILE_NAME).getPath());
+    if (remoteDataFilePath == null) {
+      throw new ExecutionException(PerlBundle.message("perl.profiler.error.unmapped.path", myResultsDirectory.getPath()));
+    }
+    // each process is writing own file, e.g. prove jobs
+    return Collections.singletonMap(NYTPROF_ENVIRONMENT_VARIABLE, "file=" + remoteDataFilePath + ":addpid=1");
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.RunProfile;
+import com.intellij.execution.configurations.RunProfileState;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.runners.DefaultProgramRunner;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.io.FileUtil;
+import com.perl5.lang.perl.idea.run.GenericPerlRunConfiguration;
+import com.perl5.lang.perl.util.PerlPluginUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+public class PerlProfilerProgramRunner extends DefaultProgramRunner {
+  private static final String PROFILER_DIRECTORY = "profiler";
+
+  @NotNull
+  @Override
+  public String getRunnerId() {
+    return "PERL5_NYTPROF_RUNNER";
+  }
+
+  @Override
+  public boolean canRun(@NotNull String executorId, @NotNull RunProfile profile) {
+    return executorId.equals(PerlProfilerExecutor.EXECUTOR_ID) && profile instanceof GenericPerlRunConfiguration;
+  }
+
+  @Override
+  protected void execute(@NotNull ExecutionEnvironment environment, Callback callback, @NotNull RunProfileState state)
+    throws ExecutionException {
+    GenericPerlRunConfiguration runConfiguration = (GenericPerlRunConfiguration)environment.getRunProfile();
+    Sdk effectiveSdk = runConfiguration.getEffectiveSdk();
+    File resultsDirectory = createResultsDirectory();
+
+    super.execute(environment, descriptor -> {
+      ProcessHandler processHandler = descriptor.getProcessHandler();
+      if (processHandler != null) {
+        processHandler.addProcessListener(new ProcessAdapter() {
+          @Override
+          public void processTerminated(@NotNull ProcessEvent event) {
+            PerlProfilerResultsLoader.loadInBackground(environment.getProject(), effectiveSdk, resultsDirectory, runConfiguration.getName());
+          }
+        });
+      }
+      if (callback != null) {
+        callback.processStarted(descriptor);
+      }
+    }, new PerlProfilerProfileState(environment, resultsDirectory));
+  }
+
+  @NotNull
+  private static File createResultsDirectory() throws ExecutionException {
+    try {
+      File profilerRoot = new File(PerlPluginUtil.getPerlSystemPath(), PROFILER_DIRECTORY);
+      FileUtil.createDirectory(profilerRoot);
+      return FileUtil.createTempDirectory(profilerRoot, "nytprof", null, true);
+    }
+    catch (IOException e) {
+      throw new ExecutionException(e);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.process.BaseProcessHandler;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.perl5.PerlBundle;
+import com.perl5.lang.perl.idea.execution.PerlCommandLine;
+import com.perl5.lang.perl.idea.sdk.host.PerlHostData;
+import com.perl5.lang.perl.util.PerlPluginUtil;
+import com.perl5.lang.perl.util.PerlRunUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts NYTProf data files with {@code nytprof_camelcade.pl} helper. Helper output is parsed line by line while it's running, so we
+ * never hold the whole output in memory
+ */
+public class PerlProfilerResultsLoader {
+  private static final Logger LOG = Logger.getInstance(PerlProfilerResultsLoader.class);
+  private static final String HELPER_NAME = "nytprof_camelcade.pl";
+  private static final long WAIT_TIMEOUT_MS = 100;
+
+  private PerlProfilerResultsLoader() {
+  }
+
+  /**
+   * Loads results from the {@code resultsDirectory} in background and shows them in the profiler tool window
+   */
+  public static void loadInBackground(@NotNull Project project,
+                                      @NotNull Sdk sdk,
+                                      @NotNull File resultsDirectory,
+                                      @NotNull String sessionName) {
+    new Task.Backgroundable(project, PerlBundle.message("perl.profiler.loading.progress", sessionName), true) {
+      @Override
+      public void run(@NotNull ProgressIndicator indicator) {
+        PerlProfilerData profilerData = load(project, sdk, resultsDirectory);
+        FileUtil.delete(resultsDirectory);
+        if (profilerData != null) {
+          ApplicationManager.getApplication().invokeLater(
+            () -> PerlProfilerResultsService.getInstance(project).showResults(sessionName, profilerData), project.getDisposed());
+        }
+      }
+    }.queue();
+  }
+
+  @Nullable
+  private static PerlProfilerData load(@NotNull Project project, @NotNull Sdk sdk, @NotNull File resultsDirectory) {
+    File[] dataFiles = resultsDirectory.listFiles((dir, name) -> name.startsWith(PerlProfilerProfileState.DATA_FILE_NAME));
+    if (dataFiles == null || dataFiles.length == 0) {
+      showError(project, PerlBundle.message("perl.profiler.error.no.data"));
+      return null;
+    }
+
+    PerlHostData<?, ?> hostData = PerlHostData.notNullFrom(sdk);
+    List<String> remoteDataPaths = new ArrayList<>();
+    for (File dataFile : dataFiles) {
+      String remotePath = hostData.getRemotePath(dataFile.getPath());
+      if (remotePath != null) {
+        remoteDataPaths.add(remotePath);
+      }
+    }
+
+    PerlCommandLine commandLine = ReadAction.compute(() -> project.isDisposed() ? null : PerlRunUtil.getPerlCommandLine(
+      project, sdk, PerlPluginUtil.getHelperPath(HELPER_NAME), Collections.emptyList(), remoteDataPaths));
+    if (commandLine == null) {
+      return null;
+    }
+    commandLine.withSdk(sdk);
+    commandLine.withProject(project);
+
+    PerlProfilerData profilerData = new PerlProfilerData(hostData);
+    StringBuilder errorBuilder = new StringBuilder();
+    try {
+      LOG.info("Loading profiling results by: " + commandLine.getCommandLineString());
+      BaseProcessHandler<?> processHandler = PerlHostData.createProcessHandler(commandLine);
+      processHandler.addProcessListener(new ProcessAdapter() {
+        private final StringBuilder myLineBuilder = new StringBuilder();
+
+        @Override
+        public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+          if (outputType == ProcessOutputTypes.STDERR) {
+            errorBuilder.append(event.getText());
+            return;
+          }
+          else if (outputType != ProcessOutputTypes.STDOUT) {
+            return;
+          }
+          myLineBuilder.append(event.getText());
+          int lineEnd;
+          while ((lineEnd = myLineBuilder.indexOf("\n")) >= 0) {
+            String record = StringUtil.trimTrailing(myLineBuilder.substring(0, lineEnd), '\r');
+            myLineBuilder.delete(0, lineEnd + 1);
+            if (!record.isEmpty()) {
+              profilerData.processRecord(record);
+            }
+          }
+        }
+      });
+      processHandler.startNotify();
+      waitFor(processHandler);
+
+      Integer exitCode = processHandler.getExitCode();
+      if (exitCode != null && exitCode != 0) {
+        showError(project, errorBuilder.toString());
+        return null;
+      }
+    }
+    catch (ExecutionException e) {
+      LOG.warn("Error loading profiling results", e);
+      showError(project, e.getMessage());
+      return null;
+    }
+
+    if (profilerData.isEmpty()) {
+      showError(project, PerlBundle.message("perl.profiler.error.no.data"));
+      return null;
+    }
+    return profilerData;
+  }
+
+  /**
+   * Waits for the helper to finish, checking for cancellation. Helper is destroyed if loading is cancelled
+   */
+  private static void waitFor(@NotNull BaseProcessHandler<?> processHandler) {
+    try {
+      while (!processHandler.waitFor(WAIT_TIMEOUT_MS)) {
+        ProgressManager.checkCanceled();
+      }
+    }
+    catch (ProcessCanceledException e) {
+      processHandler.destroyProcess();
+      throw e;
+    }
+  }
+
+  private static void showError(@NotNull Project project, @NotNull String message) {
+    ReadAction.run(() -> {
+      if (!project.isDisposed()) {
+        Notifications.Bus.notify(
+          new Notification(
+            PerlBundle.message("perl.profiler.loading.error"),
+            PerlBundle.message("perl.profiler.loading.error"),
+            message,
+            NotificationType.ERROR
+          ),
+          project
+        );
+      }
+    });
+  }
+}
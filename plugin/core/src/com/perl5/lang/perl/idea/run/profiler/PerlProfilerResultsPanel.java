@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.TableUtil;
+import com.intellij.ui.table.TableView;
+import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.ListTableModel;
+import com.intellij.util.ui.tree.TreeUtil;
+import com.perl5.PerlBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.event.MouseEvent;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hotspots table of the profiling session with call graph of the selected sub
+ */
+class PerlProfilerResultsPanel extends JBSplitter {
+  private static final int INCLUSIVE_TIME_COLUMN = 2;
+
+  @NotNull
+  private final Project myProject;
+  @NotNull
+  private final PerlProfilerData myData;
+  @NotNull
+  private final TableView<PerlProfilerSubData> myHotspotsTable;
+  @NotNull
+  private final DefaultMutableTreeNode myCallGraphRoot = new DefaultMutableTreeNode();
+  @NotNull
+  private final Tree myCallGraphTree = new Tree(new DefaultTreeModel(myCallGraphRoot));
+
+  PerlProfilerResultsPanel(@NotNull Project project, @NotNull PerlProfilerData data) {
+    super(false, 0.6f);
+    myProject = project;
+    myData = data;
+
+    List<PerlProfilerSubData> calledSubs = ContainerUtil.filter(data.getSubs(), it -> it.getCalls() > 0);
+    ListTableModel<PerlProfilerSubData> hotspotsModel = new ListTableModel<>(new ColumnInfo[]{
+      new NameColumnInfo(),
+      new CallsColumnInfo(),
+      new TimeColumnInfo(PerlBundle.message("perl.profiler.column.inclusive.time"), PerlProfilerSubData::getInclusiveTime),
+      new TimeColumnInfo(PerlBundle.message("perl.profiler.column.exclusive.time"), PerlProfilerSubData::getExclusiveTime)
+    }, calledSubs, INCLUSIVE_TIME_COLUMN, SortOrder.DESCENDING);
+    hotspotsModel.setSortable(true);
+    myHotspotsTable = new TableView<>(hotspotsModel);
+    myHotspotsTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    myHotspotsTable.getSelectionModel().addListSelectionListener(e -> updateCallGraph());
+    new DoubleClickListener() {
+      @Override
+      protected boolean onDoubleClick(MouseEvent event) {
+        PerlProfilerSubData subData = myHotspotsTable.getSelectedObject();
+        return subData != null && navigateToSub(subData);
+      }
+    }.installOn(myHotspotsTable);
+
+    myCallGraphTree.setRootVisible(false);
+    myCallGraphTree.setCellRenderer(new CallGraphRenderer());
+    new DoubleClickListener() {
+      @Override
+      protected boolean onDoubleClick(MouseEvent event) {
+        TreePath selectionPath = myCallGraphTree.getSelectionPath();
+        Object userObject = selectionPath == null ? null : TreeUtil.getUserObject(selectionPath.getLastPathComponent());
+        return userObject instanceof PerlProfilerCallData && selectSub(((PerlProfilerCallData)userObject).getSubName());
+      }
+    }.installOn(myCallGraphTree);
+
+    setFirstComponent(ScrollPaneFactory.createScrollPane(myHotspotsTable));
+    setSecondComponent(ScrollPaneFactory.createScrollPane(myCallGraphTree));
+  }
+
+  /**
+   * Selects sub with {@code subName} in the hotspots table
+   */
+  private boolean selectSub(@NotNull String subName) {
+    PerlProfilerSubData subData = myData.getSubData(subName);
+    if (subData == null || !myHotspotsTable.getItems().contains(subData)) {
+      return false;
+    }
+    myHotspotsTable.setSelection(ContainerUtil.newSmartList(subData));
+    TableUtil.scrollSelectionToVisible(myHotspotsTable);
+    return true;
+  }
+
+  private boolean navigateToSub(@NotNull PerlProfilerSubData subData) {
+    String localPath = subData.getLocalPath();
+    VirtualFile virtualFile = localPath == null ? null : LocalFileSystem.getInstance().findFileByPath(localPath);
+    if (virtualFile == null) {
+      return false;
+    }
+    new OpenFileDescriptor(myProject, virtualFile, Math.max(subData.getLine() - 1, 0), 0).navigate(true);
+    return true;
+  }
+
+  private void updateCallGraph() {
+    myCallGraphRoot.removeAllChildren();
+    PerlProfilerSubData subData = myHotspotsTable.getSelectedObject();
+    if (subData != null) {
+      addCallsNode(PerlBundle.message("perl.profiler.call.graph.callers"), subData.getCallers());
+      addCallsNode(PerlBundle.message("perl.profiler.call.graph.callees"), subData.getCallees());
+    }
+    ((DefaultTreeModel)myCallGraphTree.getModel()).reload();
+    TreeUtil.expandAll(myCallGraphTree);
+  }
+
+  private void addCallsNode(@NotNull String title, @NotNull Collection<PerlProfilerCallData> calls) {
+    if (calls.isEmpty()) {
+      return;
+    }
+    DefaultMutableTreeNode callsNode = new DefaultMutableTreeNode(title);
+    ContainerUtil.sorted(calls, Comparator.comparingDouble(PerlProfilerCallData::getTime).reversed())
+      .forEach(it -> callsNode.add(new DefaultMutableTreeNode(it, false)));
+    myCallGraphRoot.add(callsNode);
+  }
+
+  /**
+   * @return human readable representation of the time in seconds
+   */
+  @NotNull
+  static String formatTime(double seconds) {
+    return seconds >= 1 ? String.format("%.3f s", seconds) : String.format("%.3f ms", seconds * 1000);
+  }
+
+  private static class CallGraphRenderer extends ColoredTreeCellRenderer {
+    @Override
+    public void customizeCellRenderer(@NotNull JTree tree,
+                                      Object value,
+                                      boolean selected,
+                                      boolean expanded,
+                                      boolean leaf,
+                                      int row,
+                                      boolean hasFocus) {
+      Object userObject = TreeUtil.getUserObject(value);
+      if (userObject instanceof PerlProfilerCallData) {
+        PerlProfilerCallData callData = (PerlProfilerCallData)userObject;
+        append(callData.getSubName());
+        append(" " + PerlBundle.message("perl.profiler.call.graph.calls", callData.getCalls(), formatTime(callData.getTime())),
+               SimpleTextAttributes.GRAYED_ATTRIBUTES);
+      }
+      else if (userObject != null) {
+        append(userObject.toString(), SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+      }
+    }
+  }
+
+  private static class NameColumnInfo extends ColumnInfo<PerlProfilerSubData, String> {
+    NameColumnInfo() {
+      super(PerlBundle.message("perl.profiler.column.sub"));
+    }
+
+    @NotNull
+    @Override
+    public String valueOf(PerlProfilerSubData subData) {
+      return subData.getName();
+    }
+
+    @Nullable
+    @Override
+    public Comparator<PerlProfilerSubData> getComparator() {
+      return Comparator.comparing(PerlProfilerSubData::getName);
+    }
+  }
+
+  private static class CallsColumnInfo extends ColumnInfo<PerlProfilerSubData, Long> {
+    CallsColumnInfo() {
+      super(PerlBundle.message("perl.profiler.column.calls"));
+    }
+
+    @NotNull
+    @Override
+    public Long valueOf(PerlProfilerSubData subData) {
+      return subData.getCalls();
+    }
+
+    @Nullable
+    @Override
+    public Comparator<PerlProfilerSubData> getComparator() {
+      return Comparator.comparingLong(PerlProfilerSubData::getCalls);
+    }
+  }
+
+  private static class TimeColumnInfo extends ColumnInfo<PerlProfilerSubData, String> {
+    @NotNull
+    private final ToDoubleFunction<PerlProfilerSubData> myTimeFunction;
+
+    TimeColumnInfo(@NotNull String name, @NotNull ToDoubleFunction<PerlProfilerSubData> timeFunction) {
+      super(name);
+      myTimeFunction = timeFunction;
+    }
+
+    @NotNull
+    @Override
+    public String valueOf(PerlProfilerSubData subData) {
+      return formatTime(myTimeFunction.applyAsDouble(subData));
+    }
+
+    @Nullable
+    @Override
+    public Comparator<PerlProfilerSubData> getComparator() {
+      return Comparator.comparingDouble(myTimeFunction);
+    }
+  }
+}
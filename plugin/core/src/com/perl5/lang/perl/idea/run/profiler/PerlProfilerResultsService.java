@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowAnchor;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds results of the most recent profiling session, shown in editors, and manages profiler tool window
+ */
+public class PerlProfilerResultsService {
+  private static final String TOOL_WINDOW_ID = "Perl Profiler";
+
+  @NotNull
+  private final Project myProject;
+  @Nullable
+  private volatile PerlProfilerData myData;
+
+  public PerlProfilerResultsService(@NotNull Project project) {
+    myProject = project;
+  }
+
+  /**
+   * @return results shown in the editors, if any
+   */
+  @Nullable
+  public PerlProfilerData getData() {
+    return myData;
+  }
+
+  /**
+   * Adds a tab with {@code data} to the profiler tool window and shows this data in the editors
+   */
+  public void showResults(@NotNull String sessionName, @NotNull PerlProfilerData data) {
+    setData(data);
+
+    ToolWindow toolWindow = getOrCreateToolWindow();
+    ContentManager contentManager = toolWindow.getContentManager();
+    Content content = ContentFactory.SERVICE.getInstance().createContent(
+      new PerlProfilerResultsPanel(myProject, data), sessionName, false);
+    content.setDisposer(() -> {
+      if (myData == data) {
+        setData(null);
+      }
+    });
+    contentManager.addContent(content);
+    contentManager.setSelectedContent(content);
+    toolWindow.activate(null);
+  }
+
+  private void setData(@Nullable PerlProfilerData data) {
+    myData = data;
+    EditorFactory.getInstance().refreshAllEditors();
+  }
+
+  @NotNull
+  private ToolWindow getOrCreateToolWindow() {
+    ToolWindowManager toolWindowManager = ToolWindowManager.getInstance(myProject);
+    ToolWindow toolWindow = toolWindowManager.getToolWindow(TOOL_WINDOW_ID);
+    if (toolWindow != null) {
+      return toolWindow;
+    }
+    toolWindow = toolWindowManager.registerToolWindow(TOOL_WINDOW_ID, true, ToolWindowAnchor.BOTTOM, myProject, true);
+    toolWindow.setIcon(AllIcons.Actions.Profile);
+    return toolWindow;
+  }
+
+  @NotNull
+  public static PerlProfilerResultsService getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, PerlProfilerResultsService.class);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Profiling results of a single sub. Times are in seconds
+ */
+public class PerlProfilerSubData {
+  @NotNull
+  private final String myName;
+  @Nullable
+  private String myLocalPath;
+  private int myLine;
+  private long myCalls;
+  private double myInclusiveTime;
+  private double myExclusiveTime;
+  private final Map<String, PerlProfilerCallData> myCallers = new THashMap<>();
+  private final Map<String, PerlProfilerCallData> myCallees = new THashMap<>();
+
+  PerlProfilerSubData(@NotNull String name) {
+    myName = name;
+  }
+
+  void merge(@Nullable String localPath, int line, long calls, double inclusiveTime, double exclusiveTime) {
+    if (myLocalPath == null) {
+      myLocalPath = localPath;
+      myLine = line;
+    }
+    myCalls += calls;
+    myInclusiveTime += inclusiveTime;
+    myExclusiveTime += exclusiveTime;
+  }
+
+  void addCaller(@NotNull String callerName, long calls, double time) {
+    myCallers.computeIfAbsent(callerName, PerlProfilerCallData::new).merge(calls, time);
+  }
+
+  void addCallee(@NotNull String calleeName, long calls, double time) {
+    myCallees.computeIfAbsent(calleeName, PerlProfilerCallData::new).merge(calls, time);
+  }
+
+  @NotNull
+  public String getName() {
+    return myName;
+  }
+
+  /**
+   * @return local path of the file with sub definition if any
+   */
+  @Nullable
+  public String getLocalPath() {
+    return myLocalPath;
+  }
+
+  /**
+   * @return 1-based line of the sub definition
+   */
+  public int getLine() {
+    return myLine;
+  }
+
+  public long getCalls() {
+    return myCalls;
+  }
+
+  public double getInclusiveTime() {
+    return myInclusiveTime;
+  }
+
+  public double getExclusiveTime() {
+    return myExclusiveTime;
+  }
+
+  @NotNull
+  public Collection<PerlProfilerCallData> getCallers() {
+    return myCallers.values();
+  }
+
+  @NotNull
+  public Collection<PerlProfilerCallData> getCallees() {
+    return myCallees.values();
+  }
+
+  @Override
+  public String toString() {
+    return myName;
+  }
+}
@@ -135,31 +135,39 @@ public class PerlFileDescriptor {
       return null;
     }
     char lastChar = parts[1].charAt(parts[1].length() - 1);
-    Type type = null;
-    switch (lastChar) {
+    Type type = getTypeBySuffix(lastChar);
+    String name = type == Type.FILE ? parts[1] : parts[1].substring(0, parts[1].length() - 1);
+    return new PerlFileDescriptor(basePath, name, type, size);
+  }
+
+  /**
+   * @param suffix type suffix, as {@code ls --classify} appends it to the name, or {@code 0} for the regular file
+   * @param size   size in kilobytes
+   * @return new descriptor for the file with {@code name} in the {@code basePath}
+   */
+  @NotNull
+  public static PerlFileDescriptor create(@NotNull String basePath, @NotNull String name, char suffix, int size) {
+    return new PerlFileDescriptor(basePath, name, getTypeBySuffix(suffix), size);
+  }
+
+  @NotNull
+  private static Type getTypeBySuffix(char suffix) {
+    switch (suffix) {
       case '/':
-        type = Type.DIRECTORY;
-        break;
+        return Type.DIRECTORY;
       case '|':
-        type = Type.PIPE;
-        break;
+        return Type.PIPE;
       case '@':
-        type = Type.SYMLINK;
-        break;
+        return Type.SYMLINK;
       case '*':
-        type = Type.EXECUTABLE;
-        break;
+        return Type.EXECUTABLE;
       case '=':
-        type = Type.SOCKET;
-        break;
+        return Type.SOCKET;
       case '>':
-        type = Type.DOOR;
-        break;
+        return Type.DOOR;
       default:
-        type = Type.FILE;
+        return Type.FILE;
     }
-    String name = type == Type.FILE ? parts[1] : parts[1].substring(0, parts[1].length() - 1);
-    return new PerlFileDescriptor(basePath, name, type, size);
   }
 
   public enum Type {
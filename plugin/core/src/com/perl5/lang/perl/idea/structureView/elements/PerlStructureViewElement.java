@@ -16,6 +16,7 @@
 
 package com.perl5.lang.perl.idea.structureView.elements;
 
+import com.intellij.extapi.psi.StubBasedPsiElementBase;
 import com.intellij.ide.structureView.StructureViewTreeElement;
 import com.intellij.ide.structureView.impl.common.PsiTreeElementBase;
 import com.intellij.ide.util.treeView.smartTree.SortableTreeElement;
@@ -23,13 +24,21 @@ import com.intellij.lang.Language;
 import com.intellij.navigation.ItemPresentation;
 import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.editor.colors.CodeInsightColors;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.FileViewProvider;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.impl.source.PsiFileImpl;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
 import com.perl5.lang.perl.PerlLanguage;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlExportDescriptor;
 import com.perl5.lang.perl.idea.highlighter.PerlSyntaxHighlighter;
@@ -37,6 +46,8 @@ import com.perl5.lang.perl.idea.presentations.PerlItemPresentationBase;
 import com.perl5.lang.perl.idea.presentations.PerlItemPresentationSimple;
 import com.perl5.lang.perl.parser.constant.psi.light.PerlLightConstantDefinitionElement;
 import com.perl5.lang.perl.psi.*;
+import com.perl5.lang.perl.psi.impl.PerlPolyNamedElement;
+import com.perl5.lang.perl.psi.light.PerlDelegatingLightNamedElement;
 import com.perl5.lang.perl.psi.mro.PerlMro;
 import com.perl5.lang.perl.psi.properties.PerlIdentifierOwner;
 import com.perl5.lang.perl.util.*;
@@ -46,6 +57,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Function;
 
 
 public abstract class PerlStructureViewElement extends PsiTreeElementBase<PsiElement> implements SortableTreeElement {
@@ -170,8 +182,18 @@ public abstract class PerlStructureViewElement extends PsiTreeElementBase<PsiEle
         }
       }
 
-      if (targetLanguage != null) {
-        viewProvider.getPsi(targetLanguage).accept(new PerlRecursiveVisitor() {
+      PsiFile targetFile = targetLanguage == null ? null : viewProvider.getPsi(targetLanguage);
+      StubElement<?> targetFileStub = targetFile == null ? null : getStub(targetFile);
+      if (targetFileStub != null) {
+        processStubbedElements(targetFileStub, false, it -> {
+          if (it instanceof PerlNamespaceDefinitionElement) {
+            result.add(new PerlNamespaceStructureViewElement(it));
+          }
+          return true;
+        });
+      }
+      else if (targetFile != null) {
+        targetFile.accept(new PerlRecursiveVisitor() {
           @Override
           public void visitNamespaceDefinitionElement(@NotNull PerlNamespaceDefinitionElement o) {
             result.add(new PerlNamespaceStructureViewElement(o));
@@ -186,147 +208,89 @@ public abstract class PerlStructureViewElement extends PsiTreeElementBase<PsiEle
       }
     }
     if (psiElement instanceof PerlNamespaceDefinitionElement) {
+      StubElement<?> namespaceStub = getStub(psiElement);
+
       // global variables
-      for (PerlVariableDeclarationElement child : PsiTreeUtil.findChildrenOfType(psiElement, PerlVariableDeclarationElement.class)) {
-        if (child.isGlobalDeclaration() && psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
-          result.add(new PerlVariableDeclarationStructureViewElement(child));
-        }
+      if (namespaceStub != null) {
+        // only global declarations are stubbed
+        processStubbedElements(namespaceStub, true, it -> {
+          if (it instanceof PerlVariableDeclarationElement) {
+            result.add(new PerlVariableDeclarationStructureViewElement((PerlVariableDeclarationElement)it));
+          }
+          return true;
+        });
       }
-
-      Project project = psiElement.getProject();
-      GlobalSearchScope projectScope = GlobalSearchScope.projectScope(project);
-
-      // imported scalars
-      for (PerlExportDescriptor exportDescritptor : ((PerlNamespaceDefinitionElement)psiElement).getImportedScalarDescriptors()) {
-        String canonicalName = exportDescritptor.getTargetCanonicalName();
-
-        Collection<PerlVariableDeclarationElement> variables = PerlScalarUtil.getGlobalScalarDefinitions(project, canonicalName);
-
-        for (PerlVariableDeclarationElement variable : variables) {
-          result.add(new PerlVariableDeclarationStructureViewElement(variable).setImported(exportDescritptor));
-        }
-
-        // globs
-        Collection<PsiPerlGlobVariable> items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName, projectScope);
-        if (items.isEmpty()) {
-          items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName);
-        }
-
-        for (PerlGlobVariable item : items) {
-          result.add(new PerlGlobStructureViewElement(item).setImported(exportDescritptor));
+      else {
+        for (PerlVariableDeclarationElement child : PsiTreeUtil.findChildrenOfType(psiElement, PerlVariableDeclarationElement.class)) {
+          if (child.isGlobalDeclaration() && psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
+            result.add(new PerlVariableDeclarationStructureViewElement(child));
+          }
         }
       }
 
-      // imported arrays
-      for (PerlExportDescriptor exportDescritptor : ((PerlNamespaceDefinitionElement)psiElement).getImportedArrayDescriptors()) {
-        String canonicalName = exportDescritptor.getTargetCanonicalName();
-
-        Collection<PerlVariableDeclarationElement> variables = PerlArrayUtil.getGlobalArrayDefinitions(project, canonicalName);
-
-        for (PerlVariableDeclarationElement variable : variables) {
-          result.add(new PerlVariableDeclarationStructureViewElement(variable).setImported(exportDescritptor));
-        }
-
-        // globs
-        Collection<PsiPerlGlobVariable> items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName, projectScope);
-        if (items.isEmpty()) {
-          items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName);
-        }
-
-        for (PerlGlobVariable item : items) {
-          result.add(new PerlGlobStructureViewElement(item).setImported(exportDescritptor));
+      // imported elements
+      for (Pair<PerlExportDescriptor, PsiElement> importedElement : getImportedElements((PerlNamespaceDefinitionElement)psiElement)) {
+        PerlStructureViewElement importedChild = createImportedChild(importedElement.second);
+        if (importedChild != null) {
+          result.add(importedChild.setImported(importedElement.first));
         }
       }
 
-      // imported hashes
-      for (PerlExportDescriptor exportDescritptor : ((PerlNamespaceDefinitionElement)psiElement).getImportedHashDescriptors()) {
-        String canonicalName = exportDescritptor.getTargetCanonicalName();
-
-        Collection<PerlVariableDeclarationElement> variables = PerlHashUtil.getGlobalHashDefinitions(project, canonicalName);
-
-        for (PerlVariableDeclarationElement variable : variables) {
-          result.add(new PerlVariableDeclarationStructureViewElement(variable).setImported(exportDescritptor));
-        }
-
-        // globs
-        Collection<PsiPerlGlobVariable> items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName, projectScope);
-        if (items.isEmpty()) {
-          items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName);
-        }
-
-        for (PerlGlobVariable item : items) {
-          result.add(new PerlGlobStructureViewElement(item).setImported(exportDescritptor));
-        }
-      }
-
-      // Imported subs
-      for (PerlExportDescriptor exportDescritptor : ((PerlNamespaceDefinitionElement)psiElement).getImportedSubsDescriptors()) {
-        String canonicalName = exportDescritptor.getTargetCanonicalName();
-
-        // declarations
-        Collection<PerlSubDeclarationElement> subDeclarations = PerlSubUtil.getSubDeclarations(project, canonicalName, projectScope);
-        if (subDeclarations.isEmpty()) {
-          subDeclarations = PerlSubUtil.getSubDeclarations(project, canonicalName);
-        }
-
-        for (PerlSubDeclarationElement item : subDeclarations) {
-          result.add(new PerlSubStructureViewElement(item).setImported(exportDescritptor));
-        }
-
-        // definitions
-        Collection<PerlSubDefinitionElement> subDefinitions = PerlSubUtil.getSubDefinitions(project, canonicalName, projectScope);
-        if (subDefinitions.isEmpty()) {
-          subDefinitions = PerlSubUtil.getSubDefinitions(project, canonicalName);
-        }
-
-        for (PerlSubDefinitionElement item : subDefinitions) {
-          result.add(new PerlSubStructureViewElement(item).setImported(exportDescritptor));
-        }
-
-        // globs
-        Collection<PsiPerlGlobVariable> items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName, projectScope);
-        if (items.isEmpty()) {
-          items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName);
-        }
-
-        for (PerlGlobVariable item : items) {
-          result.add(new PerlGlobStructureViewElement(item).setImported(exportDescritptor));
-        }
+      if (namespaceStub != null) {
+        processStubbedElements(namespaceStub, true, it -> {
+          if (!(it instanceof PerlSubDefinitionElement || it instanceof PerlSubDeclarationElement ||
+                it instanceof PsiPerlGlobVariable && ((PsiPerlGlobVariable)it).isLeftSideOfAssignment())) {
+            return true;
+          }
+          if (it instanceof PerlSubDefinitionElement) {
+            implementedMethods.add(((PerlSubDefinitionElement)it).getName());
+            result.add(new PerlSubStructureViewElement((PerlSubDefinitionElement)it));
+          }
+          else if (it instanceof PerlSubDeclarationElement) {
+            result.add(new PerlSubStructureViewElement((PerlSubDeclarationElement)it));
+          }
+          else {
+            implementedMethods.add(((PsiPerlGlobVariable)it).getName());
+            result.add(new PerlGlobStructureViewElement((PsiPerlGlobVariable)it));
+          }
+          return true;
+        });
       }
+      else {
+        psiElement.accept(new PerlRecursiveVisitor() {
+          @Override
+          public void visitPerlSubDefinitionElement(@NotNull PerlSubDefinitionElement child) {
+            if (psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
+              implementedMethods.add(child.getName());
 
-      psiElement.accept(new PerlRecursiveVisitor() {
-        @Override
-        public void visitPerlSubDefinitionElement(@NotNull PerlSubDefinitionElement child) {
-          if (psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
-            implementedMethods.add(child.getName());
-
-            result.add(new PerlSubStructureViewElement(child));
+              result.add(new PerlSubStructureViewElement(child));
+            }
+            super.visitPerlSubDefinitionElement(child);
           }
-          super.visitPerlSubDefinitionElement(child);
-        }
 
-        @Override
-        public void visitSubDeclarationElement(@NotNull PerlSubDeclarationElement child) {
-          if (psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
-            result.add(new PerlSubStructureViewElement(child));
+          @Override
+          public void visitSubDeclarationElement(@NotNull PerlSubDeclarationElement child) {
+            if (psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
+              result.add(new PerlSubStructureViewElement(child));
+            }
+            super.visitSubDeclarationElement(child);
           }
-          super.visitSubDeclarationElement(child);
-        }
 
-        @Override
-        protected boolean shouldVisitLightElements() {
-          return true;
-        }
+          @Override
+          protected boolean shouldVisitLightElements() {
+            return true;
+          }
 
-        @Override
-        public void visitGlobVariable(@NotNull PsiPerlGlobVariable child) {
-          if (child.isLeftSideOfAssignment() && psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
-            implementedMethods.add(child.getName());
-            result.add(new PerlGlobStructureViewElement(child));
+          @Override
+          public void visitGlobVariable(@NotNull PsiPerlGlobVariable child) {
+            if (child.isLeftSideOfAssignment() && psiElement.isEquivalentTo(PerlPackageUtil.getNamespaceContainerForElement(child))) {
+              implementedMethods.add(child.getName());
+              result.add(new PerlGlobStructureViewElement(child));
+            }
+            super.visitGlobVariable(child);
           }
-          super.visitGlobVariable(child);
-        }
-      });
+        });
+      }
     }
 
     // inherited elements
@@ -363,4 +327,141 @@ public abstract class PerlStructureViewElement extends PsiTreeElementBase<PsiEle
 
     return result;
   }
+
+  /**
+   * @return stub of the {@code element} if its tree is not loaded, e.g. file is not opened in the editor, null otherwise
+   */
+  @Nullable
+  private static StubElement<?> getStub(@NotNull PsiElement element) {
+    if (element instanceof PsiFileImpl) {
+      return ((PsiFileImpl)element).getStub();
+    }
+    return element instanceof StubBasedPsiElementBase ? ((StubBasedPsiElementBase<?>)element).getStub() : null;
+  }
+
+  /**
+   * Processes psi elements of {@code stub} descendants in the document order. Light elements of poly-named elements are processed
+   * right after them, like {@link PerlRecursiveVisitor} does. Works with stubs only, psi parents are not touched, because this
+   * would load the tree
+   *
+   * @param skipNestedNamespaces if true, nested namespaces and their content are skipped, so only elements contained by the
+   *                             {@code stub} namespace are processed
+   */
+  private static boolean processStubbedElements(@NotNull StubElement<?> stub,
+                                                boolean skipNestedNamespaces,
+                                                @NotNull Processor<? super PsiElement> processor) {
+    for (StubElement<?> childStub : stub.getChildrenStubs()) {
+      ProgressManager.checkCanceled();
+      PsiElement childElement = childStub.getPsi();
+      if (skipNestedNamespaces && childElement instanceof PerlNamespaceDefinitionElement) {
+        continue;
+      }
+      if (!processor.process(childElement)) {
+        return false;
+      }
+      if (childElement instanceof PerlPolyNamedElement) {
+        for (PerlDelegatingLightNamedElement<?> lightElement : ((PerlPolyNamedElement<?>)childElement).getLightElements()) {
+          if (!processor.process(lightElement)) {
+            return false;
+          }
+        }
+      }
+      if (!processStubbedElements(childStub, skipNestedNamespaces, processor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nullable
+  private static PerlStructureViewElement createImportedChild(@NotNull PsiElement element) {
+    if (element instanceof PerlSubDefinitionElement) {
+      return new PerlSubStructureViewElement((PerlSubDefinitionElement)element);
+    }
+    else if (element instanceof PerlSubDeclarationElement) {
+      return new PerlSubStructureViewElement((PerlSubDeclarationElement)element);
+    }
+    else if (element instanceof PerlGlobVariable) {
+      return new PerlGlobStructureViewElement((PerlGlobVariable)element);
+    }
+    else if (element instanceof PerlVariableDeclarationElement) {
+      return new PerlVariableDeclarationStructureViewElement((PerlVariableDeclarationElement)element);
+    }
+    return null;
+  }
+
+  /**
+   * @return elements imported into the {@code namespace} with their export descriptors. Imported elements are coming from other files,
+   * so the result is cached until any psi change
+   */
+  @NotNull
+  private static List<Pair<PerlExportDescriptor, PsiElement>> getImportedElements(@NotNull PerlNamespaceDefinitionElement namespace) {
+    return CachedValuesManager.getCachedValue(
+      namespace, () -> CachedValueProvider.Result.create(computeImportedElements(namespace), PsiModificationTracker.MODIFICATION_COUNT));
+  }
+
+  @NotNull
+  private static List<Pair<PerlExportDescriptor, PsiElement>> computeImportedElements(@NotNull PerlNamespaceDefinitionElement namespace) {
+    List<Pair<PerlExportDescriptor, PsiElement>> result = new ArrayList<>();
+    Project project = namespace.getProject();
+    GlobalSearchScope projectScope = GlobalSearchScope.projectScope(project);
+    // same name may be imported with different sigils
+    Map<String, Collection<PsiPerlGlobVariable>> globsMap = new HashMap<>();
+    Function<String, Collection<PsiPerlGlobVariable>> globsComputer = canonicalName -> {
+      Collection<PsiPerlGlobVariable> items = PerlGlobUtil.getGlobsDefinitions(project, canonicalName, projectScope);
+      return items.isEmpty() ? PerlGlobUtil.getGlobsDefinitions(project, canonicalName) : items;
+    };
+
+    // imported scalars
+    for (PerlExportDescriptor exportDescriptor : namespace.getImportedScalarDescriptors()) {
+      String canonicalName = exportDescriptor.getTargetCanonicalName();
+      addImportedElements(result, exportDescriptor, PerlScalarUtil.getGlobalScalarDefinitions(project, canonicalName));
+      addImportedElements(result, exportDescriptor, globsMap.computeIfAbsent(canonicalName, globsComputer));
+    }
+
+    // imported arrays
+    for (PerlExportDescriptor exportDescriptor : namespace.getImportedArrayDescriptors()) {
+      String canonicalName = exportDescriptor.getTargetCanonicalName();
+      addImportedElements(result, exportDescriptor, PerlArrayUtil.getGlobalArrayDefinitions(project, canonicalName));
+      addImportedElements(result, exportDescriptor, globsMap.computeIfAbsent(canonicalName, globsComputer));
+    }
+
+    // imported hashes
+    for (PerlExportDescriptor exportDescriptor : namespace.getImportedHashDescriptors()) {
+      String canonicalName = exportDescriptor.getTargetCanonicalName();
+      addImportedElements(result, exportDescriptor, PerlHashUtil.getGlobalHashDefinitions(project, canonicalName));
+      addImportedElements(result, exportDescriptor, globsMap.computeIfAbsent(canonicalName, globsComputer));
+    }
+
+    // imported subs
+    for (PerlExportDescriptor exportDescriptor : namespace.getImportedSubsDescriptors()) {
+      String canonicalName = exportDescriptor.getTargetCanonicalName();
+
+      // declarations
+      Collection<PerlSubDeclarationElement> subDeclarations = PerlSubUtil.getSubDeclarations(project, canonicalName, projectScope);
+      if (subDeclarations.isEmpty()) {
+        subDeclarations = PerlSubUtil.getSubDeclarations(project, canonicalName);
+      }
+      addImportedElements(result, exportDescriptor, subDeclarations);
+
+      // definitions
+      Collection<PerlSubDefinitionElement> subDefinitions = PerlSubUtil.getSubDefinitions(project, canonicalName, projectScope);
+      if (subDefinitions.isEmpty()) {
+        subDefinitions = PerlSubUtil.getSubDefinitions(project, canonicalName);
+      }
+      addImportedElements(result, exportDescriptor, subDefinitions);
+
+      addImportedElements(result, exportDescriptor, globsMap.computeIfAbsent(canonicalName, globsComputer));
+    }
+    return result;
+  }
+
+  private static void addImportedElements(@NotNull List<Pair<PerlExportDescriptor, PsiElement>> result,
+                                          @NotNull PerlExportDescriptor exportDescriptor,
+                                          @NotNull Collection<? extends PsiElement> elements) {
+    for (PsiElement element : elements) {
+      ProgressManager.checkCanceled();
+      result.add(Pair.create(exportDescriptor, element));
+    }
+  }
 }
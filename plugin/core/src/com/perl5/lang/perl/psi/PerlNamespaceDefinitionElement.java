@@ -22,6 +22,7 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiInvalidElementAccessException;
 import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlExportDescriptor;
 import com.perl5.lang.perl.psi.stubs.imports.PerlUseStatementsIndex;
 import com.perl5.lang.perl.util.PerlPackageUtil;
@@ -82,6 +83,14 @@ public interface PerlNamespaceDefinitionElement extends PerlNamespaceDefinition,
     return PerlPackageUtil.getChildNamespaces(getProject(), getNamespaceName());
   }
 
+  /**
+   * Processes child namespaces definitions without collecting them. Implementations overriding
+   * {@link #getChildNamespaceDefinitions()} should override this method as well
+   */
+  default boolean processChildNamespaceDefinitions(@NotNull Processor<? super PerlNamespaceDefinitionElement> processor) {
+    return PerlPackageUtil.processChildNamespaces(getNamespaceName(), getProject(), processor);
+  }
+
   default void getLinearISA(@NotNull Set<String> recursionMap, @NotNull List<String> result) {
     getMro().getLinearISA(getProject(), getParentNamespaceDefinitions(), recursionMap, result);
   }
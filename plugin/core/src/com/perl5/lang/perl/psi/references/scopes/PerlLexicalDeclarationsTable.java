@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.psi.references.scopes;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.ResolveState;
+import com.intellij.psi.scope.PsiScopeProcessor;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.SmartList;
+import com.perl5.lang.perl.extensions.PerlImplicitVariablesProvider;
+import com.perl5.lang.perl.psi.PerlCompositeElement;
+import com.perl5.lang.perl.psi.PerlVariable;
+import com.perl5.lang.perl.psi.PerlVariableDeclarationElement;
+import com.perl5.lang.perl.psi.properties.PerlLexicalScope;
+import com.perl5.lang.perl.psi.utils.PerlVariableType;
+import gnu.trove.THashMap;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variables declarations visible in the lexical scope, grouped by variable type and name. Contains the same declarations, in the same
+ * order, as {@link com.perl5.lang.perl.psi.utils.PerlResolveUtil#processChildren} reports for the scope children, but allows to find
+ * the ones preceding some child with binary search instead of walking all previous siblings.
+ */
+public final class PerlLexicalDeclarationsTable {
+  private static final PerlLexicalDeclarationsTable EMPTY = new PerlLexicalDeclarationsTable(Collections.emptyMap());
+
+  @NotNull
+  private final Map<String, Declarations> myDeclarationsMap;
+
+  private PerlLexicalDeclarationsTable(@NotNull Map<String, Declarations> declarationsMap) {
+    myDeclarationsMap = declarationsMap;
+  }
+
+  /**
+   * Processes declarations of variable with {@code variableType} and {@code variableName} from the {@code scope} children preceding
+   * {@code lastParent}, most recent first, and implicit declarations of the {@code scope} itself. Behaves like
+   * {@code scope.processDeclarations(processor, state, lastParent, place)} for the processor interested in this variable only.
+   *
+   * @param lastParent direct child of the {@code scope} we are resolving from
+   */
+  public boolean processDeclarations(@NotNull PerlLexicalScope scope,
+                                     @NotNull PerlVariableType variableType,
+                                     @NotNull String variableName,
+                                     @NotNull PsiElement lastParent,
+                                     @NotNull PsiScopeProcessor processor,
+                                     @NotNull ResolveState state) {
+    Declarations declarations = myDeclarationsMap.get(computeKey(variableType, variableName));
+    if (declarations != null && !declarations.process(lastParent.getStartOffsetInParent(), processor, state)) {
+      return false;
+    }
+
+    if (scope instanceof PerlImplicitVariablesProvider) {
+      for (PerlVariableDeclarationElement wrapper : ((PerlImplicitVariablesProvider)scope).getImplicitVariables()) {
+        ProgressManager.checkCanceled();
+        if (!processor.execute(wrapper, state)) {
+          return false;
+        }
+      }
+    }
+
+    return processor.execute(scope, state);
+  }
+
+  @Override
+  public String toString() {
+    return "Declarations: " + myDeclarationsMap.keySet();
+  }
+
+  /**
+   * @return lazily built table for the {@code scope}, invalidated on any change in the containing file
+   */
+  @NotNull
+  public static PerlLexicalDeclarationsTable getInstance(@NotNull PerlLexicalScope scope) {
+    return CachedValuesManager.getCachedValue(
+      scope, () -> CachedValueProvider.Result.create(build(scope), scope.getContainingFile()));
+  }
+
+  @NotNull
+  private static PerlLexicalDeclarationsTable build(@NotNull PerlLexicalScope scope) {
+    Map<String, Declarations> declarationsMap = new THashMap<>();
+    List<PerlVariableDeclarationElement> childDeclarations = new ArrayList<>();
+    PsiScopeProcessor collector = (element, state) -> {
+      if (element instanceof PerlVariableDeclarationElement) {
+        childDeclarations.add((PerlVariableDeclarationElement)element);
+      }
+      return true;
+    };
+
+    ResolveState state = ResolveState.initial();
+    for (PsiElement child = scope.getFirstChild(); child != null; child = child.getNextSibling()) {
+      ProgressManager.checkCanceled();
+      if (!(child instanceof PerlCompositeElement) || child instanceof PerlLexicalScope) {
+        continue;
+      }
+      child.processDeclarations(collector, state, null, scope);
+      if (childDeclarations.isEmpty()) {
+        continue;
+      }
+
+      int childOffset = child.getStartOffsetInParent();
+      // declarations are reported most recent first, we are storing them in natural order
+      for (int i = childDeclarations.size() - 1; i >= 0; i--) {
+        PerlVariableDeclarationElement declaration = childDeclarations.get(i);
+        String key = computeKey(declaration.getVariable());
+        if (key != null) {
+          declarationsMap.computeIfAbsent(key, it -> new Declarations()).add(childOffset, declaration);
+        }
+      }
+      childDeclarations.clear();
+    }
+
+    return declarationsMap.isEmpty() ? EMPTY : new PerlLexicalDeclarationsTable(declarationsMap);
+  }
+
+  @Nullable
+  private static String computeKey(@NotNull PerlVariable variable) {
+    PerlVariableType variableType = variable.getActualType();
+    String variableName = variable.getName();
+    return variableType == null || variableName == null ? null : computeKey(variableType, variableName);
+  }
+
+  @NotNull
+  private static String computeKey(@NotNull PerlVariableType variableType, @NotNull String variableName) {
+    return variableType.getSigil() + variableName;
+  }
+
+  /**
+   * Declarations of the same variable in natural order with offsets of the scope children they are coming from
+   */
+  private static class Declarations {
+    private final TIntArrayList myChildOffsets = new TIntArrayList(1);
+    private final List<PerlVariableDeclarationElement> myDeclarations = new SmartList<>();
+
+    void add(int childOffset, @NotNull PerlVariableDeclarationElement declaration) {
+      myChildOffsets.add(childOffset);
+      myDeclarations.add(declaration);
+    }
+
+    /**
+     * Processes declarations from children starting before {@code childOffset}, most recent first
+     */
+    boolean process(int childOffset, @NotNull PsiScopeProcessor processor, @NotNull ResolveState state) {
+      for (int i = findLastBefore(childOffset); i >= 0; i--) {
+        ProgressManager.checkCanceled();
+        if (!processor.execute(myDeclarations.get(i), state)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return index of the last declaration coming from a child starting before {@code childOffset} or -1 if there is no such one
+     */
+    private int findLastBefore(int childOffset) {
+      int low = 0;
+      int high = myChildOffsets.size() - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (myChildOffsets.get(middle) < childOffset) {
+          low = middle + 1;
+        }
+        else {
+          high = middle - 1;
+        }
+      }
+      return high;
+    }
+  }
+}
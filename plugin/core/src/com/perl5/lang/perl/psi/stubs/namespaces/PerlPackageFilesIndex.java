@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.perl5.lang.perl.psi.stubs.namespaces;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.perl5.lang.perl.fileTypes.PerlFileTypePackage;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.perl5.lang.perl.parser.PerlParserUtil.IDENTIFIER_PATTERN;
+
+/**
+ * Index of perl package files by their names without extension, like {@link com.intellij.psi.search.FilenameIndex}. Package names
+ * depend on the library roots and parent directories, so they are computed by callers at query time from the path relative to the root.
+ * Keys depend on file names only, so the index stays valid when parent directories are renamed or moved.
+ */
+public class PerlPackageFilesIndex extends ScalarIndexExtension<String> {
+  public static final ID<String, Void> KEY = ID.create("perl.package.files");
+  private static final int VERSION = 2;
+
+  @NotNull
+  @Override
+  public ID<String, Void> getName() {
+    return KEY;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return inputData -> {
+      String fileName = inputData.getFile().getNameWithoutExtension();
+      return IDENTIFIER_PATTERN.matcher(fileName).matches() ? Collections.singletonMap(fileName, null) : Collections.emptyMap();
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return file -> file.getFileType() == PerlFileTypePackage.INSTANCE;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return false;
+  }
+
+  /**
+   * Processes package files from the {@code scope} with names without extension satisfying the {@code fileNameCondition}
+   */
+  public static boolean processFiles(@NotNull Condition<? super String> fileNameCondition,
+                                     @NotNull GlobalSearchScope scope,
+                                     @NotNull Processor<? super VirtualFile> processor) {
+    FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+    List<String> names = new ArrayList<>();
+    fileBasedIndex.processAllKeys(KEY, name -> {
+      ProgressManager.checkCanceled();
+      if (fileNameCondition.value(name)) {
+        names.add(name);
+      }
+      return true;
+    }, scope, null);
+
+    for (String name : names) {
+      if (!fileBasedIndex.processValues(KEY, name, null, (file, value) -> {
+        ProgressManager.checkCanceled();
+        return processor.process(file);
+      }, scope)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
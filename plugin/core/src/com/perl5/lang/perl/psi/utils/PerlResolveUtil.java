@@ -30,8 +30,10 @@ import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.util.PsiUtilCore;
 import com.intellij.util.PairProcessor;
+import com.perl5.lang.perl.PerlLanguage;
 import com.perl5.lang.perl.extensions.PerlImplicitVariablesProvider;
 import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowBuilder;
+import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlControlFlowSummary;
 import com.perl5.lang.perl.idea.codeInsight.controlFlow.PerlMutationInstruction;
 import com.perl5.lang.perl.idea.codeInsight.typeInference.value.PerlOneOfValue;
 import com.perl5.lang.perl.idea.codeInsight.typeInference.value.PerlValue;
@@ -41,6 +43,7 @@ import com.perl5.lang.perl.psi.*;
 import com.perl5.lang.perl.psi.impl.PerlBuiltInVariable;
 import com.perl5.lang.perl.psi.impl.PerlImplicitVariableDeclaration;
 import com.perl5.lang.perl.psi.properties.PerlLexicalScope;
+import com.perl5.lang.perl.psi.references.scopes.PerlLexicalDeclarationsTable;
 import com.perl5.lang.perl.psi.references.scopes.PerlVariableDeclarationSearcher;
 import com.perl5.lang.perl.util.PerlUtil;
 import org.jetbrains.annotations.Contract;
@@ -120,13 +123,50 @@ public class PerlResolveUtil {
     }
     return CachedValuesManager.getCachedValue(variable, () -> {
       PerlVariableDeclarationSearcher variableProcessor = new PerlVariableDeclarationSearcher(variable);
-      if (PerlResolveUtil.treeWalkUp(variable, variableProcessor)) {
+      if (treeWalkUpLexicalDeclarations(variable, variableProcessor)) {
         variableProcessor.processBuiltIns();
       }
       return CachedValueProvider.Result.create(variableProcessor.getResult(), variable.getContainingFile());
     });
   }
 
+  /**
+   * Same as {@link #treeWalkUp(PsiElement, PsiScopeProcessor)}, but for the lexical scopes of plain Perl files uses
+   * {@link PerlLexicalDeclarationsTable} instead of walking all previous siblings. Processor should be interested in declarations of
+   * the {@code variable} only
+   */
+  private static boolean treeWalkUpLexicalDeclarations(@NotNull PerlVariable variable, @NotNull PsiScopeProcessor processor) {
+    PerlVariableType variableType = variable.getActualType();
+    String variableName = variable.getName();
+    PsiFile containingFile = variable.getContainingFile();
+    if (variableType == null || variableName == null ||
+        containingFile == null || containingFile.getLanguage() != PerlLanguage.INSTANCE) {
+      return treeWalkUp(variable, processor);
+    }
+
+    PsiElement lastParent = null;
+    PsiElement run = variable;
+    ResolveState state = ResolveState.initial();
+    while (run != null) {
+      ProgressManager.checkCanceled();
+      if (run != variable) {
+        if (run instanceof PerlLexicalScope && lastParent.getParent() == run) {
+          if (!PerlLexicalDeclarationsTable.getInstance((PerlLexicalScope)run).processDeclarations(
+            (PerlLexicalScope)run, variableType, variableName, lastParent, processor, state)) {
+            return false;
+          }
+        }
+        else if (!run.processDeclarations(processor, state, lastParent, variable)) {
+          return false;
+        }
+      }
+      lastParent = run;
+
+      run = run.getContext();
+    }
+    return true;
+  }
+
   /**
    * Processing all targets of all references of all {@code sourceElements}
    */
@@ -353,19 +393,9 @@ public class PerlResolveUtil {
   @NotNull
   public static PerlValue computeReturnValueFromControlFlow(PsiElement subElement) {
     PerlOneOfValue.Builder valueBuilder = PerlOneOfValue.builder();
-    Instruction[] instructions = PerlControlFlowBuilder.getFor(subElement).getInstructions();
-    Instruction exitInstruction = instructions[instructions.length - 1];
-    PerlControlFlowBuilder.iteratePrev(instructions, it -> {
-      if (it == exitInstruction || it.num() == 0) {
-        return NEXT;
-      }
-      PsiElement element = it.getElement();
-      if (element == null) {
-        return NEXT;
-      }
+    for (PsiElement element : PerlControlFlowSummary.getFor(subElement).getExitElements()) {
       valueBuilder.addVariant(PerlValuesManager.from(element));
-      return CONTINUE;
-    });
+    }
 
     return valueBuilder.build();
   }
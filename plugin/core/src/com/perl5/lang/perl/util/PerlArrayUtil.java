@@ -70,12 +70,8 @@ public class PerlArrayUtil implements PerlElementTypes {
       return Collections.emptyList();
     }
     List<PerlVariableDeclarationElement> result = new SmartList<>();
-    processDefinedGlobalArrays(project, scope, it -> {
-      if (canonicalName.equals(it.getCanonicalName())) {
-        result.add(it);
-      }
-      return true;
-    });
+    PerlImplicitDeclarationsService.getInstance(project).processArrays(canonicalName, result::add);
+    PerlScalarUtil.processGlobalVariables(PerlVariablesStubIndex.KEY_ARRAY, project, scope, canonicalName, result::add);
     return result;
   }
 
@@ -16,8 +16,6 @@
 
 package com.perl5.lang.perl.util;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonObject;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
@@ -25,19 +23,10 @@ import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.xdebugger.XDebuggerManager;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
-import com.intellij.xdebugger.frame.XCompositeNode;
-import com.intellij.xdebugger.frame.XValueChildrenList;
-import com.perl5.lang.perl.idea.run.debugger.PerlDebugThread;
 import com.perl5.lang.perl.idea.run.debugger.PerlRemoteFileSystem;
-import com.perl5.lang.perl.idea.run.debugger.PerlStackFrame;
 import com.perl5.lang.perl.idea.run.debugger.breakpoints.PerlLineBreakpointProperties;
 import com.perl5.lang.perl.idea.run.debugger.breakpoints.PerlLineBreakpointType;
 import com.perl5.lang.perl.idea.run.debugger.protocol.PerlDebuggingEventBreakpoint;
-import com.perl5.lang.perl.idea.run.debugger.protocol.PerlDebuggingTransactionHandler;
-import com.perl5.lang.perl.idea.run.debugger.protocol.PerlValueDescriptor;
-import com.perl5.lang.perl.idea.run.debugger.protocol.PerlValueRequestDescriptor;
-import com.perl5.lang.perl.idea.run.debugger.values.PerlXNamedValue;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
@@ -75,35 +64,4 @@ public class PerlDebugUtil {
     });
     return result[0];
   }
-
-  public static void requestAndComputeChildren(@NotNull final XCompositeNode node,
-                                               final PerlStackFrame perlStackFrame,
-                                               final int[] offset,
-                                               final int size,
-                                               String key) {
-    PerlDebugThread thread = perlStackFrame.getPerlExecutionStack().getSuspendContext().getDebugThread();
-
-    final int frameSize = XCompositeNode.MAX_CHILDREN_TO_SHOW;
-    thread.sendCommandAndGetResponse("getchildren", new PerlValueRequestDescriptor(offset[0], frameSize, key),
-                                     new PerlDebuggingTransactionHandler() {
-                                       @Override
-                                       public void run(JsonObject jsonObject, JsonDeserializationContext jsonDeserializationContext) {
-                                         PerlValueDescriptor[] descriptors = jsonDeserializationContext.deserialize(
-                                           jsonObject.getAsJsonArray("data"), PerlValueDescriptor[].class
-                                         );
-
-                                         XValueChildrenList list = new XValueChildrenList();
-                                         for (PerlValueDescriptor descriptor : descriptors) {
-                                           list.add(new PerlXNamedValue(descriptor, perlStackFrame));
-
-                                           offset[0]++;
-                                         }
-                                         boolean isLast = offset[0] >= size;
-                                         node.addChildren(list, isLast);
-                                         if (!isLast) {
-                                           node.tooManyChildren(size - offset[0]);
-                                         }
-                                       }
-                                     });
-  }
 }
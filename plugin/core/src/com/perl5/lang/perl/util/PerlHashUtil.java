@@ -87,12 +87,8 @@ public class PerlHashUtil implements PerlElementTypes {
       return Collections.emptyList();
     }
     List<PerlVariableDeclarationElement> result = new SmartList<>();
-    processDefinedGlobalHashes(project, scope, it -> {
-      if (canonicalName.equals(it.getCanonicalName())) {
-        result.add(it);
-      }
-      return true;
-    });
+    PerlImplicitDeclarationsService.getInstance(project).processHashes(canonicalName, result::add);
+    PerlScalarUtil.processGlobalVariables(PerlVariablesStubIndex.KEY_HASH, project, scope, canonicalName, result::add);
     return result;
   }
 
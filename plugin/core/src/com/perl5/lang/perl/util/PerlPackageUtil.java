@@ -19,26 +19,34 @@ package com.perl5.lang.perl.util;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.Conditions;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.impl.source.PsiFileImpl;
 import com.intellij.psi.search.FileTypeIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubTree;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.PairProcessor;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
+import com.intellij.util.containers.ConcurrentFactoryMap;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlLibProvider;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlPackageParentsProvider;
 import com.perl5.lang.perl.extensions.packageprocessor.PerlPackageProcessor;
@@ -57,10 +65,12 @@ import com.perl5.lang.perl.lexer.PerlElementTypes;
 import com.perl5.lang.perl.psi.*;
 import com.perl5.lang.perl.psi.impl.PerlFileImpl;
 import com.perl5.lang.perl.psi.impl.PerlUseStatementElement;
+import com.perl5.lang.perl.psi.stubs.imports.PerlUseStatementStub;
 import com.perl5.lang.perl.psi.stubs.namespaces.PerlLightNamespaceIndex;
 import com.perl5.lang.perl.psi.stubs.namespaces.PerlLightNamespaceReverseIndex;
 import com.perl5.lang.perl.psi.stubs.namespaces.PerlNamespaceIndex;
 import com.perl5.lang.perl.psi.stubs.namespaces.PerlNamespaceReverseIndex;
+import com.perl5.lang.perl.psi.stubs.namespaces.PerlPackageFilesIndex;
 import com.perl5.lang.perl.psi.utils.PerlPsiUtil;
 import gnu.trove.THashSet;
 import org.apache.commons.lang.StringUtils;
@@ -383,13 +393,31 @@ public class PerlPackageUtil implements PerlElementTypes, PerlCorePackages {
     if (StringUtil.isEmpty(packageName)) {
       return Collections.emptyList();
     }
-    List<PerlNamespaceDefinitionElement> list = getChildNamespaces(project, packageName, GlobalSearchScope.projectScope(project));
-    if (list.isEmpty()) {
-      list = getChildNamespaces(project, packageName, GlobalSearchScope.allScope(project));
-    }
+    List<PerlNamespaceDefinitionElement> list = new ArrayList<>();
+    processChildNamespaces(packageName, project, list::add);
     return list;
   }
 
+  /**
+   * Processes derived classes in the project scope or, if there are none, in all scope. Same as
+   * {@link #getChildNamespaces(Project, String)}, but without collecting results
+   */
+  public static boolean processChildNamespaces(@Nullable String packageName,
+                                               @NotNull Project project,
+                                               @NotNull Processor<? super PerlNamespaceDefinitionElement> processor) {
+    if (StringUtil.isEmpty(packageName)) {
+      return true;
+    }
+    boolean[] hasProjectChildren = new boolean[]{false};
+    if (!processChildNamespaces(packageName, project, GlobalSearchScope.projectScope(project), it -> {
+      hasProjectChildren[0] = true;
+      return processor.process(it);
+    })) {
+      return false;
+    }
+    return hasProjectChildren[0] || processChildNamespaces(packageName, project, GlobalSearchScope.allScope(project), processor::process);
+  }
+
   @NotNull
   public static List<PerlNamespaceDefinitionElement> getChildNamespaces(@NotNull Project project,
                                                                         @NotNull String packageName,
@@ -521,16 +549,40 @@ public class PerlPackageUtil implements PerlElementTypes, PerlCorePackages {
     }
   }
 
-  public static void processPackageFilesForPsiElement(@NotNull PsiElement element, @NotNull PairProcessor<String, VirtualFile> processor) {
-    processIncFilesForPsiElement(
-      element,
-      (file, classRoot) -> {
-        String relativePath = VfsUtil.getRelativePath(file, classRoot);
-        String packageName = getPackageNameByPath(relativePath);
-        return processor.process(packageName, file);
-      },
-      PerlFileTypePackage.INSTANCE)
-    ;
+  /**
+   * Processes package files available from the {@code element} with names satisfying the {@code packageNameCondition}, using
+   * {@link PerlPackageFilesIndex} instead of traversing @INC directories. Package name of each file is computed relative to the innermost
+   * @INC directory containing it. Typed prefix may end in any segment of the name, so file names are not filtered.
+   */
+  public static void processPackageFilesForPsiElement(@NotNull PsiElement element,
+                                                      @NotNull Condition<? super String> packageNameCondition,
+                                                      @NotNull PairProcessor<String, VirtualFile> processor) {
+    List<VirtualFile> incDirs = getIncDirsForPsiElement(element);
+    if (incDirs.isEmpty()) {
+      return;
+    }
+    GlobalSearchScope searchScope = GlobalSearchScopesCore.directoriesScope(
+      element.getProject(), true, incDirs.toArray(VirtualFile.EMPTY_ARRAY));
+    PerlPackageFilesIndex.processFiles(Conditions.alwaysTrue(), searchScope, file -> {
+      VirtualFile classRoot = getInnermostIncDir(file, incDirs);
+      String relativePath = classRoot == null ? null : VfsUtil.getRelativePath(file, classRoot);
+      if (StringUtil.isEmpty(relativePath)) {
+        return true;
+      }
+      String packageName = getPackageNameByPath(relativePath);
+      return !packageNameCondition.value(packageName) || processor.process(packageName, file);
+    });
+  }
+
+  @Nullable
+  private static VirtualFile getInnermostIncDir(@NotNull VirtualFile file, @NotNull List<VirtualFile> incDirs) {
+    VirtualFile result = null;
+    for (VirtualFile incDir : incDirs) {
+      if (VfsUtil.isAncestor(incDir, file, true) && (result == null || VfsUtil.isAncestor(result, incDir, true))) {
+        result = incDir;
+      }
+    }
+    return result;
   }
 
   @SuppressWarnings("UnusedReturnValue")
@@ -705,15 +757,12 @@ public class PerlPackageUtil implements PerlElementTypes, PerlCorePackages {
   @Nullable
   public static VirtualFile resolveRelativePathToVirtualFile(@NotNull PsiFile psiFile, String relativePath) {
     if (relativePath != null) {
+      Map<VirtualFile, Map<String, VirtualFile>> resolveCache = getRelativePathsResolveCache(psiFile.getProject());
       for (VirtualFile classRoot : getIncDirsForPsiElement(psiFile)) {
-        if (classRoot != null) {
-          VirtualFile targetFile = classRoot.findFileByRelativePath(relativePath);
+        if (classRoot != null && classRoot.isValid()) {
+          VirtualFile targetFile = resolveCache.get(classRoot).get(relativePath);
           if (targetFile != null) {
-            String foundRelativePath = VfsUtil.getRelativePath(targetFile, classRoot);
-
-            if (StringUtil.isNotEmpty(foundRelativePath) && StringUtil.equals(foundRelativePath, relativePath)) {
-              return targetFile;
-            }
+            return targetFile;
           }
         }
       }
@@ -722,6 +771,27 @@ public class PerlPackageUtil implements PerlElementTypes, PerlCorePackages {
     return null;
   }
 
+  /**
+   * @return project-wide cache of relative paths resolution for each root, dropped on any vfs structure change
+   */
+  @NotNull
+  private static Map<VirtualFile, Map<String, VirtualFile>> getRelativePathsResolveCache(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result.create(
+      ConcurrentFactoryMap.createMap(classRoot -> ConcurrentFactoryMap.createMap(
+        relativePath -> resolveRelativePathInRoot(classRoot, relativePath))),
+      VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS, ProjectRootManager.getInstance(project)));
+  }
+
+  @Nullable
+  private static VirtualFile resolveRelativePathInRoot(@NotNull VirtualFile classRoot, @NotNull String relativePath) {
+    VirtualFile targetFile = classRoot.findFileByRelativePath(relativePath);
+    if (targetFile == null) {
+      return null;
+    }
+    String foundRelativePath = VfsUtil.getRelativePath(targetFile, classRoot);
+    return StringUtil.isNotEmpty(foundRelativePath) && StringUtil.equals(foundRelativePath, relativePath) ? targetFile : null;
+  }
+
   /**
    * Returns List of lib directories including class roots, current directory and use lib ones
    *
@@ -731,27 +801,67 @@ public class PerlPackageUtil implements PerlElementTypes, PerlCorePackages {
   @NotNull
   public static List<VirtualFile> getIncDirsForPsiElement(@NotNull PsiElement psiElement) {
     PsiFile psiFile = psiElement.getContainingFile().getOriginalFile();
-    List<VirtualFile> result = new ArrayList<>();
-
-    // libdirs providers fixme we need to use stubs or psi here
-    for (PerlUseStatementElement useStatement : PsiTreeUtil.findChildrenOfType(psiFile, PerlUseStatementElement.class)) {
-      PerlPackageProcessor packageProcessor = useStatement.getPackageProcessor();
-      if (packageProcessor instanceof PerlLibProvider) {
-        ((PerlLibProvider)packageProcessor).addLibDirs(useStatement, result);
-      }
-    }
-
-    // classpath
-    result.addAll(PerlProjectManager.getInstance(psiElement.getProject()).getAllLibraryRoots());
+    List<VirtualFile> libDirs = getLibDirsForFile(psiFile);
 
     // current dir
     if (PerlSharedSettings.getInstance(psiFile.getProject()).getTargetPerlVersion().lesserThan(PerlVersion.V5_26)) {
       VirtualFile virtualFile = psiFile.getVirtualFile();
       if (virtualFile != null && virtualFile.getParent() != null) {
+        List<VirtualFile> result = new ArrayList<>(libDirs.size() + 1);
+        result.addAll(libDirs);
         result.add(virtualFile.getParent());
+        return result;
       }
     }
 
+    return libDirs;
+  }
+
+  /**
+   * @return lib dirs from {@code use lib} statements of the {@code psiFile} followed by the library roots
+   */
+  @NotNull
+  private static List<VirtualFile> getLibDirsForFile(@NotNull PsiFile psiFile) {
+    return CachedValuesManager.getCachedValue(psiFile, () -> {
+      Project project = psiFile.getProject();
+      List<VirtualFile> result = new ArrayList<>();
+
+      // libdirs providers
+      for (PerlUseStatementElement useStatement : getUseStatements(psiFile)) {
+        PerlPackageProcessor packageProcessor = useStatement.getPackageProcessor();
+        if (packageProcessor instanceof PerlLibProvider) {
+          ((PerlLibProvider)packageProcessor).addLibDirs(useStatement, result);
+        }
+      }
+
+      // classpath
+      PerlProjectManager perlProjectManager = PerlProjectManager.getInstance(project);
+      result.addAll(perlProjectManager.getAllLibraryRoots());
+
+      return CachedValueProvider.Result.create(
+        Collections.unmodifiableList(result), psiFile, perlProjectManager.getModificationTracker(),
+        VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+    });
+  }
+
+  /**
+   * @return use statements of the {@code psiFile}, from stubs if possible
+   */
+  @NotNull
+  private static List<PerlUseStatementElement> getUseStatements(@NotNull PsiFile psiFile) {
+    StubTree stubTree = psiFile instanceof PsiFileImpl ? ((PsiFileImpl)psiFile).getGreenStubTree() : null;
+    if (stubTree == null) {
+      return new ArrayList<>(PsiTreeUtil.findChildrenOfType(psiFile, PerlUseStatementElement.class));
+    }
+    List<PerlUseStatementElement> result = new ArrayList<>();
+    for (StubElement<?> stubElement : stubTree.getPlainList()) {
+      if (stubElement instanceof PerlUseStatementStub) {
+        PsiElement psiElement = stubElement.getPsi();
+        if (psiElement instanceof PerlUseStatementElement) {
+          result.add((PerlUseStatementElement)psiElement);
+        }
+      }
+    }
     return result;
   }
 
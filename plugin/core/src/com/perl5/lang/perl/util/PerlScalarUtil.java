@@ -61,12 +61,8 @@ public class PerlScalarUtil implements PerlElementTypes, PerlBuiltInScalars {
       return Collections.emptyList();
     }
     List<PerlVariableDeclarationElement> result = new SmartList<>();
-    processDefinedGlobalScalars(project, scope, it -> {
-      if (canonicalName.equals(it.getCanonicalName())) {
-        result.add(it);
-      }
-      return true;
-    });
+    PerlImplicitDeclarationsService.getInstance(project).processScalars(canonicalName, result::add);
+    processGlobalVariables(PerlVariablesStubIndex.KEY_SCALAR, project, scope, canonicalName, result::add);
     return result;
   }
 
@@ -128,6 +124,24 @@ public class PerlScalarUtil implements PerlElementTypes, PerlBuiltInScalars {
     return true;
   }
 
+  /**
+   * Processes global indexed variables with specific canonical name
+   *
+   * @param key           stub index key
+   * @param canonicalName canonical variable name package::name
+   * @return false if we should stop processing
+   */
+  public static boolean processGlobalVariables(@NotNull StubIndexKey<String, PerlVariableDeclarationElement> key,
+                                               @NotNull Project project,
+                                               @NotNull GlobalSearchScope scope,
+                                               @NotNull String canonicalName,
+                                               @NotNull Processor<? super PerlVariableDeclarationElement> processor) {
+    return StubIndex.getInstance().processElements(key, canonicalName, project, scope, PerlVariableDeclarationElement.class, element -> {
+      ProgressManager.checkCanceled();
+      return processor.process(element);
+    });
+  }
+
   /**
    * Extracts value from the string element
    *
@@ -409,6 +409,11 @@ public class PodElementTypeFactory {
           return new PsiUnknownSectionImpl(stub, this);
         }
 
+        @Override
+        protected boolean isTargetable() {
+          return false;
+        }
+
         @NotNull
         @Override
         public PsiElement getPsiElement(@NotNull ASTNode node) {
@@ -48,6 +48,13 @@ public class PodSectionItemElementType extends PodStubBasedTitledSectionElementT
     return new PodSectionStub(parentStub, this, "" + prefix + psi.getPresentableText());
   }
 
+  @NotNull
+  @Override
+  protected String getTitleText(@NotNull PodSectionStub stub) {
+    String content = stub.getContent();
+    return content.isEmpty() ? "" : content.substring(1);
+  }
+
   @Override
   protected boolean shouldCreateStub(@NotNull PodSectionItem item) {
     return item.isIndexed() && StringUtil.isNotEmpty(item.getPresentableText()) ||
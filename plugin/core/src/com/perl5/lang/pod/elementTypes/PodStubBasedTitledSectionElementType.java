@@ -17,9 +17,11 @@
 package com.perl5.lang.pod.elementTypes;
 
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.perl5.lang.pod.parser.psi.mixin.PodStubBasedTitledSection;
 import com.perl5.lang.pod.parser.psi.stubs.PodSectionStub;
+import com.perl5.lang.pod.parser.psi.stubs.PodTitledSectionsIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
@@ -40,4 +42,30 @@ public abstract class PodStubBasedTitledSectionElementType<Psi extends PodStubBa
   protected boolean shouldCreateStub(@NotNull Psi psi) {
     return StringUtil.isNotEmpty(psi.getTitleText());
   }
+
+  @Override
+  public void indexStub(@NotNull PodSectionStub stub, @NotNull IndexSink sink) {
+    if (!isTargetable()) {
+      return;
+    }
+    String titleText = getTitleText(stub);
+    if (StringUtil.isNotEmpty(titleText)) {
+      sink.occurrence(PodTitledSectionsIndex.KEY, titleText);
+    }
+  }
+
+  /**
+   * @return title text of the section, the same as {@link PodStubBasedTitledSection#getTitleText()} returns for the {@code stub}
+   */
+  @NotNull
+  protected String getTitleText(@NotNull PodSectionStub stub) {
+    return stub.getContent();
+  }
+
+  /**
+   * @return true iff sections of this type may be targeted by the POD links
+   */
+  protected boolean isTargetable() {
+    return true;
+  }
 }
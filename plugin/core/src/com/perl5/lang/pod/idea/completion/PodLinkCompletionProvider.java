@@ -97,7 +97,7 @@ public class PodLinkCompletionProvider extends CompletionProvider<CompletionPara
       return true;
     }, PodFileType.INSTANCE);
 
-    PerlPackageUtil.processPackageFilesForPsiElement(link, (packageName, file) -> {
+    PerlPackageUtil.processPackageFilesForPsiElement(link, result.getPrefixMatcher()::prefixMatches, (packageName, file) -> {
       if (StringUtil.isNotEmpty(packageName)) {
         if (!foundPods.contains(packageName)) {
           result.addElement(PerlPackageCompletionUtil.getPackageLookupElement(file, packageName, null));
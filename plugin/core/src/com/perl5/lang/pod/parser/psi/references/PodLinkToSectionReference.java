@@ -24,9 +24,9 @@ import com.perl5.lang.perl.psi.references.PerlCachingReference;
 import com.perl5.lang.pod.idea.completion.PodLinkCompletionProvider;
 import com.perl5.lang.pod.parser.psi.PodElementFactory;
 import com.perl5.lang.pod.parser.psi.PodLinkDescriptor;
-import com.perl5.lang.pod.parser.psi.PodStubsAwareRecursiveVisitor;
 import com.perl5.lang.pod.parser.psi.PodTitledSection;
 import com.perl5.lang.pod.parser.psi.mixin.PodFormatterL;
+import com.perl5.lang.pod.parser.psi.stubs.PodTitledSectionsIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -77,15 +77,7 @@ public class PodLinkToSectionReference extends PerlCachingReference<PodFormatter
 
     List<PsiElement> results = new ArrayList<>();
     for (PsiFile file : targetFiles) {
-      file.accept(new PodStubsAwareRecursiveVisitor() {
-        @Override
-        public void visitTargetableSection(PodTitledSection o) {
-          if (StringUtil.equals(sectionTitle, o.getTitleText())) {
-            results.add(o);
-          }
-          super.visitTargetableSection(o);
-        }
-      });
+      PodTitledSectionsIndex.processSections(file, sectionTitle, results::add);
       if (!results.isEmpty()) {
         break;
       }
@@ -107,15 +99,9 @@ public class PodLinkToSectionReference extends PerlCachingReference<PodFormatter
   public static List<PodTitledSection> getAllSynonymousSections(@NotNull PodTitledSection titledSection) {
     List<PodTitledSection> result = new ArrayList<>();
     String titleText = titledSection.getTitleText();
-    titledSection.getContainingFile().accept(new PodStubsAwareRecursiveVisitor() {
-      @Override
-      public void visitTargetableSection(PodTitledSection o) {
-        if (StringUtil.equals(titleText, o.getTitleText())) {
-          result.add(o);
-        }
-        super.visitTargetableSection(o);
-      }
-    });
+    if (StringUtil.isNotEmpty(titleText)) {
+      PodTitledSectionsIndex.processSections(titledSection.getContainingFile(), titleText, result::add);
+    }
     return result;
   }
 }
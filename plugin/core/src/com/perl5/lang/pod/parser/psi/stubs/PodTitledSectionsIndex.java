@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.perl5.lang.pod.parser.psi.stubs;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.util.Processor;
+import com.perl5.lang.pod.parser.psi.PodStubsAwareRecursiveVisitor;
+import com.perl5.lang.pod.parser.psi.PodTitledSection;
+import com.perl5.lang.pod.parser.psi.mixin.PodStubBasedTitledSection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Index of sections that may be targeted by POD links: headings, items and {@code X<>} formatters, by their titles
+ */
+public class PodTitledSectionsIndex extends StringStubIndexExtension<PodStubBasedTitledSection> {
+  public static final int VERSION = 1;
+  public static final StubIndexKey<String, PodStubBasedTitledSection> KEY = StubIndexKey.createIndexKey("pod.titled.section");
+
+  @Override
+  public int getVersion() {
+    return super.getVersion() + VERSION;
+  }
+
+  @NotNull
+  @Override
+  public StubIndexKey<String, PodStubBasedTitledSection> getKey() {
+    return KEY;
+  }
+
+  /**
+   * Processes targetable sections of the pod {@code file} with {@code title}, in order of appearance. Uses index for physical files and
+   * walks the file otherwise.
+   */
+  public static boolean processSections(@NotNull PsiFile file,
+                                        @NotNull String title,
+                                        @NotNull Processor<? super PodTitledSection> processor) {
+    VirtualFile virtualFile = file.getViewProvider().getVirtualFile();
+    if (!file.isPhysical() || !(virtualFile instanceof VirtualFileWithId)) {
+      return processSectionsInTree(file, title, processor);
+    }
+    return StubIndex.getInstance().processElements(
+      KEY, title, file.getProject(), GlobalSearchScope.fileScope(file.getProject(), virtualFile), PodStubBasedTitledSection.class,
+      section -> {
+        ProgressManager.checkCanceled();
+        return !file.equals(section.getContainingFile()) || processor.process(section);
+      });
+  }
+
+  private static boolean processSectionsInTree(@NotNull PsiFile file,
+                                               @NotNull String title,
+                                               @NotNull Processor<? super PodTitledSection> processor) {
+    boolean[] result = new boolean[]{true};
+    file.accept(new PodStubsAwareRecursiveVisitor() {
+      @Override
+      public void visitTargetableSection(PodTitledSection o) {
+        if (result[0] && StringUtil.equals(title, o.getTitleText())) {
+          result[0] = processor.process(o);
+        }
+        if (result[0]) {
+          super.visitTargetableSection(o);
+        }
+      }
+    });
+    return result[0];
+  }
+}
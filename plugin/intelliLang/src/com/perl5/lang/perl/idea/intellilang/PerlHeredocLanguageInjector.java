@@ -22,12 +22,15 @@ import com.intellij.lang.injection.MultiHostRegistrar;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.ElementManipulators;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.perl5.lang.perl.idea.configuration.settings.PerlSharedSettings;
 import com.perl5.lang.perl.psi.PerlHeredocTerminatorElement;
 import com.perl5.lang.perl.psi.impl.PerlHeredocElementImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -77,12 +80,32 @@ public class PerlHeredocLanguageInjector implements MultiHostInjector {
   }
 
   private void addPlace(@NotNull PerlHeredocElementImpl heredocElement, @NotNull MultiHostRegistrar registrar) {
+    for (TextRange range : getInjectionRanges(heredocElement)) {
+      registrar.addPlace(null, null, heredocElement, range);
+    }
+  }
+
+  /**
+   * @return ranges of the {@code heredocElement} text, forming injected text, cached until the file is changed
+   */
+  @NotNull
+  private static List<TextRange> getInjectionRanges(@NotNull PerlHeredocElementImpl heredocElement) {
+    return CachedValuesManager.getCachedValue(
+      heredocElement, () -> CachedValueProvider.Result.create(computeInjectionRanges(heredocElement), heredocElement));
+  }
+
+  /**
+   * @return value range for the unindented heredoc and line ranges without indentation otherwise. Adjacent ranges, e.g. empty lines,
+   * are merged
+   */
+  @NotNull
+  private static List<TextRange> computeInjectionRanges(@NotNull PerlHeredocElementImpl heredocElement) {
     int indentSize = heredocElement.getRealIndentSize();
     if (indentSize == 0) {
-      registrar.addPlace(null, null, heredocElement, ElementManipulators.getValueTextRange(heredocElement));
-      return;
+      return Collections.singletonList(ElementManipulators.getValueTextRange(heredocElement));
     }
 
+    List<TextRange> result = new ArrayList<>();
     CharSequence sourceText = heredocElement.getNode().getChars();
 
     int currentLineIndent = 0;
@@ -92,7 +115,7 @@ public class PerlHeredocLanguageInjector implements MultiHostInjector {
     while (sourceOffset < sourceLength) {
       char currentChar = sourceText.charAt(sourceOffset);
       if (currentChar == '\n') {
-        registrar.addPlace(null, null, heredocElement, TextRange.from(sourceOffset, 1));
+        addRange(result, sourceOffset, sourceOffset + 1);
         currentLineIndent = 0;
       }
       else if (Character.isWhitespace(currentChar) && currentLineIndent < indentSize) {
@@ -109,13 +132,27 @@ public class PerlHeredocLanguageInjector implements MultiHostInjector {
           }
         }
 
-        registrar.addPlace(null, null, heredocElement, TextRange.create(sourceOffset, sourceEnd));
+        addRange(result, sourceOffset, sourceEnd);
         sourceOffset = sourceEnd;
         currentLineIndent = 0;
         continue;
       }
       sourceOffset++;
     }
+    return result;
+  }
+
+  /**
+   * Adds a range to the {@code ranges}, merging it with the last one if they are adjacent
+   */
+  private static void addRange(@NotNull List<TextRange> ranges, int startOffset, int endOffset) {
+    int lastIndex = ranges.size() - 1;
+    if (lastIndex >= 0 && ranges.get(lastIndex).getEndOffset() == startOffset) {
+      ranges.set(lastIndex, TextRange.create(ranges.get(lastIndex).getStartOffset(), endOffset));
+    }
+    else {
+      ranges.add(TextRange.create(startOffset, endOffset));
+    }
   }
 
   @NotNull
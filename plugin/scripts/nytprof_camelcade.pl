@@ -0,0 +1,44 @@
+#!/usr/bin/perl
+# Converts Devel::NYTProf data files into tab-separated records, one per line:
+#   S <sub name> <file> <first line> <calls> <inclusive time> <exclusive time>
+#   C <caller sub name> <callee sub name> <calls> <inclusive time>
+#   L <file> <line> <time> <statements>
+# Times are in seconds
+use strict;
+use warnings;
+use Devel::NYTProf::Data;
+use Devel::NYTProf::Constants qw(NYTP_SCi_CALL_COUNT NYTP_SCi_INCL_RTIME NYTP_SCi_CALLING_SUB);
+
+$| = 1;
+
+for my $data_file (@ARGV) {
+    my $profile = Devel::NYTProf::Data->new({ filename => $data_file, quiet => 1 });
+
+    my $subs = $profile->subname_subinfo_map;
+    for my $sub_info (values %$subs) {
+        next unless $sub_info->calls;
+        my $file_info = $sub_info->fileinfo;
+        print join("\t", 'S', $sub_info->subname, $file_info ? $file_info->filename : '', $sub_info->first_line || 0,
+            $sub_info->calls, $sub_info->incl_time, $sub_info->excl_time), "\n";
+
+        my $callers = $sub_info->caller_fid_line_places || {};
+        for my $lines (values %$callers) {
+            for my $call_data (values %$lines) {
+                for my $caller_name (keys %{$call_data->[NYTP_SCi_CALLING_SUB] || {}}) {
+                    print join("\t", 'C', $caller_name, $sub_info->subname, $call_data->[NYTP_SCi_CALL_COUNT],
+                        $call_data->[NYTP_SCi_INCL_RTIME]), "\n";
+                }
+            }
+        }
+    }
+
+    for my $file_info ($profile->all_fileinfos) {
+        next if $file_info->is_eval;
+        my $lines_data = $file_info->line_time_data || [];
+        my $file_name = $file_info->filename;
+        for my $line (1 .. $#$lines_data) {
+            my $line_data = $lines_data->[$line] or next;
+            print join("\t", 'L', $file_name, $line, $line_data->[0] || 0, $line_data->[1] || 0), "\n";
+        }
+    }
+}
@@ -1457,7 +1457,13 @@ public abstract class PerlLightTestCaseBase extends LightCodeInsightFixtureTestC
       sb.append(prefix).append("Recursion to: ").append(serializePsiElement(psiElement)).append("\n");
       return;
     }
-    sb.append(prefix).append(serializePsiElement(psiElement)).append("\n");
+    if (psiElement == null) {
+      currentElement.update();
+      sb.append(prefix).append(currentElement.getHighlightedText().getText()).append("\n");
+    }
+    else {
+      sb.append(prefix).append(serializePsiElement(psiElement)).append("\n");
+    }
     for (Object object : treeStructure.getChildElements(currentElement)) {
       assertInstanceOf(object, HierarchyNodeDescriptor.class);
       serializeTreeStructure(treeStructure, (HierarchyNodeDescriptor)object, elementProvider, sb, prefix + "    ",
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.debugger.breakpoints;
+
+import base.PerlLightTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PerlBreakpointsSynchronizerTest extends PerlLightTestCase {
+  private static final String PATH = "/project/script.pl";
+
+  private final List<List<PerlLineBreakPointDescriptor>> mySentBatches = new ArrayList<>();
+  private final List<Runnable> myScheduledFlushes = new ArrayList<>();
+  private final PerlBreakpointsSynchronizer mySynchronizer =
+    new PerlBreakpointsSynchronizer(mySentBatches::add, myScheduledFlushes::add);
+
+  @Test
+  public void testQueuedBeforeConnection() {
+    PerlLineBreakPointDescriptor first = set(1);
+    mySynchronizer.queue(first);
+    mySynchronizer.queue(set(2));
+    mySynchronizer.queue(remove(2));
+    assertEmpty(myScheduledFlushes);
+
+    assertEquals(Collections.singletonList(first), mySynchronizer.connected());
+    assertEmpty(myScheduledFlushes);
+    assertEmpty(mySentBatches);
+  }
+
+  @Test
+  public void testBurstIsCoalesced() {
+    mySynchronizer.connected();
+    PerlLineBreakPointDescriptor first = set(1);
+    PerlLineBreakPointDescriptor second = set(2);
+    mySynchronizer.queue(first);
+    mySynchronizer.queue(second);
+    assertSize(1, myScheduledFlushes);
+
+    flush();
+    assertSentBatches(Arrays.asList(first, second));
+  }
+
+  @Test
+  public void testLatestChangeWins() {
+    mySynchronizer.connected();
+    PerlLineBreakPointDescriptor disabled = create(1, false, "", false);
+    mySynchronizer.queue(set(1));
+    mySynchronizer.queue(disabled);
+    flush();
+    assertSentBatches(Collections.singletonList(disabled));
+  }
+
+  @Test
+  public void testAddAndRemoveInBurstSendsNothing() {
+    mySynchronizer.connected();
+    mySynchronizer.queue(set(1));
+    mySynchronizer.queue(remove(1));
+    flush();
+    assertEmpty(mySentBatches);
+  }
+
+  @Test
+  public void testUnchangedBreakpointIsNotResent() {
+    mySynchronizer.queue(set(1));
+    mySynchronizer.connected();
+    mySynchronizer.queue(set(1));
+    flush();
+    assertEmpty(mySentBatches);
+  }
+
+  @Test
+  public void testRemoveSentBreakpoint() {
+    mySynchronizer.queue(set(1));
+    mySynchronizer.connected();
+    PerlLineBreakPointDescriptor removal = remove(1);
+    mySynchronizer.queue(removal);
+    flush();
+    assertSentBatches(Collections.singletonList(removal));
+  }
+
+  @Test
+  public void testRemoveNotSentBreakpoint() {
+    mySynchronizer.connected();
+    mySynchronizer.queue(remove(1));
+    flush();
+    assertEmpty(mySentBatches);
+  }
+
+  @Test
+  public void testDeniedBreakpoint() {
+    mySynchronizer.queue(set(1));
+    mySynchronizer.connected();
+    mySynchronizer.denied(PATH, 1);
+
+    mySynchronizer.queue(remove(1));
+    flush();
+    assertEmpty(mySentBatches);
+
+    PerlLineBreakPointDescriptor descriptor = set(1);
+    mySynchronizer.queue(descriptor);
+    flush();
+    assertSentBatches(Collections.singletonList(descriptor));
+  }
+
+  @Test
+  public void testReconnectionResendsDesiredBreakpoints() {
+    mySynchronizer.connected();
+    PerlLineBreakPointDescriptor first = set(1);
+    mySynchronizer.queue(first);
+    mySynchronizer.queue(set(2));
+    mySynchronizer.queue(remove(2));
+    flush();
+    assertSentBatches(Collections.singletonList(first));
+    mySentBatches.clear();
+    mySynchronizer.disconnected();
+
+    PerlLineBreakPointDescriptor third = set(3);
+    mySynchronizer.queue(third);
+    assertEmpty(myScheduledFlushes);
+    assertEquals(Arrays.asList(first, third), mySynchronizer.connected());
+
+    mySynchronizer.queue(set(3));
+    flush();
+    assertEmpty(mySentBatches);
+  }
+
+  @Test
+  public void testFlushAfterDisconnection() {
+    mySynchronizer.connected();
+    mySynchronizer.queue(set(1));
+    mySynchronizer.disconnected();
+    flush();
+    assertEmpty(mySentBatches);
+  }
+
+  /**
+   * Runs scheduled flushes, like the scheduler does after the delay
+   */
+  private void flush() {
+    List<Runnable> flushes = new ArrayList<>(myScheduledFlushes);
+    myScheduledFlushes.clear();
+    flushes.forEach(Runnable::run);
+  }
+
+  @SafeVarargs
+  private final void assertSentBatches(@NotNull List<PerlLineBreakPointDescriptor>... expected) {
+    assertEquals(Arrays.asList(expected), mySentBatches);
+  }
+
+  @NotNull
+  private static PerlLineBreakPointDescriptor set(int line) {
+    return create(line, true, "", false);
+  }
+
+  @NotNull
+  private static PerlLineBreakPointDescriptor remove(int line) {
+    return create(line, true, "", true);
+  }
+
+  @NotNull
+  private static PerlLineBreakPointDescriptor create(int line, boolean enabled, @NotNull String condition, boolean remove) {
+    return PerlLineBreakPointDescriptor.create(PATH, line, enabled, condition, remove);
+  }
+}
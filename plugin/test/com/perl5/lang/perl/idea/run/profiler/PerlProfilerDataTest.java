@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.perl5.lang.perl.idea.run.profiler;
+
+import base.PerlLightTestCase;
+import com.perl5.lang.perl.idea.sdk.host.PerlHostHandler;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.Collection;
+
+public class PerlProfilerDataTest extends PerlLightTestCase {
+  private static final double DELTA = 1e-9;
+  private static final String FILE_PATH = "/project/lib/Foo.pm";
+
+  @Test
+  public void testSubRecord() {
+    PerlProfilerData data = createData("S\tFoo::bar\t" + FILE_PATH + "\t12\t3\t0.5\t0.25");
+    PerlProfilerSubData subData = data.getSubData("Foo::bar");
+    assertNotNull(subData);
+    assertEquals(FILE_PATH, subData.getLocalPath());
+    assertEquals(12, subData.getLine());
+    assertEquals(3, subData.getCalls());
+    assertEquals(0.5, subData.getInclusiveTime(), DELTA);
+    assertEquals(0.25, subData.getExclusiveTime(), DELTA);
+  }
+
+  @Test
+  public void testSubRecordWithoutFile() {
+    PerlProfilerData data = createData("S\tFoo::xsub\t\t0\t1\t0.1\t0.1");
+    PerlProfilerSubData subData = data.getSubData("Foo::xsub");
+    assertNotNull(subData);
+    assertNull(subData.getLocalPath());
+    assertEquals(1, subData.getCalls());
+  }
+
+  @Test
+  public void testSubRecordsMerge() {
+    PerlProfilerData data = createData(
+      "S\tFoo::bar\t" + FILE_PATH + "\t12\t3\t0.5\t0.25",
+      "S\tFoo::bar\t" + FILE_PATH + "\t12\t2\t0.25\t0.125");
+    PerlProfilerSubData subData = data.getSubData("Foo::bar");
+    assertNotNull(subData);
+    assertEquals(12, subData.getLine());
+    assertEquals(5, subData.getCalls());
+    assertEquals(0.75, subData.getInclusiveTime(), DELTA);
+    assertEquals(0.375, subData.getExclusiveTime(), DELTA);
+    assertSize(1, data.getSubs());
+  }
+
+  @Test
+  public void testCallRecords() {
+    PerlProfilerData data = createData(
+      "C\tmain::RUNTIME\tFoo::bar\t2\t0.5",
+      "C\tmain::RUNTIME\tFoo::bar\t1\t0.25",
+      "C\tFoo::baz\tFoo::bar\t4\t1");
+    assertSize(3, data.getSubs());
+
+    PerlProfilerSubData runtime = data.getSubData("main::RUNTIME");
+    assertNotNull(runtime);
+    assertEquals(0, runtime.getCalls());
+    assertCallData(runtime.getCallees(), "Foo::bar", 3, 0.75);
+
+    PerlProfilerSubData callee = data.getSubData("Foo::bar");
+    assertNotNull(callee);
+    assertSize(2, callee.getCallers());
+    assertCallData(callee.getCallers(), "main::RUNTIME", 3, 0.75);
+    assertCallData(callee.getCallers(), "Foo::baz", 4, 1);
+  }
+
+  @Test
+  public void testLineRecords() {
+    PerlProfilerData data = createData(
+      "L\t" + FILE_PATH + "\t5\t0.5\t10",
+      "L\t" + FILE_PATH + "\t5\t0.25\t5",
+      "L\t" + FILE_PATH + "\t6\t0.125\t1");
+    PerlProfilerLineData lineData = data.getLineData(FILE_PATH, 5);
+    assertNotNull(lineData);
+    assertEquals(0.75, lineData.getTime(), DELTA);
+    assertEquals(15, lineData.getStatements());
+
+    PerlProfilerLineData nextLineData = data.getLineData(FILE_PATH, 6);
+    assertNotNull(nextLineData);
+    assertEquals(1, nextLineData.getStatements());
+    assertNull(data.getLineData(FILE_PATH, 7));
+    assertTrue(data.getSubs().isEmpty());
+  }
+
+  @Test
+  public void testMalformedRecords() {
+    PerlProfilerData data = createData(
+      "X\tunknown",
+      "S\tFoo::bar\t" + FILE_PATH + "\t12\t3",
+      "S\tFoo::bar\t" + FILE_PATH + "\tline\t3\t0.5\t0.25",
+      "L\t" + FILE_PATH + "\t5\t0.5");
+    assertTrue(data.isEmpty());
+  }
+
+  private static void assertCallData(@NotNull Collection<PerlProfilerCallData> callsData,
+                                     @NotNull String subName,
+                                     long expectedCalls,
+                                     double expectedTime) {
+    PerlProfilerCallData callData = null;
+    for (PerlProfilerCallData data : callsData) {
+      if (subName.equals(data.getSubName())) {
+        callData = data;
+      }
+    }
+    assertNotNull(callData);
+    assertEquals(expectedCalls, callData.getCalls());
+    assertEquals(expectedTime, callData.getTime(), DELTA);
+  }
+
+  @NotNull
+  private static PerlProfilerData createData(@NotNull String... records) {
+    PerlProfilerData data = new PerlProfilerData(PerlHostHandler.getDefaultHandler().createData());
+    for (String record : records) {
+      data.processRecord(record);
+    }
+    return data;
+  }
+}
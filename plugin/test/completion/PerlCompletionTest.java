@@ -20,6 +20,7 @@ package completion;
 import base.PerlLightTestCase;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementPresentation;
+import com.intellij.openapi.application.WriteAction;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.perl5.lang.perl.idea.configuration.settings.PerlSharedSettings;
@@ -28,6 +29,8 @@ import com.perl5.lang.perl.internals.PerlVersion;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.function.BiPredicate;
 
 public class PerlCompletionTest extends PerlLightTestCase {
@@ -635,6 +638,12 @@ public class PerlCompletionTest extends PerlLightTestCase {
     doTestCompletionFromText("$$a{testindex}; $b->{<caret>}");
   }
 
+  @Test
+  public void testHashIndexFromOtherFile() {
+    myFixture.addFileToProject("other.pl", "my %other = (otherkey => 1, 'otherstring' => 2); $other{otherindex};");
+    doTestCompletionFromText("$$a{testindex}; $b->{<caret>}");
+  }
+
 
   @Test
   public void testAnnotation() {
@@ -672,6 +681,27 @@ public class PerlCompletionTest extends PerlLightTestCase {
     doTest();
   }
 
+  @Test
+  public void testPackageRequirePrefix() {
+    doTest();
+  }
+
+  @Test
+  public void testPackageFilesAfterDirectoryRename() throws IOException {
+    VirtualFile packageFile = myFixture.addFileToProject("renamedLib/Foo/Bar/Baz.pm", "package Foo::Bar::Baz;").getVirtualFile();
+    myFixture.addFileToProject("renamedLib/Foo/Bar/Quux.pm", "package Foo::Bar::Quux;");
+    VirtualFile packageDirectory = packageFile.getParent();
+    markAsLibRoot(packageDirectory.getParent().getParent(), true);
+    WriteAction.runAndWait(() -> packageDirectory.rename(this, "Qux"));
+
+    initWithTextSmart("require Foo::<caret>");
+    myFixture.completeBasic();
+    List<String> lookups = myFixture.getLookupElementStrings();
+    assertNotNull(lookups);
+    assertContainsElements(lookups, "Foo::Qux::Baz", "Foo::Qux::Quux");
+    assertDoesntContain(lookups, "Foo::Bar::Baz", "Foo::Bar::Quux");
+  }
+
   @Test
   public void testPackageMy() {
     doTest();
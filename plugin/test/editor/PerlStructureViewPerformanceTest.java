@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package editor;
+
+
+import base.PerlLightTestCase;
+import categories.Performance;
+import com.intellij.ide.util.treeView.smartTree.TreeElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.impl.source.PsiFileImpl;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.perl5.lang.perl.idea.structureView.PerlStructureViewModel;
+import com.perl5.lang.perl.util.PerlSubUtil;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Category(Performance.class)
+public class PerlStructureViewPerformanceTest extends PerlLightTestCase {
+  private static final int SUBS_NUMBER = 10000;
+
+  @Test
+  public void testStubsStructureEquivalence() {
+    PsiFile file = addModule("Equivalence");
+    ensureIndexed();
+    String stubsStructure = serializeStructure(file);
+    assertNull("Tree should not be loaded", ((PsiFileImpl)file).getTreeElement());
+    assertNotNull(file.getNode());
+    assertEquals(serializeStructure(file), stubsStructure);
+  }
+
+  @Test
+  public void testStructureFromStubs() {
+    final int iterations = 3;
+    List<PsiFile> stubbedFiles = new ArrayList<>();
+    List<PsiFile> parsedFiles = new ArrayList<>();
+    for (int i = 0; i < iterations; i++) {
+      stubbedFiles.add(addModule("Stubbed" + i));
+      parsedFiles.add(addModule("Parsed" + i));
+    }
+    ensureIndexed();
+
+    long astTime = 0;
+    for (PsiFile file : parsedFiles) {
+      long start = System.currentTimeMillis();
+      file.getNode();
+      serializeStructure(file);
+      astTime += System.currentTimeMillis() - start;
+    }
+    System.err.println("Structure from AST built in " + astTime / iterations + " ms per file");
+
+    final int time = 1000;
+    PlatformTestUtil.startPerformanceTest("Structure view from stubs", iterations * time, () -> {
+      long length = 0;
+      for (PsiFile file : stubbedFiles) {
+        long start = System.currentTimeMillis();
+        serializeStructure(file);
+        length += System.currentTimeMillis() - start;
+      }
+      System.err.println("Structure from stubs built in " + length / iterations + " ms per file of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  /**
+   * Makes sure that stubs for added files are in the index, so they are not built from the tree
+   */
+  private void ensureIndexed() {
+    PerlSubUtil.getSubDefinitions(getProject(), "Foo::method0");
+  }
+
+  /**
+   * @return module of about 50k lines, not opened in the editor
+   */
+  private PsiFile addModule(String name) {
+    String packageName = "Foo::" + name;
+    StringBuilder sb = new StringBuilder();
+    sb.append("package ").append(packageName).append(";\n")
+      .append("use strict;\n")
+      .append("use warnings;\n")
+      .append("use parent 'Foo::Base';\n")
+      .append("use constant {ONE => 1, TWO => 2};\n")
+      .append("our $VERSION = '1.0';\n");
+    for (int i = 0; i < SUBS_NUMBER; i++) {
+      if (i % 100 == 0) {
+        sb.append("our @list").append(i).append(" = (").append(i).append(");\n");
+        sb.append("*alias").append(i).append(" = \\&method").append(i).append(";\n");
+      }
+      sb.append("sub method").append(i).append(" {\n")
+        .append("  my ($self, $arg) = @_;\n")
+        .append("  return $self->method").append(i + 1).append("($arg) + 1;\n")
+        .append("}\n")
+        .append("\n");
+    }
+    return myFixture.addFileToProject("lib/Foo/" + name + ".pm", sb.toString());
+  }
+
+  private static String serializeStructure(PsiFile file) {
+    PerlStructureViewModel model = new PerlStructureViewModel(file, null);
+    try {
+      StringBuilder sb = new StringBuilder();
+      serializeElement(model.getRoot(), sb, "");
+      return sb.toString();
+    }
+    finally {
+      model.dispose();
+    }
+  }
+
+  private static void serializeElement(TreeElement element, StringBuilder sb, String indent) {
+    sb.append(indent).append(element.getPresentation().getPresentableText()).append("\n");
+    for (TreeElement child : element.getChildren()) {
+      serializeElement(child, sb, indent + "  ");
+    }
+  }
+}
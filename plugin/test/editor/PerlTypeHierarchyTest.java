@@ -18,7 +18,16 @@ package editor;
 
 
 import base.PerlLightTestCase;
+import com.intellij.ide.util.treeView.AlphaComparator;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.perl5.lang.perl.idea.hierarchy.namespace.PerlHierarchyNodeDescriptor;
+import com.perl5.lang.perl.idea.hierarchy.namespace.PerlHierarchyPageNodeDescriptor;
+import com.perl5.lang.perl.psi.PerlNamespaceDefinitionElement;
 import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
 public class PerlTypeHierarchyTest extends PerlLightTestCase {
   @Override
   protected String getBaseDataPath() {
@@ -36,4 +45,26 @@ public class PerlTypeHierarchyTest extends PerlLightTestCase {
 
   @Test
   public void testClassNameStatic() {doTestTypeHierarchy();}
+
+  @Test
+  public void testSubClassPages() {doTestTypeHierarchy();}
+
+  @Test
+  public void testSubClassPagesSorting() {
+    initWithTextSmart("package Foo::Base;");
+    PerlNamespaceDefinitionElement namespace = PsiTreeUtil.findChildOfType(getFile(), PerlNamespaceDefinitionElement.class);
+    assertNotNull(namespace);
+    PerlHierarchyNodeDescriptor baseDescriptor = new PerlHierarchyNodeDescriptor(null, namespace, true);
+    int total = 2500;
+    List<PerlHierarchyPageNodeDescriptor> pages = new ArrayList<>();
+    for (int from = 0; from < total; from += 200) {
+      PerlHierarchyPageNodeDescriptor page =
+        new PerlHierarchyPageNodeDescriptor(baseDescriptor, namespace, from, Math.min(from + 200, total), total);
+      page.update();
+      pages.add(page);
+    }
+    List<PerlHierarchyPageNodeDescriptor> sortedPages = new ArrayList<>(pages);
+    sortedPages.sort(AlphaComparator.INSTANCE);
+    assertEquals(pages, sortedPages);
+  }
 }
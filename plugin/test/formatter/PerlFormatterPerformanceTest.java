@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package formatter;
+
+
+import categories.Performance;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.testFramework.PlatformTestUtil;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+
+@Category(Performance.class)
+public class PerlFormatterPerformanceTest extends PerlFormatterTestCase {
+  @Override
+  protected String getBaseDataPath() {
+    return "testData/formatter/perl";
+  }
+
+  @Test
+  public void testPerlTidyReformatting() {
+    initWithPerlTidy();
+    final PsiFile file = getFile();
+    final Document document = getEditor().getDocument();
+    final String originalText = document.getText();
+    final int iterations = 5;
+
+    for (int i = 0; i < iterations; i++) {
+      reformat(file, document, originalText);
+    }
+
+    final int time = 5000;
+    PlatformTestUtil.startPerformanceTest("PerlTidy reformatting", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        reformat(file, document, originalText);
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Reformatting done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  @Test
+  public void testPerlTidyRangeReformatting() {
+    initWithPerlTidy();
+    final PsiFile file = getFile();
+    final Document document = getEditor().getDocument();
+    final String originalText = document.getText();
+    final int iterations = 30;
+    final int startOffset = document.getLineStartOffset(document.getLineCount() / 2);
+    final int endOffset = document.getLineEndOffset(document.getLineCount() / 2 + 50);
+
+    for (int i = 0; i < iterations; i++) {
+      reformat(file, document, originalText, startOffset, endOffset);
+    }
+
+    final int time = 200;
+    PlatformTestUtil.startPerformanceTest("PerlTidy range reformatting", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        reformat(file, document, originalText, startOffset, endOffset);
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Range reformatting done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  private void reformat(PsiFile file, Document document, String originalText) {
+    reformat(file, document, originalText, 0, originalText.length());
+  }
+
+  private void reformat(PsiFile file, Document document, String originalText, int startOffset, int endOffset) {
+    WriteCommandAction.writeCommandAction(getProject()).run(() -> {
+      document.setText(originalText);
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+      CodeStyleManager.getInstance(getProject()).reformatText(file, startOffset, endOffset);
+    });
+  }
+}
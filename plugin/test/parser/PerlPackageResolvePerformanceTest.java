@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package parser;
+
+
+import base.PerlLightTestCase;
+import categories.Performance;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.perl5.lang.perl.util.PerlPackageUtil;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+
+@Category(Performance.class)
+public class PerlPackageResolvePerformanceTest extends PerlLightTestCase {
+  private static final String[] PACKAGES = {
+    "Mojolicious::Controller",
+    "Mojolicious::Plugin::DefaultHelpers",
+    "Mojolicious::Plugin::TagHelpers",
+    "MyTest::Constants",
+    "MyTest::Exceptions",
+    "MyTest::ClassAccessor",
+    "MyTest::Something",
+    "MyTest::Some::Package",
+  };
+
+  @Test
+  public void testImportHeavyFileResolve() {
+    initWithTextSmart(generateImportHeavyScript(80));
+    assertNotNull(PerlPackageUtil.resolvePackageNameToVirtualFile(getFile(), PACKAGES[0]));
+    assertNull(PerlPackageUtil.resolvePackageNameToVirtualFile(getFile(), "Missing::Package0"));
+    final int iterations = 100;
+
+    for (int i = 0; i < iterations; i++) {
+      resolveAllPackages();
+    }
+
+    final int time = 20;
+    PlatformTestUtil.startPerformanceTest("Import heavy file packages resolve", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        resolveAllPackages();
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Resolving done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  /**
+   * Types a char in the end of file to invalidate per-file caches and resolves all packages used in the file
+   */
+  private void resolveAllPackages() {
+    myFixture.getEditor().getCaretModel().moveToOffset(getEditor().getDocument().getTextLength());
+    myFixture.type(" ");
+    PsiFile file = getFile();
+    for (String packageName : PACKAGES) {
+      PerlPackageUtil.resolvePackageNameToVirtualFile(file, packageName);
+    }
+    for (int i = 0; i < 72; i++) {
+      PerlPackageUtil.resolvePackageNameToVirtualFile(file, "Missing::Package" + i);
+    }
+  }
+
+  private static String generateImportHeavyScript(int usesNumber) {
+    StringBuilder sb = new StringBuilder("use strict;\nuse lib 'lib';\nuse lib 'local/lib/perl5';\n");
+    for (int i = 0; i < usesNumber; i++) {
+      sb.append("use ").append(i < PACKAGES.length ? PACKAGES[i] : "Missing::Package" + (i - PACKAGES.length)).append(";\n");
+    }
+    return sb.toString();
+  }
+}
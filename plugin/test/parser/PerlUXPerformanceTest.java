@@ -27,11 +27,18 @@ import com.intellij.openapi.editor.LogicalPosition;
 import com.intellij.openapi.fileEditor.TextEditor;
 import com.intellij.openapi.fileEditor.impl.text.TextEditorProvider;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.impl.CodeInsightTestFixtureImpl;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.perl5.lang.perl.psi.PerlSubDefinitionElement;
+import com.perl5.lang.perl.psi.PsiPerlBlock;
+import com.perl5.lang.perl.psi.properties.PerlBlockOwner;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -92,4 +99,50 @@ public class PerlUXPerformanceTest extends PerlLightTestCase {
       System.err.println("Highlighting done in " + length / iterations + " ms per iteration of " + time);
     }).assertTiming();
   }
+
+  @Test
+  public void testTypingInSubHighlighting() {
+    initWithPerlTidy();
+    final PsiFile file = getFile();
+    final Editor editor = getEditor();
+    final Project project = getProject();
+    CodeInsightTestFixtureImpl.ensureIndexesUpToDate(project);
+    final DaemonCodeAnalyzerImpl codeAnalyzer = (DaemonCodeAnalyzerImpl)DaemonCodeAnalyzer.getInstance(project);
+    final TextEditor textEditor = TextEditorProvider.getInstance().getTextEditor(editor);
+
+    PerlSubDefinitionElement subDefinition = ContainerUtil.getLastItem(
+      ContainerUtil.newArrayList(PsiTreeUtil.findChildrenOfType(file, PerlSubDefinitionElement.class)));
+    assertNotNull(subDefinition);
+    PsiPerlBlock subBody = PerlBlockOwner.findBlock(subDefinition);
+    assertNotNull(subBody);
+    editor.getCaretModel().moveToOffset(subBody.getTextRange().getStartOffset() + 1);
+    codeAnalyzer.runPasses(file, editor.getDocument(), Collections.singletonList(textEditor), ArrayUtil.EMPTY_INT_ARRAY, false, null);
+
+    final int iterations = 30;
+    for (int i = 0; i < iterations; i++) {
+      typeAndHighlight(file, editor, textEditor, codeAnalyzer);
+    }
+
+    final int time = 1100;
+    PlatformTestUtil.startPerformanceTest("PerlTidy typing in sub highlighting", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        typeAndHighlight(file, editor, textEditor, codeAnalyzer);
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Highlighting after typing done in " + length / iterations + " ms per iteration of " + time);
+    }).assertTiming();
+  }
+
+  /**
+   * Types a space at caret and re-highlights the dirty part of the file
+   */
+  private void typeAndHighlight(@NotNull PsiFile file,
+                                @NotNull Editor editor,
+                                @NotNull TextEditor textEditor,
+                                @NotNull DaemonCodeAnalyzerImpl codeAnalyzer) {
+    myFixture.type(" ");
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+    codeAnalyzer.runPasses(file, editor.getDocument(), Collections.singletonList(textEditor), ArrayUtil.EMPTY_INT_ARRAY, false, null);
+  }
 }
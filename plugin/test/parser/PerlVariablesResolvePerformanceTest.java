@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package parser;
+
+
+import base.PerlLightTestCase;
+import categories.Performance;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.perl5.lang.perl.psi.PerlVariable;
+import com.perl5.lang.perl.psi.PerlVariableDeclarationElement;
+import com.perl5.lang.perl.psi.references.scopes.PerlVariableDeclarationSearcher;
+import com.perl5.lang.perl.psi.utils.PerlResolveUtil;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collection;
+
+
+@Category(Performance.class)
+public class PerlVariablesResolvePerformanceTest extends PerlLightTestCase {
+  @Test
+  public void testPerlTidyLexicalDeclarationsEquivalence() {
+    initWithPerlTidy();
+    for (PerlVariable variable : PsiTreeUtil.findChildrenOfType(getFile(), PerlVariable.class)) {
+      if (variable instanceof PerlVariableDeclarationElement || variable.getExplicitNamespaceName() != null) {
+        continue;
+      }
+      PerlVariableDeclarationSearcher searcher = new PerlVariableDeclarationSearcher(variable);
+      if (PerlResolveUtil.treeWalkUp(variable, searcher)) {
+        searcher.processBuiltIns();
+      }
+      assertEquals(variable.getText() + " at " + variable.getTextOffset(), searcher.getResult(), variable.getLexicalDeclaration());
+    }
+  }
+
+  @Test
+  public void testFlatScriptLexicalDeclarations() {
+    initWithTextSmart(generateFlatScript(8000));
+    final int iterations = 10;
+
+    for (int i = 0; i < iterations; i++) {
+      resolveAllVariables();
+    }
+
+    final int time = 500;
+    PlatformTestUtil.startPerformanceTest("Flat script lexical declarations", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        resolveAllVariables();
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Resolving done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  /**
+   * Types a char in the end of file to invalidate caches and resolves all variables in the file
+   */
+  private void resolveAllVariables() {
+    myFixture.getEditor().getCaretModel().moveToOffset(getEditor().getDocument().getTextLength());
+    myFixture.type(" ");
+    Collection<PerlVariable> variables = PsiTreeUtil.findChildrenOfType(getFile(), PerlVariable.class);
+    for (PerlVariable variable : variables) {
+      variable.getLexicalDeclaration();
+    }
+  }
+
+  private static String generateFlatScript(int linesNumber) {
+    StringBuilder sb = new StringBuilder("use strict;\nmy $var0 = 1;\n");
+    for (int i = 1; i < linesNumber; i++) {
+      sb.append("my $var").append(i).append(" = $var").append(i - 1).append(" + $var").append(i / 2).append(";\n");
+    }
+    return sb.toString();
+  }
+}
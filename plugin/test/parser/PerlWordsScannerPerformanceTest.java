@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package parser;
+
+
+import categories.Performance;
+import com.intellij.lang.cacheBuilder.DefaultWordsScanner;
+import com.intellij.lang.cacheBuilder.WordOccurrence;
+import com.intellij.lang.cacheBuilder.WordsScanner;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.perl5.lang.perl.PerlParserDefinition;
+import com.perl5.lang.perl.idea.findusages.PerlWordsScanner;
+import com.perl5.lang.perl.lexer.PerlElementTypes;
+import com.perl5.lang.perl.lexer.adapters.PerlMergingLexerAdapter;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashSet;
+import java.util.Set;
+
+
+@Category(Performance.class)
+public class PerlWordsScannerPerformanceTest extends PerlParserTestBase {
+  @Test
+  public void testPerlTidyWordsEquivalence() {
+    String testData = getPerlTidy();
+    Set<Pair<String, WordOccurrence.Kind>> lexerWords = collectWords(createLexerWordsScanner(), testData);
+    Set<Pair<String, WordOccurrence.Kind>> scannerWords = collectWords(new PerlWordsScanner(), testData);
+    lexerWords.removeAll(scannerWords);
+    assertEmpty(lexerWords);
+  }
+
+  @Test
+  public void testDivisionAfterNamesEquivalence() {
+    String testData = "$x / 2; foo(); $y / 3;\n" +
+                      "$obj->join / 2; bar(); $z / 4;\n" +
+                      "$h{map} / 2; baz(); $w / 5;\n";
+    Set<Pair<String, WordOccurrence.Kind>> lexerWords = collectWords(createLexerWordsScanner(), testData);
+    Set<Pair<String, WordOccurrence.Kind>> scannerWords = collectWords(new PerlWordsScanner(), testData);
+    for (String word : new String[]{"x", "foo", "y", "obj", "join", "bar", "z", "h", "map", "baz", "w"}) {
+      assertContainsElements(scannerWords, Pair.create(word, WordOccurrence.Kind.CODE));
+    }
+    lexerWords.removeAll(scannerWords);
+    assertEmpty(lexerWords);
+  }
+
+  @Test
+  public void testPerlTidyWordsScanning() {
+    String testData = getPerlTidy();
+    final int iterations = 30;
+
+    System.err.println("Warming up...");
+    for (int i = 0; i < iterations; i++) {
+      scanWords(createLexerWordsScanner(), testData);
+      scanWords(new PerlWordsScanner(), testData);
+    }
+
+    long lexerTime = 0;
+    for (int i = 0; i < iterations; i++) {
+      lexerTime += scanWords(createLexerWordsScanner(), testData);
+    }
+    System.err.println("Lexer words scanning done in " + lexerTime / iterations + " ms per iteration");
+
+    final int time = 50;
+
+    PlatformTestUtil.startPerformanceTest("PerlTidy words scanning", iterations * time, () ->
+    {
+      long length = 0;
+      for (int i = 0; i < iterations; i++) {
+        length += scanWords(new PerlWordsScanner(), testData);
+      }
+      System.err.println("Words scanning done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  private static long scanWords(WordsScanner scanner, String testData) {
+    long start = System.currentTimeMillis();
+    scanner.processWords(testData, it -> true);
+    return System.currentTimeMillis() - start;
+  }
+
+  /**
+   * @return words reported by the scanner with their kinds. Lexer-based scanner keeps {@code $} in words from comments and lazy
+   * blocks, so words are split by it
+   */
+  private static Set<Pair<String, WordOccurrence.Kind>> collectWords(WordsScanner scanner, String testData) {
+    Set<Pair<String, WordOccurrence.Kind>> result = new HashSet<>();
+    scanner.processWords(testData, it -> {
+      for (String word : StringUtil.split(it.getBaseText().subSequence(it.getStart(), it.getEnd()).toString(), "$")) {
+        result.add(Pair.create(word, it.getKind()));
+      }
+      return true;
+    });
+    return result;
+  }
+
+  /**
+   * @return scanner we've been using before {@link PerlWordsScanner}
+   */
+  private static WordsScanner createLexerWordsScanner() {
+    DefaultWordsScanner scanner = new DefaultWordsScanner(
+      new PerlMergingLexerAdapter((Project)null),
+      PerlParserDefinition.IDENTIFIERS,
+      TokenSet.orSet(PerlParserDefinition.COMMENTS, TokenSet.create(PerlElementTypes.POD)),
+      PerlParserDefinition.LITERALS
+    );
+    scanner.setMayHaveFileRefsInLiterals(true);
+    return scanner;
+  }
+}
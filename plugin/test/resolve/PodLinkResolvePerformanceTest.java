@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package resolve;
+
+
+import base.PodLightTestCase;
+import categories.Performance;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.perl5.lang.pod.parser.psi.mixin.PodFormatterL;
+import com.perl5.lang.pod.parser.psi.references.PodLinkToSectionReference;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+
+@Category(Performance.class)
+public class PodLinkResolvePerformanceTest extends PodLightTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    withPerlPod();
+  }
+
+  @Test
+  public void testSectionLinksResolve() {
+    initWithTextSmart(generatePodCorpus(1000));
+    assertEquals(3000, resolveAllSectionLinks());
+    final int iterations = 10;
+
+    for (int i = 0; i < iterations; i++) {
+      resolveAllSectionLinks();
+    }
+
+    final int time = 300;
+    PlatformTestUtil.startPerformanceTest("Pod section links resolve", iterations * time, () -> {
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < iterations; i++) {
+        resolveAllSectionLinks();
+      }
+      long length = System.currentTimeMillis() - start;
+      System.err.println("Resolving done in " + length / iterations + " ms per iteration of " + time);
+    }).attempts(1).assertTiming();
+  }
+
+  /**
+   * Types a char in the end of file to invalidate caches and resolves all links to sections in the file
+   *
+   * @return number of resolved links
+   */
+  private int resolveAllSectionLinks() {
+    myFixture.getEditor().getCaretModel().moveToOffset(getEditor().getDocument().getTextLength());
+    myFixture.type(" ");
+    int resolved = 0;
+    for (PodFormatterL link : PsiTreeUtil.findChildrenOfType(getFile(), PodFormatterL.class)) {
+      for (PsiReference reference : link.getReferences()) {
+        if (reference instanceof PodLinkToSectionReference && reference.resolve() != null) {
+          resolved++;
+        }
+      }
+    }
+    return resolved;
+  }
+
+  private static String generatePodCorpus(int sectionsNumber) {
+    StringBuilder sb = new StringBuilder("=head1 NAME\n\nCorpus - synthetic documentation\n\n");
+    for (int i = 0; i < sectionsNumber; i++) {
+      sb.append("=head2 Section ").append(i).append("\n\n")
+        .append("See L</Section ").append(sectionsNumber - i - 1).append(">, L<perlvar/General Variables> ")
+        .append("and L<perlvar/\"$ARG\">.\n\n")
+        .append("=over\n\n=item Item ").append(i).append("\n\nItem X<index").append(i).append("> text.\n\n=back\n\n");
+    }
+    return sb.append("=cut\n").toString();
+  }
+}
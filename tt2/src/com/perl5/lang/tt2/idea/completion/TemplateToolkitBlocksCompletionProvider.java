@@ -20,16 +20,18 @@ import com.intellij.codeInsight.completion.CompletionParameters;
 import com.intellij.codeInsight.completion.CompletionProvider;
 import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.util.PsiUtilCore;
 import com.intellij.util.ProcessingContext;
+import com.perl5.lang.tt2.psi.TemplateToolkitBlocksIndex;
 import com.perl5.lang.tt2.psi.TemplateToolkitNamedBlock;
 import com.perl5.lang.tt2.psi.TemplateToolkitString;
 import com.perl5.lang.tt2.psi.mixins.TemplateToolkitStringMixin;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+import java.util.Map;
+
 
 public class TemplateToolkitBlocksCompletionProvider extends CompletionProvider<CompletionParameters> {
   @Override
@@ -52,18 +54,15 @@ public class TemplateToolkitBlocksCompletionProvider extends CompletionProvider<
       return;
     }
 
-    PsiTreeUtil.processElements(element.getContainingFile(), element1 -> {
-      if (element1 instanceof TemplateToolkitNamedBlock) {
-        String blockName = ((TemplateToolkitNamedBlock)element1).getName();
-        if (StringUtil.isNotEmpty(blockName)) {
-          result.addElement(
-            LookupElementBuilder.create(element1, blockName)
-              .withTypeText("BLOCK", true)
-              .withIcon(element1.getIcon(0))
-          );
-        }
+    for (Map.Entry<String, List<TemplateToolkitNamedBlock>> entry : TemplateToolkitBlocksIndex.getBlocksMap(
+      element.getContainingFile()).entrySet()) {
+      for (TemplateToolkitNamedBlock block : entry.getValue()) {
+        result.addElement(
+          LookupElementBuilder.create(block, entry.getKey())
+            .withTypeText("BLOCK", true)
+            .withIcon(block.getIcon(0))
+        );
       }
-      return true;
-    });
+    }
   }
 }
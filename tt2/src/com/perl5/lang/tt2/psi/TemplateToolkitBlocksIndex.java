@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.perl5.lang.tt2.psi;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.SmartList;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.perl5.lang.tt2.TemplateToolkitLanguage;
+import com.perl5.lang.tt2.filetypes.TemplateToolkitFileType;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of templates by names of {@code BLOCK}s defined in them. Blocks of the particular file are taken from the per-file table,
+ * see {@link #getBlocksMap(PsiFile)}
+ */
+public class TemplateToolkitBlocksIndex extends ScalarIndexExtension<String> implements PsiDependentIndex {
+  public static final ID<String, Void> KEY = ID.create("tt2.named.blocks");
+  private static final int VERSION = 1;
+
+  @NotNull
+  @Override
+  public ID<String, Void> getName() {
+    return KEY;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return inputData -> {
+      Map<String, Void> result = new THashMap<>();
+      PsiFile templateFile = inputData.getPsiFile().getViewProvider().getPsi(TemplateToolkitLanguage.INSTANCE);
+      if (templateFile != null) {
+        buildBlocksMap(templateFile).keySet().forEach(it -> result.put(it, null));
+      }
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return file -> file.getFileType() == TemplateToolkitFileType.INSTANCE;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Processes blocks with {@code blockName} defined in templates from {@code scope}
+   */
+  public static boolean processBlocks(@NotNull Project project,
+                                      @NotNull String blockName,
+                                      @NotNull GlobalSearchScope scope,
+                                      @NotNull Processor<? super TemplateToolkitNamedBlock> processor) {
+    PsiManager psiManager = PsiManager.getInstance(project);
+    for (VirtualFile virtualFile : FileBasedIndex.getInstance().getContainingFiles(KEY, blockName, scope)) {
+      ProgressManager.checkCanceled();
+      PsiFile psiFile = psiManager.findFile(virtualFile);
+      PsiFile templateFile = psiFile == null ? null : psiFile.getViewProvider().getPsi(TemplateToolkitLanguage.INSTANCE);
+      if (templateFile == null) {
+        continue;
+      }
+      for (TemplateToolkitNamedBlock block : getBlocks(templateFile, blockName)) {
+        if (!processor.process(block)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return blocks with {@code blockName} defined in the {@code templateFile}, in order of appearance
+   */
+  @NotNull
+  public static List<TemplateToolkitNamedBlock> getBlocks(@NotNull PsiFile templateFile, @NotNull String blockName) {
+    List<TemplateToolkitNamedBlock> result = getBlocksMap(templateFile).get(blockName);
+    return result == null ? Collections.emptyList() : result;
+  }
+
+  /**
+   * @return blocks defined in the {@code templateFile} by names, lazily built and invalidated on any change in the file
+   */
+  @NotNull
+  public static Map<String, List<TemplateToolkitNamedBlock>> getBlocksMap(@NotNull PsiFile templateFile) {
+    return CachedValuesManager.getCachedValue(
+      templateFile, () -> CachedValueProvider.Result.create(buildBlocksMap(templateFile), templateFile));
+  }
+
+  @NotNull
+  private static Map<String, List<TemplateToolkitNamedBlock>> buildBlocksMap(@NotNull PsiFile templateFile) {
+    Map<String, List<TemplateToolkitNamedBlock>> result = new THashMap<>();
+    PsiTreeUtil.processElements(templateFile, element -> {
+      if (element instanceof TemplateToolkitNamedBlock) {
+        String blockName = ((TemplateToolkitNamedBlock)element).getName();
+        if (StringUtil.isNotEmpty(blockName)) {
+          result.computeIfAbsent(blockName, it -> new SmartList<>()).add((TemplateToolkitNamedBlock)element);
+        }
+      }
+      return true;
+    });
+    return result;
+  }
+}
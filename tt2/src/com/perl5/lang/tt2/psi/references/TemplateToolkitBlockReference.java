@@ -16,22 +16,40 @@
 
 package com.perl5.lang.tt2.psi.references;
 
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.psi.ElementManipulators;
-import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiElementResolveResult;
-import com.intellij.psi.ResolveResult;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.source.resolve.reference.impl.providers.FileReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtilCore;
 import com.perl5.lang.perl.psi.references.PerlCachingReference;
+import com.perl5.lang.tt2.psi.TemplateToolkitBlocksIndex;
 import com.perl5.lang.tt2.psi.TemplateToolkitNamedBlock;
+import com.perl5.lang.tt2.psi.TemplateToolkitString;
+import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+
+import static com.perl5.lang.tt2.elementTypes.TemplateToolkitElementTypes.INCLUDE_DIRECTIVE;
+import static com.perl5.lang.tt2.elementTypes.TemplateToolkitElementTypes.PROCESS_DIRECTIVE;
 
 
 public class TemplateToolkitBlockReference extends PerlCachingReference<PsiElement> {
+  /**
+   * Directives making blocks of the target template available in the current one
+   */
+  private static final TokenSet TEMPLATE_LOADING_DIRECTIVES = TokenSet.create(INCLUDE_DIRECTIVE, PROCESS_DIRECTIVE);
+
   public TemplateToolkitBlockReference(PsiElement psiElement) {
     super(psiElement);
   }
@@ -48,16 +66,44 @@ public class TemplateToolkitBlockReference extends PerlCachingReference<PsiEleme
       return ResolveResult.EMPTY_ARRAY;
     }
 
-    final List<ResolveResult> result = new ArrayList<>();
+    PsiFile templateFile = element.getContainingFile();
+    String blockName = targetName.toString();
+    List<TemplateToolkitNamedBlock> blocks = TemplateToolkitBlocksIndex.getBlocks(templateFile, blockName);
+    if (blocks.isEmpty()) {
+      Set<VirtualFile> loadedTemplates = getLoadedTemplates(templateFile);
+      if (!loadedTemplates.isEmpty()) {
+        Project project = element.getProject();
+        blocks = new ArrayList<>();
+        TemplateToolkitBlocksIndex.processBlocks(
+          project, blockName, GlobalSearchScope.filesScope(project, loadedTemplates), blocks::add);
+      }
+    }
+
+    return PsiElementResolveResult.createResults(blocks);
+  }
 
-    PsiTreeUtil.processElements(element.getContainingFile(), element1 ->
-    {
-      if (element1 instanceof TemplateToolkitNamedBlock && StringUtil.equals(((TemplateToolkitNamedBlock)element1).getName(), targetName)) {
-        result.add(new PsiElementResolveResult(element1));
+  /**
+   * @return templates {@code PROCESS}ed or {@code INCLUDE}d by the {@code templateFile}
+   */
+  @NotNull
+  private static Set<VirtualFile> getLoadedTemplates(@NotNull PsiFile templateFile) {
+    return CachedValuesManager.getCachedValue(templateFile, () -> {
+      Set<VirtualFile> result = new THashSet<>();
+      for (TemplateToolkitString templateName : PsiTreeUtil.findChildrenOfType(templateFile, TemplateToolkitString.class)) {
+        if (!TEMPLATE_LOADING_DIRECTIVES.contains(PsiUtilCore.getElementType(templateName.getParent()))) {
+          continue;
+        }
+        for (PsiReference reference : templateName.getReferences()) {
+          if (reference instanceof FileReference && ((FileReference)reference).isLast()) {
+            PsiElement target = reference.resolve();
+            VirtualFile virtualFile = target instanceof PsiFile ? ((PsiFile)target).getVirtualFile() : null;
+            if (virtualFile != null && !virtualFile.equals(templateFile.getVirtualFile())) {
+              result.add(virtualFile);
+            }
+          }
+        }
       }
-      return true;
+      return CachedValueProvider.Result.create(result, PsiModificationTracker.MODIFICATION_COUNT);
     });
-
-    return result.toArray(new ResolveResult[result.size()]);
   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2019 Alexandr Evstigneev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package resolve;
+
+import base.TemplateToolkitLightTestCase;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.ResolveResult;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.perl5.lang.tt2.psi.TemplateToolkitNamedBlock;
+import com.perl5.lang.tt2.psi.TemplateToolkitString;
+import com.perl5.lang.tt2.psi.references.TemplateToolkitBlockReference;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TemplateToolkitBlockResolveTest extends TemplateToolkitLightTestCase {
+  private static final String FOOTER_TEMPLATE = "[% BLOCK footer %]footer[% END %]";
+
+  @Test
+  public void testLocalBlock() {
+    myFixture.addFileToProject("other.tt", FOOTER_TEMPLATE);
+    initWithTextSmart("[% BLOCK footer %]local[% END %][% PROCESS foo<caret>ter %]");
+    List<TemplateToolkitNamedBlock> blocks = resolveBlockAtCaret();
+    assertSize(1, blocks);
+    assertEquals(getFile(), blocks.get(0).getContainingFile());
+  }
+
+  @Test
+  public void testProcessedTemplateBlock() {
+    doTestLoadedTemplateBlock("PROCESS");
+  }
+
+  @Test
+  public void testIncludedTemplateBlock() {
+    doTestLoadedTemplateBlock("INCLUDE");
+  }
+
+  @Test
+  public void testNotLoadedTemplateBlock() {
+    myFixture.addFileToProject("other.tt", FOOTER_TEMPLATE);
+    initWithTextSmart("[% PROCESS foo<caret>ter %]");
+    assertEmpty(resolveBlockAtCaret());
+  }
+
+  private void doTestLoadedTemplateBlock(@NotNull String directive) {
+    myFixture.addFileToProject("other.tt", FOOTER_TEMPLATE);
+    myFixture.addFileToProject("unrelated.tt", FOOTER_TEMPLATE);
+    initWithTextSmart("[% " + directive + " ./other.tt %][% PROCESS foo<caret>ter %]");
+    List<TemplateToolkitNamedBlock> blocks = resolveBlockAtCaret();
+    assertSize(1, blocks);
+    assertEquals("other.tt", blocks.get(0).getContainingFile().getName());
+  }
+
+  @NotNull
+  private List<TemplateToolkitNamedBlock> resolveBlockAtCaret() {
+    PsiElement leaf = getFile().findElementAt(getEditor().getCaretModel().getOffset());
+    TemplateToolkitString blockName = PsiTreeUtil.getParentOfType(leaf, TemplateToolkitString.class, false);
+    assertNotNull(blockName);
+    List<TemplateToolkitNamedBlock> result = new ArrayList<>();
+    for (PsiReference reference : blockName.getReferences()) {
+      if (reference instanceof TemplateToolkitBlockReference) {
+        for (ResolveResult resolveResult : ((TemplateToolkitBlockReference)reference).multiResolve(false)) {
+          result.add((TemplateToolkitNamedBlock)resolveResult.getElement());
+        }
+      }
+    }
+    return result;
+  }
+}